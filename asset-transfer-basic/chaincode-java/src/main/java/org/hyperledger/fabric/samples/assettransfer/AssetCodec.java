@@ -0,0 +1,709 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.owlike.genson.Genson;
+
+/**
+ * Converts assets to and from the values stored on the ledger, without reflection or intermediate strings.
+ *
+ * <p>Assets are written as JSON with their properties in alphabetical order, exactly as Genson serializes them,
+ * directly into a byte array of the required size. Stored JSON in that form is read field by field from the bytes.
+ * Anything else, such as JSON with nested values or numbers that are not plain integers, is passed to Genson.
+ *
+ * <p>Assets can also be written in a compact binary form, which begins with a format tag byte that can never start a
+ * JSON value. Version 1 of the binary form holds the asset ID, color, size, owner and appraised value in that order.
+ * Strings are written as a varint of the UTF-8 length plus one, with zero for null, followed by the UTF-8 bytes.
+ * Integers are written as zigzag varints. Either form is recognized when reading.
+ */
+final class AssetCodec {
+
+    private static final Genson GENSON = new Genson();
+
+    // Braces, property names, quotes, colons and commas of a serialized asset, excluding property values.
+    private static final int STRUCTURE_LENGTH = "{\"appraisedValue\":,\"assetID\":,\"color\":,\"owner\":,\"size\":}".length();
+
+    private static final byte[] APPRAISED_VALUE = ascii("appraisedValue");
+    private static final byte[] ASSET_ID = ascii("assetID");
+    private static final byte[] COLOR = ascii("color");
+    private static final byte[] OWNER = ascii("owner");
+    private static final byte[] SIZE = ascii("size");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] LINE_SEPARATOR_ESCAPE = ascii("\\u2028");
+    private static final byte[] PARAGRAPH_SEPARATOR_ESCAPE = ascii("\\u2029");
+    private static final char LINE_SEPARATOR = '\u2028';
+    private static final char PARAGRAPH_SEPARATOR = '\u2029';
+
+    private static final int ASCII_LIMIT = 0x80;
+    private static final int TWO_BYTE_LIMIT = 0x800;
+    private static final int HEX_DIGITS = 4;
+    private static final int HEX_RADIX = 16;
+    private static final int HEX_DIGIT_BITS = 4;
+    private static final int CONTINUATION_BITS = 6;
+    private static final int CONTINUATION_MASK = 0x3F;
+    private static final int CONTINUATION_PREFIX = 0x80;
+    private static final int TWO_BYTE_PREFIX = 0xC0;
+    private static final int THREE_BYTE_PREFIX = 0xE0;
+    private static final int FOUR_BYTE_PREFIX = 0xF0;
+    private static final int DECIMAL_RADIX = 10;
+
+    // Escape sequence for each ASCII character that Genson escapes, or null if the character is written as is. Genson
+    // also escapes the line and paragraph separator characters.
+    private static final byte[][] ESCAPES = newEscapes();
+
+    // Format tag for version 1 of the binary form.
+    private static final byte BINARY_V1 = 0x01;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private AssetCodec() {
+    }
+
+    /**
+     * Deserializes an asset stored in either JSON or binary form.
+     *
+     * @param value the stored value
+     * @return the asset
+     */
+    static Asset decode(final byte[] value) {
+        return isBinary(value) ? fromBinary(value) : fromJson(value);
+    }
+
+    /**
+     * Converts a stored asset value to JSON. Values already stored as JSON are returned unchanged.
+     *
+     * @param value the stored value
+     * @return UTF-8 JSON
+     */
+    static byte[] toJson(final byte[] value) {
+        return isBinary(value) ? toJson(fromBinary(value)) : value;
+    }
+
+    /**
+     * Serializes an asset to the compact binary form.
+     *
+     * @param asset the asset
+     * @return the binary value, starting with its format tag
+     */
+    static byte[] toBinary(final Asset asset) {
+        int length = 1 + binaryStringLength(asset.getAssetID()) + binaryStringLength(asset.getColor())
+                + varintLength(zigzag(asset.getSize())) + binaryStringLength(asset.getOwner())
+                + varintLength(zigzag(asset.getAppraisedValue()));
+
+        Writer writer = new Writer(length);
+        writer.put(BINARY_V1);
+        writer.putBinaryString(asset.getAssetID());
+        writer.putBinaryString(asset.getColor());
+        writer.putVarint(zigzag(asset.getSize()));
+        writer.putBinaryString(asset.getOwner());
+        writer.putVarint(zigzag(asset.getAppraisedValue()));
+
+        return writer.bytes;
+    }
+
+    /**
+     * Deserializes an asset from the compact binary form.
+     *
+     * @param value the binary value, starting with its format tag
+     * @return the asset
+     * @throws IllegalArgumentException if the value is not a valid binary asset
+     */
+    static Asset fromBinary(final byte[] value) {
+        if (!isBinary(value)) {
+            throw new IllegalArgumentException("Unsupported asset format");
+        }
+
+        BinaryReader reader = new BinaryReader(value);
+        String assetID = reader.readString();
+        String color = reader.readString();
+        int size = reader.readInt();
+        String owner = reader.readString();
+        int appraisedValue = reader.readInt();
+        reader.expectEnd();
+
+        return new Asset(assetID, color, size, owner, appraisedValue);
+    }
+
+    private static boolean isBinary(final byte[] value) {
+        return value.length > 0 && value[0] == BINARY_V1;
+    }
+
+    /**
+     * Serializes an asset to JSON.
+     *
+     * @param asset the asset
+     * @return UTF-8 JSON, identical to that produced by Genson
+     */
+    static byte[] toJson(final Asset asset) {
+        int length = STRUCTURE_LENGTH + intLength(asset.getAppraisedValue()) + stringLength(asset.getAssetID())
+                + stringLength(asset.getColor()) + stringLength(asset.getOwner()) + intLength(asset.getSize());
+
+        Writer writer = new Writer(length);
+        writer.put('{');
+        writer.putName(APPRAISED_VALUE);
+        writer.putInt(asset.getAppraisedValue());
+        writer.put(',');
+        writer.putName(ASSET_ID);
+        writer.putString(asset.getAssetID());
+        writer.put(',');
+        writer.putName(COLOR);
+        writer.putString(asset.getColor());
+        writer.put(',');
+        writer.putName(OWNER);
+        writer.putString(asset.getOwner());
+        writer.put(',');
+        writer.putName(SIZE);
+        writer.putInt(asset.getSize());
+        writer.put('}');
+
+        return writer.bytes;
+    }
+
+    /**
+     * Deserializes an asset from JSON.
+     *
+     * @param json UTF-8 JSON
+     * @return the asset
+     */
+    static Asset fromJson(final byte[] json) {
+        try {
+            return new Reader(json).readAsset();
+        } catch (UnsupportedJsonException e) {
+            return GENSON.deserialize(new String(json, StandardCharsets.UTF_8), Asset.class);
+        }
+    }
+
+    private static int intLength(final int value) {
+        long remaining = Math.abs((long) value);
+        int length = value < 0 ? 2 : 1;
+        while (remaining >= DECIMAL_RADIX) {
+            remaining /= DECIMAL_RADIX;
+            length++;
+        }
+        return length;
+    }
+
+    private static int stringLength(final String value) {
+        if (value == null) {
+            return NULL.length;
+        }
+
+        int length = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < ASCII_LIMIT) {
+                length += ESCAPES[c] != null ? ESCAPES[c].length : 1;
+            } else if (c < TWO_BYTE_LIMIT) {
+                length += 2;
+            } else if (c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                length += LINE_SEPARATOR_ESCAPE.length;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int binaryStringLength(final String value) {
+        if (value == null) {
+            return 1;
+        }
+
+        int length = utf8Length(value);
+        return varintLength(length + 1) + length;
+    }
+
+    private static int utf8Length(final String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < ASCII_LIMIT || (Character.isSurrogate(c) && !isSurrogatePair(value, i))) {
+                length += 1;
+            } else if (c < TWO_BYTE_LIMIT) {
+                length += 2;
+            } else if (isSurrogatePair(value, i)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int varintLength(final int value) {
+        int length = 1;
+        for (int remaining = value >>> VARINT_BITS; remaining != 0; remaining >>>= VARINT_BITS) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int zigzag(final int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+
+    private static int unzigzag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static boolean isSurrogatePair(final String value, final int index) {
+        return Character.isHighSurrogate(value.charAt(index)) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+
+    private static byte[][] newEscapes() {
+        byte[][] escapes = new byte[ASCII_LIMIT][];
+        for (int c = 0; c < ' '; c++) {
+            escapes[c] = ascii(String.format("\\u%04x", c));
+        }
+        escapes['"'] = ascii("\\\"");
+        escapes['\\'] = ascii("\\\\");
+        escapes['\t'] = ascii("\\t");
+        escapes['\b'] = ascii("\\b");
+        escapes['\n'] = ascii("\\n");
+        escapes['\r'] = ascii("\\r");
+        escapes['\f'] = ascii("\\f");
+        return escapes;
+    }
+
+    private static byte[] ascii(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final class Writer {
+        private final byte[] bytes;
+        private int position = 0;
+
+        Writer(final int length) {
+            bytes = new byte[length];
+        }
+
+        void put(final char c) {
+            bytes[position++] = (byte) c;
+        }
+
+        void put(final byte b) {
+            bytes[position++] = b;
+        }
+
+        void put(final byte[] data) {
+            System.arraycopy(data, 0, bytes, position, data.length);
+            position += data.length;
+        }
+
+        void putName(final byte[] name) {
+            put('"');
+            put(name);
+            put('"');
+            put(':');
+        }
+
+        void putInt(final int value) {
+            if (value < 0) {
+                put('-');
+            }
+
+            long remaining = Math.abs((long) value);
+            int end = position + intLength(value) - (value < 0 ? 1 : 0);
+            for (int i = end - 1; i >= position; i--) {
+                bytes[i] = (byte) ('0' + remaining % DECIMAL_RADIX);
+                remaining /= DECIMAL_RADIX;
+            }
+            position = end;
+        }
+
+        void putString(final String value) {
+            if (value == null) {
+                put(NULL);
+                return;
+            }
+
+            put('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < ASCII_LIMIT) {
+                    if (ESCAPES[c] != null) {
+                        put(ESCAPES[c]);
+                    } else {
+                        put(c);
+                    }
+                } else if (c == LINE_SEPARATOR) {
+                    put(LINE_SEPARATOR_ESCAPE);
+                } else if (c == PARAGRAPH_SEPARATOR) {
+                    put(PARAGRAPH_SEPARATOR_ESCAPE);
+                } else {
+                    i = putNonAscii(value, i);
+                }
+            }
+            put('"');
+        }
+
+        void putBinaryString(final String value) {
+            if (value == null) {
+                putVarint(0);
+                return;
+            }
+
+            putVarint(utf8Length(value) + 1);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < ASCII_LIMIT) {
+                    put(c);
+                } else {
+                    i = putNonAscii(value, i);
+                }
+            }
+        }
+
+        void putVarint(final int value) {
+            int remaining = value;
+            while ((remaining & ~VARINT_MASK) != 0) {
+                bytes[position++] = (byte) (remaining & VARINT_MASK | VARINT_CONTINUATION);
+                remaining >>>= VARINT_BITS;
+            }
+            bytes[position++] = (byte) remaining;
+        }
+
+        // Write the UTF-8 encoding of the character at the given index, returning the index of its last char.
+        private int putNonAscii(final String value, final int index) {
+            char c = value.charAt(index);
+            if (isSurrogatePair(value, index)) {
+                putCodePoint(Character.toCodePoint(c, value.charAt(index + 1)));
+                return index + 1;
+            }
+
+            if (Character.isSurrogate(c)) {
+                put('?'); // Matches the replacement used by the UTF-8 charset encoder
+            } else {
+                putCodePoint(c);
+            }
+            return index;
+        }
+
+        private void putCodePoint(final int codePoint) {
+            if (codePoint < TWO_BYTE_LIMIT) {
+                bytes[position++] = (byte) (TWO_BYTE_PREFIX | codePoint >>> CONTINUATION_BITS);
+            } else if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                bytes[position++] = (byte) (THREE_BYTE_PREFIX | codePoint >>> 2 * CONTINUATION_BITS);
+                putContinuation(codePoint >>> CONTINUATION_BITS);
+            } else {
+                bytes[position++] = (byte) (FOUR_BYTE_PREFIX | codePoint >>> 3 * CONTINUATION_BITS);
+                putContinuation(codePoint >>> 2 * CONTINUATION_BITS);
+                putContinuation(codePoint >>> CONTINUATION_BITS);
+            }
+            putContinuation(codePoint);
+        }
+
+        private void putContinuation(final int bits) {
+            bytes[position++] = (byte) (CONTINUATION_PREFIX | bits & CONTINUATION_MASK);
+        }
+    }
+
+    /**
+     * Thrown when stored JSON is not in the simple form handled by {@link Reader}.
+     */
+    private static final class UnsupportedJsonException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedJsonException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class BinaryReader {
+        private final byte[] value;
+        private int position = 1;
+
+        BinaryReader(final byte[] value) {
+            this.value = value;
+        }
+
+        String readString() {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > value.length - position) {
+                throw new IllegalArgumentException("Truncated asset value");
+            }
+
+            String result = new String(value, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return result;
+        }
+
+        int readInt() {
+            return unzigzag(readVarint());
+        }
+
+        void expectEnd() {
+            if (position != value.length) {
+                throw new IllegalArgumentException("Unexpected data after asset value");
+            }
+        }
+
+        private int readVarint() {
+            int result = 0;
+            for (int shift = 0; shift < Integer.SIZE; shift += VARINT_BITS) {
+                if (position >= value.length) {
+                    throw new IllegalArgumentException("Truncated asset value");
+                }
+
+                byte b = value[position++];
+                result |= (b & VARINT_MASK) << shift;
+                if ((b & VARINT_CONTINUATION) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Invalid varint in asset value");
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] json;
+        private int position = 0;
+
+        private String assetID;
+        private String color;
+        private int size;
+        private String owner;
+        private int appraisedValue;
+
+        Reader(final byte[] json) {
+            this.json = json;
+        }
+
+        Asset readAsset() throws UnsupportedJsonException {
+            expect('{');
+            if (peek() == '}') {
+                position++;
+            } else {
+                do {
+                    readProperty();
+                } while (next() == ',');
+                position--;
+                expect('}');
+            }
+
+            skipWhitespace();
+            if (position != json.length) {
+                throw new UnsupportedJsonException();
+            }
+
+            return new Asset(assetID, color, size, owner, appraisedValue);
+        }
+
+        private void readProperty() throws UnsupportedJsonException {
+            expect('"');
+            int start = position;
+            boolean escaped = skipString();
+            int end = position - 1;
+            expect(':');
+
+            if (escaped) {
+                throw new UnsupportedJsonException();
+            } else if (isName(start, end, ASSET_ID)) {
+                assetID = readString();
+            } else if (isName(start, end, COLOR)) {
+                color = readString();
+            } else if (isName(start, end, OWNER)) {
+                owner = readString();
+            } else if (isName(start, end, SIZE)) {
+                size = readInt();
+            } else if (isName(start, end, APPRAISED_VALUE)) {
+                appraisedValue = readInt();
+            } else {
+                skipValue();
+            }
+        }
+
+        private boolean isName(final int start, final int end, final byte[] name) {
+            return Arrays.equals(json, start, end, name, 0, name.length);
+        }
+
+        private String readString() throws UnsupportedJsonException {
+            if (peek() == 'n') {
+                expectLiteral(NULL);
+                return null;
+            }
+
+            expect('"');
+            int start = position;
+            boolean escaped = skipString();
+            int end = position - 1;
+            return escaped ? unescape(start, end) : new String(json, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        // Advance past the closing quote of a string, returning whether the string contains escape sequences.
+        private boolean skipString() throws UnsupportedJsonException {
+            boolean escaped = false;
+            while (position < json.length) {
+                byte b = json[position++];
+                if (b == '"') {
+                    return escaped;
+                }
+                if (b == '\\') {
+                    escaped = true;
+                    position++;
+                }
+            }
+            throw new UnsupportedJsonException();
+        }
+
+        private String unescape(final int start, final int end) throws UnsupportedJsonException {
+            StringBuilder result = new StringBuilder(end - start);
+            int segmentStart = start;
+            for (int i = start; i < end; i++) {
+                if (json[i] != '\\') {
+                    continue;
+                }
+
+                result.append(new String(json, segmentStart, i - segmentStart, StandardCharsets.UTF_8));
+                i++;
+                if (json[i] == 'u') {
+                    result.append(readHex(i + 1, end));
+                    i += HEX_DIGITS;
+                } else {
+                    result.append(unescape(json[i]));
+                }
+                segmentStart = i + 1;
+            }
+            result.append(new String(json, segmentStart, end - segmentStart, StandardCharsets.UTF_8));
+            return result.toString();
+        }
+
+        private char readHex(final int start, final int end) throws UnsupportedJsonException {
+            if (start + HEX_DIGITS > end) {
+                throw new UnsupportedJsonException();
+            }
+
+            int value = 0;
+            for (int i = start; i < start + HEX_DIGITS; i++) {
+                int digit = Character.digit(json[i], HEX_RADIX);
+                if (digit < 0) {
+                    throw new UnsupportedJsonException();
+                }
+                value = value << HEX_DIGIT_BITS | digit;
+            }
+            return (char) value;
+        }
+
+        private static char unescape(final byte escape) throws UnsupportedJsonException {
+            switch (escape) {
+                case '"':
+                case '\\':
+                case '/':
+                    return (char) escape;
+                case 'b':
+                    return '\b';
+                case 'f':
+                    return '\f';
+                case 'n':
+                    return '\n';
+                case 'r':
+                    return '\r';
+                case 't':
+                    return '\t';
+                default:
+                    throw new UnsupportedJsonException();
+            }
+        }
+
+        private int readInt() throws UnsupportedJsonException {
+            skipWhitespace();
+            boolean negative = position < json.length && json[position] == '-';
+            if (negative) {
+                position++;
+            }
+
+            int start = position;
+            long value = 0;
+            while (position < json.length && json[position] >= '0' && json[position] <= '9' && value <= Integer.MAX_VALUE) {
+                value = value * DECIMAL_RADIX + (json[position++] - '0');
+            }
+            value = negative ? -value : value;
+
+            if (position == start || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE || isNumberContinued()) {
+                throw new UnsupportedJsonException();
+            }
+            return (int) value;
+        }
+
+        private boolean isNumberContinued() {
+            if (position >= json.length) {
+                return false;
+            }
+            byte b = json[position];
+            return b == '.' || b == 'e' || b == 'E' || (b >= '0' && b <= '9');
+        }
+
+        // Skip a string, number or literal value. Objects and arrays are not expected in assets.
+        private void skipValue() throws UnsupportedJsonException {
+            byte b = peek();
+            if (b == '"') {
+                position++;
+                skipString();
+            } else if (b == 'n') {
+                expectLiteral(NULL);
+            } else if (b == 't') {
+                expectLiteral(TRUE);
+            } else if (b == 'f') {
+                expectLiteral(FALSE);
+            } else if (b == '-' || (b >= '0' && b <= '9')) {
+                while (position < json.length && "+-.eE0123456789".indexOf(json[position]) >= 0) {
+                    position++;
+                }
+            } else {
+                throw new UnsupportedJsonException();
+            }
+        }
+
+        private void expectLiteral(final byte[] literal) throws UnsupportedJsonException {
+            if (!Arrays.equals(json, position, Math.min(position + literal.length, json.length), literal, 0, literal.length)) {
+                throw new UnsupportedJsonException();
+            }
+            position += literal.length;
+        }
+
+        private void expect(final char c) throws UnsupportedJsonException {
+            if (next() != c) {
+                throw new UnsupportedJsonException();
+            }
+        }
+
+        private byte next() throws UnsupportedJsonException {
+            byte b = peek();
+            position++;
+            return b;
+        }
+
+        private byte peek() throws UnsupportedJsonException {
+            skipWhitespace();
+            if (position >= json.length) {
+                throw new UnsupportedJsonException();
+            }
+            return json[position];
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length
+                    && (json[position] == ' ' || json[position] == '\t' || json[position] == '\n' || json[position] == '\r')) {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import java.util.Locale;
+
+/**
+ * Encoding used when writing asset values to the ledger. Assets written in any encoding can always be read, so the
+ * encoding can be changed without migrating existing assets.
+ *
+ * <p>Every peer that endorses transactions for the contract must use the same encoding. Otherwise their endorsements
+ * contain different values and do not match.
+ */
+enum AssetEncoding {
+
+    /** JSON with properties in alphabetical order. This is the default. */
+    JSON {
+        @Override
+        byte[] encode(final Asset asset) {
+            return AssetCodec.toJson(asset);
+        }
+    },
+
+    /** Compact binary form, identified by a leading format tag byte. */
+    BINARY {
+        @Override
+        byte[] encode(final Asset asset) {
+            return AssetCodec.toBinary(asset);
+        }
+    };
+
+    /** Environment variable used to select the encoding. */
+    static final String ENVIRONMENT_VARIABLE = "ASSET_ENCODING";
+
+    abstract byte[] encode(Asset asset);
+
+    /**
+     * Encoding selected by the {@value #ENVIRONMENT_VARIABLE} environment variable, either {@code json} or
+     * {@code binary}.
+     *
+     * @return the selected encoding, or JSON if none is selected
+     */
+    static AssetEncoding fromEnvironment() {
+        return parse(System.getenv(ENVIRONMENT_VARIABLE));
+    }
+
+    static AssetEncoding parse(final String name) {
+        if (name == null || name.isEmpty()) {
+            return JSON;
+        }
+
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
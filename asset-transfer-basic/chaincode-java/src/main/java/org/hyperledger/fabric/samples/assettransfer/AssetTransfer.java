@@ -4,8 +4,16 @@
 
 package org.hyperledger.fabric.samples.assettransfer;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 
 import org.hyperledger.fabric.contract.Context;
@@ -18,10 +26,13 @@ import org.hyperledger.fabric.contract.annotation.License;
 import org.hyperledger.fabric.contract.annotation.Transaction;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
+import org.hyperledger.fabric.shim.ledger.CompositeKey;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 
 import com.owlike.genson.Genson;
+import com.owlike.genson.JsonBindingException;
 
 @Contract(
         name = "basic",
@@ -39,11 +50,32 @@ import com.owlike.genson.Genson;
 @Default
 public final class AssetTransfer implements ContractInterface {
 
+    private static final byte[] RECORDS_START = "{\"records\":[".getBytes(StandardCharsets.UTF_8);
+
+    // Secondary indexes, with composite keys made up of the indexed property value and the asset ID. Index entries
+    // have no meaningful value, but an empty value would delete the key.
+    private static final String OWNER_INDEX = "owner~assetID";
+    private static final String COLOR_INDEX = "color~assetID";
+    private static final byte[] INDEX_VALUE = {0x00};
+
     private final Genson genson = new Genson();
+    private final AssetEncoding encoding;
+
+    /**
+     * Creates the contract, writing assets in the encoding selected by the ASSET_ENCODING environment variable.
+     */
+    public AssetTransfer() {
+        this(AssetEncoding.fromEnvironment());
+    }
+
+    AssetTransfer(final AssetEncoding encoding) {
+        this.encoding = encoding;
+    }
 
     private enum AssetTransferErrors {
         ASSET_NOT_FOUND,
-        ASSET_ALREADY_EXISTS
+        ASSET_ALREADY_EXISTS,
+        INVALID_ARGUMENT
     }
 
     /**
@@ -53,12 +85,12 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void InitLedger(final Context ctx) {
-        putAsset(ctx, new Asset("asset1", "blue", 5, "Tomoko", 300));
-        putAsset(ctx, new Asset("asset2", "red", 5, "Brad", 400));
-        putAsset(ctx, new Asset("asset3", "green", 10, "Jin Soo", 500));
-        putAsset(ctx, new Asset("asset4", "yellow", 10, "Max", 600));
-        putAsset(ctx, new Asset("asset5", "black", 15, "Adrian", 700));
-        putAsset(ctx, new Asset("asset6", "white", 15, "Michel", 700));
+        replaceAsset(ctx, new Asset("asset1", "blue", 5, "Tomoko", 300));
+        replaceAsset(ctx, new Asset("asset2", "red", 5, "Brad", 400));
+        replaceAsset(ctx, new Asset("asset3", "green", 10, "Jin Soo", 500));
+        replaceAsset(ctx, new Asset("asset4", "yellow", 10, "Max", 600));
+        replaceAsset(ctx, new Asset("asset5", "black", 15, "Adrian", 700));
+        replaceAsset(ctx, new Asset("asset6", "white", 15, "Michel", 700));
 
     }
 
@@ -77,23 +109,65 @@ public final class AssetTransfer implements ContractInterface {
     public Asset CreateAsset(final Context ctx, final String assetID, final String color, final int size,
         final String owner, final int appraisedValue) {
 
-        if (AssetExists(ctx, assetID)) {
+        if (exists(ctx.getStub().getState(assetID))) {
             String errorMessage = String.format("Asset %s already exists", assetID);
             System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString());
         }
 
-        return putAsset(ctx, new Asset(assetID, color, size, owner, appraisedValue));
+        return putAsset(ctx, new Asset(assetID, color, size, owner, appraisedValue), null);
     }
 
-    private Asset putAsset(final Context ctx, final Asset asset) {
-        // Use Genson to convert the Asset into string, sort it alphabetically and serialize it into a json string
-        String sortedJson = genson.serialize(asset);
-        ctx.getStub().putStringState(asset.getAssetID(), sortedJson);
-
+    private Asset putAsset(final Context ctx, final Asset asset, final byte[] previousValue) {
+        writeAsset(ctx, asset, previousValue);
         return asset;
     }
 
+    // Write an asset whose previous value has not been read, such as one that may or may not already exist.
+    private void replaceAsset(final Context ctx, final Asset asset) {
+        putAsset(ctx, asset, ctx.getStub().getState(asset.getAssetID()));
+    }
+
+    // Write an asset and update its index entries. The previous value is the asset's current value on the ledger, or
+    // null or empty if it does not exist.
+    private byte[] writeAsset(final Context ctx, final Asset asset, final byte[] previousValue) {
+        // By default, serialize the asset to JSON with its properties sorted alphabetically, as Genson would
+        byte[] value = encoding.encode(asset);
+        ChaincodeStub stub = ctx.getStub();
+        stub.putState(asset.getAssetID(), value);
+
+        Asset previous = exists(previousValue) ? AssetCodec.decode(previousValue) : null;
+        updateIndexes(stub, asset.getAssetID(), previous, asset);
+
+        return value;
+    }
+
+    // Index entries are only written or deleted when an indexed property changes.
+    private static void updateIndexes(final ChaincodeStub stub, final String assetID, final Asset previous, final Asset current) {
+        updateIndex(stub, OWNER_INDEX, assetID, previous != null ? previous.getOwner() : null,
+                current != null ? current.getOwner() : null);
+        updateIndex(stub, COLOR_INDEX, assetID, previous != null ? previous.getColor() : null,
+                current != null ? current.getColor() : null);
+    }
+
+    private static void updateIndex(final ChaincodeStub stub, final String index, final String assetID,
+            final String previousValue, final String value) {
+        if (Objects.equals(previousValue, value)) {
+            return;
+        }
+
+        if (previousValue != null) {
+            stub.delState(new CompositeKey(index, previousValue, assetID).toString());
+        }
+        if (value != null) {
+            stub.putState(new CompositeKey(index, value, assetID).toString(), INDEX_VALUE);
+        }
+    }
+
+    private static boolean exists(final byte[] assetValue) {
+        return assetValue != null && assetValue.length > 0;
+    }
+
     /**
      * Retrieves an asset with the specified ID from the ledger.
      *
@@ -103,15 +177,15 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public Asset ReadAsset(final Context ctx, final String assetID) {
-        String assetJSON = ctx.getStub().getStringState(assetID);
+        byte[] assetValue = ctx.getStub().getState(assetID);
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (!exists(assetValue)) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
             System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
-        return genson.deserialize(assetJSON, Asset.class);
+        return AssetCodec.decode(assetValue);
     }
 
     /**
@@ -129,13 +203,15 @@ public final class AssetTransfer implements ContractInterface {
     public Asset UpdateAsset(final Context ctx, final String assetID, final String color, final int size,
         final String owner, final int appraisedValue) {
 
-        if (!AssetExists(ctx, assetID)) {
+        byte[] assetValue = ctx.getStub().getState(assetID);
+
+        if (!exists(assetValue)) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
             System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
-        return putAsset(ctx, new Asset(assetID, color, size, owner, appraisedValue));
+        return putAsset(ctx, new Asset(assetID, color, size, owner, appraisedValue), assetValue);
     }
 
     /**
@@ -146,13 +222,17 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public void DeleteAsset(final Context ctx, final String assetID) {
-        if (!AssetExists(ctx, assetID)) {
+        ChaincodeStub stub = ctx.getStub();
+        byte[] assetValue = stub.getState(assetID);
+
+        if (!exists(assetValue)) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
             System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
-        ctx.getStub().delState(assetID);
+        stub.delState(assetID);
+        updateIndexes(stub, assetID, AssetCodec.decode(assetValue), null);
     }
 
     /**
@@ -164,9 +244,7 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.EVALUATE)
     public boolean AssetExists(final Context ctx, final String assetID) {
-        String assetJSON = ctx.getStub().getStringState(assetID);
-
-        return (assetJSON != null && !assetJSON.isEmpty());
+        return exists(ctx.getStub().getState(assetID));
     }
 
     /**
@@ -179,21 +257,146 @@ public final class AssetTransfer implements ContractInterface {
      */
     @Transaction(intent = Transaction.TYPE.SUBMIT)
     public String TransferAsset(final Context ctx, final String assetID, final String newOwner) {
-        String assetJSON = ctx.getStub().getStringState(assetID);
+        byte[] assetValue = ctx.getStub().getState(assetID);
 
-        if (assetJSON == null || assetJSON.isEmpty()) {
+        if (!exists(assetValue)) {
             String errorMessage = String.format("Asset %s does not exist", assetID);
             System.out.println(errorMessage);
             throw new ChaincodeException(errorMessage, AssetTransferErrors.ASSET_NOT_FOUND.toString());
         }
 
-        Asset asset = genson.deserialize(assetJSON, Asset.class);
+        Asset asset = AssetCodec.decode(assetValue);
 
-        putAsset(ctx, new Asset(asset.getAssetID(), asset.getColor(), asset.getSize(), newOwner, asset.getAppraisedValue()));
+        putAsset(ctx, new Asset(asset.getAssetID(), asset.getColor(), asset.getSize(), newOwner, asset.getAppraisedValue()),
+                assetValue);
 
         return asset.getOwner();
     }
 
+    /**
+     * Creates several new assets on the ledger in a single transaction. Every asset is checked before any are written,
+     * and assets that already exist are skipped without affecting the others.
+     *
+     * @param ctx the transaction context
+     * @param assetsJSON JSON array of the assets to create
+     * @return JSON array of results, one for each asset in the order given
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String CreateAssets(final Context ctx, final String assetsJSON) {
+        Asset[] assets = parseBatch(assetsJSON, Asset[].class);
+        Map<String, byte[]> states = readStates(ctx, assets.length, i -> assets[i].getAssetID());
+
+        List<BatchItemResult> results = new ArrayList<>(assets.length);
+        for (Asset asset : assets) {
+            String assetID = asset.getAssetID();
+            if (!states.containsKey(assetID)) {
+                results.add(BatchItemResult.failed(assetID, AssetTransferErrors.INVALID_ARGUMENT.toString()));
+            } else if (exists(states.get(assetID))) {
+                results.add(BatchItemResult.failed(assetID, AssetTransferErrors.ASSET_ALREADY_EXISTS.toString()));
+            } else {
+                states.put(assetID, writeAsset(ctx, asset, states.get(assetID)));
+                results.add(BatchItemResult.succeeded(assetID));
+            }
+        }
+
+        return genson.serialize(results);
+    }
+
+    /**
+     * Updates the properties of several assets on the ledger in a single transaction. Every asset is checked before
+     * any are written, and assets that do not exist are skipped without affecting the others.
+     *
+     * @param ctx the transaction context
+     * @param assetsJSON JSON array of the updated assets
+     * @return JSON array of results, one for each asset in the order given
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String UpdateAssets(final Context ctx, final String assetsJSON) {
+        Asset[] assets = parseBatch(assetsJSON, Asset[].class);
+        Map<String, byte[]> states = readStates(ctx, assets.length, i -> assets[i].getAssetID());
+
+        List<BatchItemResult> results = new ArrayList<>(assets.length);
+        for (Asset asset : assets) {
+            String assetID = asset.getAssetID();
+            if (!states.containsKey(assetID)) {
+                results.add(BatchItemResult.failed(assetID, AssetTransferErrors.INVALID_ARGUMENT.toString()));
+            } else if (!exists(states.get(assetID))) {
+                results.add(BatchItemResult.failed(assetID, AssetTransferErrors.ASSET_NOT_FOUND.toString()));
+            } else {
+                states.put(assetID, writeAsset(ctx, asset, states.get(assetID)));
+                results.add(BatchItemResult.succeeded(assetID));
+            }
+        }
+
+        return genson.serialize(results);
+    }
+
+    /**
+     * Changes the owner of several assets on the ledger in a single transaction. Every asset is checked before any are
+     * written, and assets that do not exist are skipped without affecting the others.
+     *
+     * @param ctx the transaction context
+     * @param transfersJSON JSON array of transfers, each with an assetID and newOwner
+     * @return JSON array of results, one for each transfer in the order given
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String TransferAssets(final Context ctx, final String transfersJSON) {
+        OwnerTransfer[] transfers = parseBatch(transfersJSON, OwnerTransfer[].class);
+        Map<String, byte[]> states = readStates(ctx, transfers.length, i -> transfers[i].getAssetID());
+
+        List<BatchItemResult> results = new ArrayList<>(transfers.length);
+        for (OwnerTransfer transfer : transfers) {
+            String assetID = transfer.getAssetID();
+            if (!states.containsKey(assetID)) {
+                results.add(BatchItemResult.failed(assetID, AssetTransferErrors.INVALID_ARGUMENT.toString()));
+            } else if (!exists(states.get(assetID))) {
+                results.add(BatchItemResult.failed(assetID, AssetTransferErrors.ASSET_NOT_FOUND.toString()));
+            } else {
+                Asset asset = AssetCodec.decode(states.get(assetID));
+                Asset transferred = new Asset(asset.getAssetID(), asset.getColor(), asset.getSize(), transfer.getNewOwner(),
+                        asset.getAppraisedValue());
+                states.put(assetID, writeAsset(ctx, transferred, states.get(assetID)));
+                results.add(BatchItemResult.succeeded(assetID));
+            }
+        }
+
+        return genson.serialize(results);
+    }
+
+    private <T> T[] parseBatch(final String json, final Class<T[]> type) {
+        T[] items;
+        try {
+            items = genson.deserialize(json, type);
+        } catch (JsonBindingException e) {
+            items = null;
+        }
+
+        if (items == null || Arrays.asList(items).contains(null)) {
+            String errorMessage = "Batch must be a JSON array of objects";
+            System.out.println(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        return items;
+    }
+
+    // Read the current state of each asset in a batch once, before any writes. Assets that do not exist map to an empty
+    // value, and items without an asset ID are omitted. Batch writes update the map so that later items in the same
+    // batch observe them.
+    private Map<String, byte[]> readStates(final Context ctx, final int count, final IntFunction<String> assetIDs) {
+        ChaincodeStub stub = ctx.getStub();
+        Map<String, byte[]> states = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String assetID = assetIDs.apply(i);
+            if (assetID != null && !assetID.isEmpty() && !states.containsKey(assetID)) {
+                byte[] assetValue = stub.getState(assetID);
+                states.put(assetID, assetValue != null ? assetValue : new byte[0]);
+            }
+        }
+
+        return states;
+    }
+
     /**
      * Retrieves all assets from the ledger.
      *
@@ -213,11 +416,136 @@ public final class AssetTransfer implements ContractInterface {
         QueryResultsIterator<KeyValue> results = stub.getStateByRange("", "");
 
         for (KeyValue result: results) {
-            Asset asset = genson.deserialize(result.getStringValue(), Asset.class);
+            Asset asset = AssetCodec.decode(result.getValue());
             System.out.println(asset);
             queryResults.add(asset);
         }
 
         return genson.serialize(queryResults);
     }
+
+    /**
+     * Retrieves one page of assets from the ledger. Assets stored as JSON are copied directly into the response as
+     * each asset is read, and assets stored in binary form are converted to JSON. Memory use depends only on the page
+     * size, and the complete set of assets can be retrieved by passing the returned bookmark to the next call until a
+     * page contains fewer than pageSize records.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or an empty string for the first page
+     * @return JSON object containing the records, the number of records fetched, and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAllAssetsWithPagination(final Context ctx, final int pageSize, final String bookmark) {
+        ChaincodeStub stub = ctx.getStub();
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByRangeWithPagination("", "", pageSize, bookmark);
+        return toPage(results, result -> result.getValue());
+    }
+
+    /**
+     * Retrieves one page of the assets with a given owner, using the owner index. The cost depends only on the number
+     * of matching assets, not the total number of assets.
+     *
+     * @param ctx the transaction context
+     * @param owner the owner
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or an empty string for the first page
+     * @return JSON object containing the records, the number of records fetched, and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByOwner(final Context ctx, final String owner, final int pageSize, final String bookmark) {
+        return getIndexedAssets(ctx, new CompositeKey(OWNER_INDEX, owner), pageSize, bookmark);
+    }
+
+    /**
+     * Retrieves one page of the assets with a given color, using the color index. The cost depends only on the number
+     * of matching assets, not the total number of assets.
+     *
+     * @param ctx the transaction context
+     * @param color the color
+     * @param pageSize the maximum number of assets to return
+     * @param bookmark the bookmark returned with the previous page, or an empty string for the first page
+     * @return JSON object containing the records, the number of records fetched, and the bookmark for the next page
+     */
+    @Transaction(intent = Transaction.TYPE.EVALUATE)
+    public String GetAssetsByColor(final Context ctx, final String color, final int pageSize, final String bookmark) {
+        return getIndexedAssets(ctx, new CompositeKey(COLOR_INDEX, color), pageSize, bookmark);
+    }
+
+    /**
+     * Writes the owner and color index entries for one page of assets, so that assets created before the indexes were
+     * introduced can be found by GetAssetsByOwner and GetAssetsByColor. Existing index entries are written again with
+     * the same value. All assets are indexed by calling this repeatedly with the returned next key until it is empty.
+     * Paginated queries cannot be used in submitted transactions, so the page is read with an open-ended range query.
+     *
+     * @param ctx the transaction context
+     * @param pageSize the maximum number of assets to index
+     * @param startKey the next key returned by the previous call, or an empty string for the first page
+     * @return JSON object containing the number of assets indexed, and the key from which to continue or an empty
+     *     string if all assets have been indexed
+     */
+    @Transaction(intent = Transaction.TYPE.SUBMIT)
+    public String RebuildIndexes(final Context ctx, final int pageSize, final String startKey) {
+        if (pageSize <= 0) {
+            String errorMessage = String.format("Page size must be positive: %d", pageSize);
+            System.out.println(errorMessage);
+            throw new ChaincodeException(errorMessage, AssetTransferErrors.INVALID_ARGUMENT.toString());
+        }
+
+        ChaincodeStub stub = ctx.getStub();
+        int count = 0;
+        String nextKey = "";
+        try (QueryResultsIterator<KeyValue> results = stub.getStateByRange(startKey, "")) {
+            for (KeyValue result: results) {
+                if (count == pageSize) {
+                    nextKey = result.getKey();
+                    break;
+                }
+                updateIndexes(stub, result.getKey(), null, AssetCodec.decode(result.getValue()));
+                count++;
+            }
+        }
+
+        return "{\"indexedRecordsCount\":" + count + ",\"nextKey\":" + genson.serialize(nextKey) + "}";
+    }
+
+    private String getIndexedAssets(final Context ctx, final CompositeKey partialKey, final int pageSize, final String bookmark) {
+        ChaincodeStub stub = ctx.getStub();
+
+        QueryResultsIteratorWithMetadata<KeyValue> results = stub.getStateByPartialCompositeKeyWithPagination(partialKey,
+                pageSize, bookmark);
+        return toPage(results, entry -> {
+            List<String> attributes = CompositeKey.parseCompositeKey(entry.getKey()).getAttributes();
+            return stub.getState(attributes.get(attributes.size() - 1));
+        });
+    }
+
+    // Write a page of query results in the form returned by GetAllAssetsWithPagination. Each result is mapped to the
+    // stored asset value, which is converted to JSON if required. Results with no asset value are omitted, and are not
+    // included in the fetched records count.
+    private String toPage(final QueryResultsIteratorWithMetadata<KeyValue> results, final Function<KeyValue, byte[]> assetValues) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        json.writeBytes(RECORDS_START);
+        try (results) {
+            int count = 0;
+            for (KeyValue result: results) {
+                byte[] assetValue = assetValues.apply(result);
+                if (!exists(assetValue)) {
+                    continue;
+                }
+                if (count > 0) {
+                    json.write(',');
+                }
+                json.writeBytes(AssetCodec.toJson(assetValue));
+                count++;
+            }
+
+            String metadata = "],\"fetchedRecordsCount\":" + count
+                    + ",\"bookmark\":" + genson.serialize(results.getMetadata().getBookmark()) + "}";
+            json.writeBytes(metadata.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return json.toString(StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import org.hyperledger.fabric.contract.annotation.DataType;
+import org.hyperledger.fabric.contract.annotation.Property;
+
+import com.owlike.genson.annotation.JsonProperty;
+
+/**
+ * Outcome of a single item in a batch transaction. Failed items are not applied to the ledger, but do not prevent
+ * the other items in the batch from being applied.
+ */
+@DataType()
+public final class BatchItemResult {
+
+    @Property()
+    private final String assetID;
+
+    @Property()
+    private final boolean success;
+
+    @Property()
+    private final String error;
+
+    public String getAssetID() {
+        return assetID;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public BatchItemResult(@JsonProperty("assetID") final String assetID, @JsonProperty("success") final boolean success,
+            @JsonProperty("error") final String error) {
+        this.assetID = assetID;
+        this.success = success;
+        this.error = error;
+    }
+
+    static BatchItemResult succeeded(final String assetID) {
+        return new BatchItemResult(assetID, true, "");
+    }
+
+    static BatchItemResult failed(final String assetID, final String error) {
+        return new BatchItemResult(assetID, false, error);
+    }
+}
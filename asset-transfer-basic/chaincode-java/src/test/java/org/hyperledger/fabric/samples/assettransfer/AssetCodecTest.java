@@ -0,0 +1,209 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import com.owlike.genson.Genson;
+
+public final class AssetCodecTest {
+
+    private static Asset fromJson(final String json) {
+        return AssetCodec.fromJson(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    class Serialization {
+
+        @Test
+        public void matchesGenson() {
+            Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+            byte[] json = AssetCodec.toJson(asset);
+
+            assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(new Genson().serialize(asset));
+        }
+
+        @Test
+        public void escapesLikeGenson() {
+            Asset asset = new Asset("a\"\\/\t\b\n\r\f\u0001", "<>&='\u007f", -2147483648, "\u2028\u2029", 2147483647);
+
+            byte[] json = AssetCodec.toJson(asset);
+
+            assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(new Genson().serialize(asset));
+        }
+
+        @Test
+        public void encodesNonAsciiAsUtf8() {
+            Asset asset = new Asset("Siobhán", "\u7eff", 0, "\ud83d\ude00 \ud800", -7);
+
+            byte[] json = AssetCodec.toJson(asset);
+
+            assertThat(json).isEqualTo(new Genson().serialize(asset).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        public void writesNullProperties() {
+            Asset asset = new Asset(null, null, 1, null, 2);
+
+            byte[] json = AssetCodec.toJson(asset);
+
+            assertThat(new String(json, StandardCharsets.UTF_8))
+                    .isEqualTo("{\"appraisedValue\":2,\"assetID\":null,\"color\":null,\"owner\":null,\"size\":1}");
+        }
+    }
+
+    @Nested
+    class Deserialization {
+
+        @Test
+        public void readsSerializedAssets() {
+            Asset asset = new Asset("a\"\\\u0001 \u2028", "Siobhán", -2147483648, "\ud83d\ude00", 2147483647);
+
+            assertThat(AssetCodec.fromJson(AssetCodec.toJson(asset))).isEqualTo(asset);
+        }
+
+        @Test
+        public void readsFormattedJson() {
+            Asset asset = fromJson(
+                    " { \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5,\n\"owner\": \"Tomoko\", \"appraisedValue\": 300 }\r\n");
+
+            assertThat(asset).isEqualTo(new Asset("asset1", "blue", 5, "Tomoko", 300));
+        }
+
+        @Test
+        public void readsEscapes() {
+            Asset asset = fromJson("{\"assetID\":\"\\u0041\\/\\b\\f\\n\\r\\t\\\"\\\\\",\"color\":\"caf\\u00e9 \u00e9\"}");
+
+            assertThat(asset).isEqualTo(new Asset("A/\b\f\n\r\t\"\\", "caf\u00e9 \u00e9", 0, null, 0));
+        }
+
+        @Test
+        public void skipsUnknownProperties() {
+            Asset asset = fromJson("{\"docType\":\"asset\",\"on\":true,\"off\":false,\"none\":null,\"weight\":-1.5e3,"
+                    + "\"owner\":null,\"size\":12}");
+
+            assertThat(asset).isEqualTo(new Asset(null, null, 12, null, 0));
+        }
+
+        @Test
+        public void readsEmptyObject() {
+            assertThat(fromJson("{}")).isEqualTo(new Asset(null, null, 0, null, 0));
+        }
+
+        @Test
+        public void delegatesOtherJsonToGenson() {
+            String[] inputs = {
+                "{\"assetID\":\"asset1\",\"tags\":[\"a\",\"b\"],\"size\":5}",
+                "{\"assetID\":\"asset1\",\"size\":5.0}",
+                "{\"asset\\u0049D\":\"asset1\",\"size\":5}",
+                "{\"assetID\":\"asset1\",\"size\":\"5\"}",
+                "{\"assetID\":\"asset1\",\"size\":99999999999}",
+                "{\"assetID\":\"asset1\",\"color\":\"\\x\"}",
+                "{\"assetID\":\"asset1\",\"color\":\"\\u12\"}",
+                "{\"assetID\":\"asset1\",\"color\":\"\\uzzzz\"}",
+                "{\"assetID\":\"asset1\",\"color\":\"blue}",
+                "{\"assetID\":\"asset1\",\"color\":nul}",
+                "{\"assetID\":\"asset1\",\"size\":-}",
+                "{\"assetID\":\"asset1\"} {}",
+                "{\"assetID\":\"asset1\"",
+            };
+
+            for (String input : inputs) {
+                Asset expected;
+                try {
+                    expected = new Genson().deserialize(input, Asset.class);
+                } catch (RuntimeException e) {
+                    expected = null;
+                }
+
+                Asset actual;
+                try {
+                    actual = fromJson(input);
+                } catch (RuntimeException e) {
+                    actual = null;
+                }
+
+                assertThat(actual).as(input).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Nested
+    class BinaryForm {
+
+        @Test
+        public void roundTrips() {
+            Asset[] assets = {
+                new Asset("asset1", "blue", 5, "Tomoko", 300),
+                new Asset("Siobhán", "\u7eff", -1, "\ud83d\ude00", 2147483647),
+                new Asset(null, "", -2147483648, null, 0),
+            };
+
+            for (Asset asset : assets) {
+                assertThat(AssetCodec.fromBinary(AssetCodec.toBinary(asset))).isEqualTo(asset);
+                assertThat(AssetCodec.decode(AssetCodec.toBinary(asset))).isEqualTo(asset);
+            }
+        }
+
+        @Test
+        public void isCompact() {
+            Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+            byte[] binary = AssetCodec.toBinary(asset);
+
+            assertThat(binary).startsWith(0x01, 0x07, 'a', 's', 's', 'e', 't', '1', 0x05, 'b', 'l', 'u', 'e', 0x0a);
+            assertThat(binary).hasSize(23);
+            assertThat(binary.length * 3).isLessThan(AssetCodec.toJson(asset).length);
+        }
+
+        @Test
+        public void replacesUnpairedSurrogates() {
+            Asset asset = new Asset("\ud800x", "\udc00", 1, "\ud800", 2);
+
+            assertThat(AssetCodec.fromBinary(AssetCodec.toBinary(asset))).isEqualTo(new Asset("?x", "?", 1, "?", 2));
+        }
+
+        @Test
+        public void decodesJson() {
+            byte[] json = AssetCodec.toJson(new Asset("asset1", "blue", 5, "Tomoko", 300));
+
+            assertThat(AssetCodec.decode(json)).isEqualTo(new Asset("asset1", "blue", 5, "Tomoko", 300));
+        }
+
+        @Test
+        public void convertsToJson() {
+            Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+            byte[] json = AssetCodec.toJson(asset);
+
+            assertThat(AssetCodec.toJson(AssetCodec.toBinary(asset))).isEqualTo(json);
+            assertThat(AssetCodec.toJson(json)).isSameAs(json);
+        }
+
+        @Test
+        public void rejectsInvalidValues() {
+            byte[] valid = AssetCodec.toBinary(new Asset("asset1", "blue", 5, "Tomoko", 300));
+
+            assertThatThrownBy(() -> AssetCodec.fromBinary(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> AssetCodec.fromBinary("{}".getBytes(StandardCharsets.UTF_8)))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> AssetCodec.fromBinary(Arrays.copyOf(valid, valid.length - 1)))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Truncated asset value");
+            assertThatThrownBy(() -> AssetCodec.fromBinary(Arrays.copyOf(valid, 4)))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Truncated asset value");
+            assertThatThrownBy(() -> AssetCodec.fromBinary(Arrays.copyOf(valid, valid.length + 1)))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Unexpected data after asset value");
+            assertThatThrownBy(() -> AssetCodec.fromBinary(new byte[] {0x01, -1, -1, -1, -1, -1}))
+                    .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid varint in asset value");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package org.hyperledger.fabric.samples.assettransfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+public final class AssetEncodingTest {
+
+    @Test
+    public void defaultsToJson() {
+        assertThat(AssetEncoding.parse(null)).isEqualTo(AssetEncoding.JSON);
+        assertThat(AssetEncoding.parse("")).isEqualTo(AssetEncoding.JSON);
+    }
+
+    @Test
+    public void parsesNamesIgnoringCase() {
+        assertThat(AssetEncoding.parse("json")).isEqualTo(AssetEncoding.JSON);
+        assertThat(AssetEncoding.parse("Binary")).isEqualTo(AssetEncoding.BINARY);
+    }
+
+    @Test
+    public void rejectsUnknownNames() {
+        assertThatThrownBy(() -> AssetEncoding.parse("protobuf")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void encodesInSelectedForm() {
+        Asset asset = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+        assertThat(AssetEncoding.JSON.encode(asset)).isEqualTo(AssetCodec.toJson(asset));
+        assertThat(AssetEncoding.BINARY.encode(asset)).isEqualTo(AssetCodec.toBinary(asset));
+    }
+}
@@ -6,20 +6,28 @@ package org.hyperledger.fabric.samples.assettransfer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
 import org.hyperledger.fabric.contract.Context;
+import org.hyperledger.fabric.protos.peer.QueryResponseMetadata;
 import org.hyperledger.fabric.shim.ChaincodeException;
 import org.hyperledger.fabric.shim.ChaincodeStub;
 import org.hyperledger.fabric.shim.ledger.KeyValue;
 import org.hyperledger.fabric.shim.ledger.QueryResultsIterator;
+import org.hyperledger.fabric.shim.ledger.QueryResultsIteratorWithMetadata;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
@@ -89,6 +97,38 @@ public final class AssetTransferTest {
 
     }
 
+    private static final class MockAssetResultsIteratorWithMetadata implements QueryResultsIteratorWithMetadata<KeyValue> {
+
+        private final List<KeyValue> assetList;
+        private final QueryResponseMetadata metadata;
+
+        MockAssetResultsIteratorWithMetadata(final List<KeyValue> assetList, final String bookmark) {
+            super();
+
+            this.assetList = assetList;
+            this.metadata = QueryResponseMetadata.newBuilder()
+                    .setFetchedRecordsCount(assetList.size())
+                    .setBookmark(bookmark)
+                    .build();
+        }
+
+        @Override
+        public Iterator<KeyValue> iterator() {
+            return assetList.iterator();
+        }
+
+        @Override
+        public QueryResponseMetadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public void close() {
+            // do nothing
+        }
+
+    }
+
     @Test
     public void invokeUnknownTransaction() {
         AssetTransfer contract = new AssetTransfer();
@@ -114,8 +154,8 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
 
             Asset asset = contract.ReadAsset(ctx, "asset1");
 
@@ -128,7 +168,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn(new byte[0]);
 
             Throwable thrown = catchThrowable(() -> {
                 contract.ReadAsset(ctx, "asset1");
@@ -150,11 +190,11 @@ public final class AssetTransferTest {
         contract.InitLedger(ctx);
 
         InOrder inOrder = inOrder(stub);
-        inOrder.verify(stub).putStringState("asset1", "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}");
-        inOrder.verify(stub).putStringState("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}");
-        inOrder.verify(stub).putStringState("asset3", "{\"appraisedValue\":500,\"assetID\":\"asset3\",\"color\":\"green\",\"owner\":\"Jin Soo\",\"size\":10}");
-        inOrder.verify(stub).putStringState("asset4", "{\"appraisedValue\":600,\"assetID\":\"asset4\",\"color\":\"yellow\",\"owner\":\"Max\",\"size\":10}");
-        inOrder.verify(stub).putStringState("asset5", "{\"appraisedValue\":700,\"assetID\":\"asset5\",\"color\":\"black\",\"owner\":\"Adrian\",\"size\":15}");
+        inOrder.verify(stub).putState("asset1", "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+        inOrder.verify(stub).putState("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+        inOrder.verify(stub).putState("asset3", "{\"appraisedValue\":500,\"assetID\":\"asset3\",\"color\":\"green\",\"owner\":\"Jin Soo\",\"size\":10}".getBytes(StandardCharsets.UTF_8));
+        inOrder.verify(stub).putState("asset4", "{\"appraisedValue\":600,\"assetID\":\"asset4\",\"color\":\"yellow\",\"owner\":\"Max\",\"size\":10}".getBytes(StandardCharsets.UTF_8));
+        inOrder.verify(stub).putState("asset5", "{\"appraisedValue\":700,\"assetID\":\"asset5\",\"color\":\"black\",\"owner\":\"Adrian\",\"size\":15}".getBytes(StandardCharsets.UTF_8));
 
     }
 
@@ -167,8 +207,8 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
 
             Throwable thrown = catchThrowable(() -> {
                 contract.CreateAsset(ctx, "asset1", "blue", 45, "Siobhán", 60);
@@ -185,7 +225,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn(new byte[0]);
 
             Asset asset = contract.CreateAsset(ctx, "asset1", "blue", 45, "Siobhán", 60);
 
@@ -212,6 +252,341 @@ public final class AssetTransferTest {
 
     }
 
+    @Nested
+    class InvokeGetAllAssetsWithPaginationTransaction {
+
+        @Test
+        public void whenPageIsFull() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            List<KeyValue> page = List.of(
+                    new MockKeyValue("asset1", "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}"),
+                    new MockKeyValue("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}"));
+            QueryResultsIteratorWithMetadata<KeyValue> results = new MockAssetResultsIteratorWithMetadata(page, "asset3");
+            when(stub.getStateByRangeWithPagination("", "", 2, "asset1")).thenReturn(results);
+
+            String assets = contract.GetAllAssetsWithPagination(ctx, 2, "asset1");
+
+            assertThat(assets).isEqualTo("{\"records\":["
+                    + "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5},"
+                    + "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}"
+                    + "],\"fetchedRecordsCount\":2,\"bookmark\":\"asset3\"}");
+        }
+
+        @Test
+        public void whenNoAssetsRemain() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            QueryResultsIteratorWithMetadata<KeyValue> results = new MockAssetResultsIteratorWithMetadata(List.of(), "");
+            when(stub.getStateByRangeWithPagination("", "", 2, "asset7")).thenReturn(results);
+
+            String assets = contract.GetAllAssetsWithPagination(ctx, 2, "asset7");
+
+            assertThat(assets).isEqualTo("{\"records\":[],\"fetchedRecordsCount\":0,\"bookmark\":\"\"}");
+        }
+    }
+
+    @Nested
+    class InvokeGetAssetsByOwnerTransaction {
+
+        @Test
+        public void whenAssetsAreIndexed() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            List<KeyValue> page = List.of(
+                    new MockKeyValue("\u0000owner~assetID\u0000Tomoko\u0000asset1\u0000", "\u0000"),
+                    new MockKeyValue("\u0000owner~assetID\u0000Tomoko\u0000asset7\u0000", "\u0000"));
+            QueryResultsIteratorWithMetadata<KeyValue> results = new MockAssetResultsIteratorWithMetadata(page, "next");
+            when(stub.getStateByPartialCompositeKeyWithPagination(
+                    argThat(key -> key.toString().equals("\u0000owner~assetID\u0000Tomoko\u0000")), eq(2), eq("")))
+                    .thenReturn(results);
+            when(stub.getState("asset1")).thenReturn(AssetCodec.toBinary(new Asset("asset1", "blue", 5, "Tomoko", 300)));
+
+            String assets = contract.GetAssetsByOwner(ctx, "Tomoko", 2, "");
+
+            assertThat(assets).isEqualTo("{\"records\":["
+                    + "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}"
+                    + "],\"fetchedRecordsCount\":1,\"bookmark\":\"next\"}");
+        }
+    }
+
+    @Nested
+    class InvokeGetAssetsByColorTransaction {
+
+        @Test
+        public void whenAssetsAreIndexed() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            List<KeyValue> page = List.of(
+                    new MockKeyValue("\u0000color~assetID\u0000red\u0000asset2\u0000", "\u0000"),
+                    new MockKeyValue("\u0000color~assetID\u0000red\u0000asset8\u0000", "\u0000"));
+            QueryResultsIteratorWithMetadata<KeyValue> results = new MockAssetResultsIteratorWithMetadata(page, "");
+            when(stub.getStateByPartialCompositeKeyWithPagination(
+                    argThat(key -> key.toString().equals("\u0000color~assetID\u0000red\u0000")), eq(10), eq("b")))
+                    .thenReturn(results);
+            when(stub.getState("asset2"))
+                    .thenReturn("{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+            when(stub.getState("asset8"))
+                    .thenReturn("{\"appraisedValue\":900,\"assetID\":\"asset8\",\"color\":\"red\",\"owner\":\"Max\",\"size\":20}".getBytes(StandardCharsets.UTF_8));
+
+            String assets = contract.GetAssetsByColor(ctx, "red", 10, "b");
+
+            assertThat(assets).isEqualTo("{\"records\":["
+                    + "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5},"
+                    + "{\"appraisedValue\":900,\"assetID\":\"asset8\",\"color\":\"red\",\"owner\":\"Max\",\"size\":20}"
+                    + "],\"fetchedRecordsCount\":2,\"bookmark\":\"\"}");
+        }
+    }
+
+    @Nested
+    class InvokeRebuildIndexesTransaction {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void whenMoreAssetsRemain() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            List<KeyValue> assets = List.of(
+                    new MockKeyValue("asset1", "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}"),
+                    new MockKeyValue("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"owner\":\"Brad\",\"size\":5}"),
+                    new MockKeyValue("asset3", "{\"appraisedValue\":500,\"assetID\":\"asset3\",\"color\":\"green\",\"owner\":\"Jin Soo\",\"size\":10}"));
+            QueryResultsIterator<KeyValue> results = mock(QueryResultsIterator.class);
+            when(results.iterator()).thenAnswer(invocation -> assets.iterator());
+            when(stub.getStateByRange("asset1", "")).thenReturn(results);
+
+            String result = contract.RebuildIndexes(ctx, 2, "asset1");
+
+            assertThat(result).isEqualTo("{\"indexedRecordsCount\":2,\"nextKey\":\"asset3\"}");
+            verify(stub).putState("\u0000owner~assetID\u0000Tomoko\u0000asset1\u0000", new byte[] {0x00});
+            verify(stub).putState("\u0000color~assetID\u0000blue\u0000asset1\u0000", new byte[] {0x00});
+            verify(stub).putState("\u0000owner~assetID\u0000Brad\u0000asset2\u0000", new byte[] {0x00});
+            verify(stub, times(3)).putState(argThat(key -> true), argThat(value -> true));
+            verify(results).close();
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void whenNoAssetsRemain() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            KeyValue binary = mock(KeyValue.class);
+            when(binary.getKey()).thenReturn("asset4");
+            when(binary.getValue()).thenReturn(AssetCodec.toBinary(new Asset("asset4", "yellow", 10, "Max", 600)));
+            QueryResultsIterator<KeyValue> results = mock(QueryResultsIterator.class);
+            when(results.iterator()).thenAnswer(invocation -> List.of(binary).iterator());
+            when(stub.getStateByRange("", "")).thenReturn(results);
+
+            String result = contract.RebuildIndexes(ctx, 2, "");
+
+            assertThat(result).isEqualTo("{\"indexedRecordsCount\":1,\"nextKey\":\"\"}");
+            verify(stub).putState("\u0000owner~assetID\u0000Max\u0000asset4\u0000", new byte[] {0x00});
+            verify(stub).putState("\u0000color~assetID\u0000yellow\u0000asset4\u0000", new byte[] {0x00});
+        }
+
+        @Test
+        public void whenPageSizeIsNotPositive() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.RebuildIndexes(ctx, 0, "");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Page size must be positive: 0");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_ARGUMENT".getBytes());
+            verifyNoInteractions(stub);
+        }
+    }
+
+    @Nested
+    class InvokeCreateAssetsTransaction {
+
+        @Test
+        public void whenSomeAssetsExist() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
+            when(stub.getState("asset2")).thenReturn(new byte[0]);
+
+            String results = contract.CreateAssets(ctx, "["
+                    + "{\"assetID\":\"asset1\",\"color\":\"blue\",\"size\":5,\"owner\":\"Tomoko\",\"appraisedValue\":300},"
+                    + "{\"assetID\":\"asset2\",\"color\":\"red\",\"size\":5,\"owner\":\"Brad\",\"appraisedValue\":400},"
+                    + "{\"assetID\":\"asset2\",\"color\":\"green\",\"size\":10,\"owner\":\"Jin Soo\",\"appraisedValue\":500},"
+                    + "{\"color\":\"yellow\",\"size\":10,\"owner\":\"Max\",\"appraisedValue\":600}]");
+
+            assertThat(results).isEqualTo("["
+                    + "{\"assetID\":\"asset1\",\"error\":\"ASSET_ALREADY_EXISTS\",\"success\":false},"
+                    + "{\"assetID\":\"asset2\",\"error\":\"\",\"success\":true},"
+                    + "{\"assetID\":\"asset2\",\"error\":\"ASSET_ALREADY_EXISTS\",\"success\":false},"
+                    + "{\"assetID\":null,\"error\":\"INVALID_ARGUMENT\",\"success\":false}]");
+            verify(stub, times(1)).getState("asset2");
+            verify(stub).putState("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+            verify(stub, never()).putState("asset1",
+                    "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        public void whenBatchIsNotAnArray() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, "{\"assetID\":\"asset1\"}");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Batch must be a JSON array of objects");
+            assertThat(((ChaincodeException) thrown).getPayload()).isEqualTo("INVALID_ARGUMENT".getBytes());
+            verifyNoInteractions(ctx);
+        }
+
+        @Test
+        public void whenBatchContainsNull() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+
+            Throwable thrown = catchThrowable(() -> {
+                contract.CreateAssets(ctx, "[null]");
+            });
+
+            assertThat(thrown).isInstanceOf(ChaincodeException.class).hasNoCause()
+                    .hasMessage("Batch must be a JSON array of objects");
+            verifyNoInteractions(ctx);
+        }
+    }
+
+    @Nested
+    class InvokeUpdateAssetsTransaction {
+
+        @Test
+        public void whenSomeAssetsDoNotExist() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
+            when(stub.getState("asset2")).thenReturn(new byte[0]);
+
+            String results = contract.UpdateAssets(ctx, "["
+                    + "{\"assetID\":\"asset1\",\"color\":\"pink\",\"size\":5,\"owner\":\"Tomoko\",\"appraisedValue\":350},"
+                    + "{\"assetID\":\"asset2\",\"color\":\"red\",\"size\":5,\"owner\":\"Brad\",\"appraisedValue\":400},"
+                    + "{\"assetID\":\"\",\"color\":\"red\",\"size\":5,\"owner\":\"Brad\",\"appraisedValue\":400}]");
+
+            assertThat(results).isEqualTo("["
+                    + "{\"assetID\":\"asset1\",\"error\":\"\",\"success\":true},"
+                    + "{\"assetID\":\"asset2\",\"error\":\"ASSET_NOT_FOUND\",\"success\":false},"
+                    + "{\"assetID\":\"\",\"error\":\"INVALID_ARGUMENT\",\"success\":false}]");
+            verify(stub).putState("asset1", "{\"appraisedValue\":350,\"assetID\":\"asset1\",\"color\":\"pink\",\"owner\":\"Tomoko\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Nested
+    class InvokeTransferAssetsTransaction {
+
+        @Test
+        public void whenSomeAssetsDoNotExist() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
+
+            String results = contract.TransferAssets(ctx, "["
+                    + "{\"assetID\":\"asset1\",\"newOwner\":\"Dr Evil\"},"
+                    + "{\"assetID\":\"asset2\",\"newOwner\":\"Dr Evil\"},"
+                    + "{\"assetID\":\"asset1\",\"newOwner\":\"Mini Me\"},"
+                    + "{\"newOwner\":\"Mini Me\"}]");
+
+            assertThat(results).isEqualTo("["
+                    + "{\"assetID\":\"asset1\",\"error\":\"\",\"success\":true},"
+                    + "{\"assetID\":\"asset2\",\"error\":\"ASSET_NOT_FOUND\",\"success\":false},"
+                    + "{\"assetID\":\"asset1\",\"error\":\"\",\"success\":true},"
+                    + "{\"assetID\":null,\"error\":\"INVALID_ARGUMENT\",\"success\":false}]");
+            verify(stub, times(1)).getState("asset1");
+            InOrder inOrder = inOrder(stub);
+            inOrder.verify(stub).putState("asset1",
+                    "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Dr Evil\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+            inOrder.verify(stub).putState("asset1",
+                    "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Mini Me\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Nested
+    class BinaryEncoding {
+
+        private final Asset asset1 = new Asset("asset1", "blue", 5, "Tomoko", 300);
+
+        @Test
+        public void writesBinaryAssets() {
+            AssetTransfer contract = new AssetTransfer(AssetEncoding.BINARY);
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1")).thenReturn(new byte[0]);
+
+            contract.CreateAsset(ctx, "asset1", "blue", 5, "Tomoko", 300);
+
+            verify(stub).putState("asset1", AssetCodec.toBinary(asset1));
+        }
+
+        @Test
+        public void readsBinaryAssets() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1")).thenReturn(AssetCodec.toBinary(asset1));
+
+            assertThat(contract.ReadAsset(ctx, "asset1")).isEqualTo(asset1);
+            assertThat(contract.TransferAsset(ctx, "asset1", "Dr Evil")).isEqualTo("Tomoko");
+            verify(stub).putState("asset1",
+                    "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Dr Evil\",\"size\":5}".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        public void returnsJsonForMixedPages() {
+            AssetTransfer contract = new AssetTransfer(AssetEncoding.BINARY);
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            KeyValue binary = mock(KeyValue.class);
+            when(binary.getValue()).thenReturn(AssetCodec.toBinary(asset1));
+            List<KeyValue> page = List.of(binary,
+                    new MockKeyValue("asset2", "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}"));
+            when(stub.getStateByRangeWithPagination("", "", 2, "")).thenReturn(new MockAssetResultsIteratorWithMetadata(page, "asset3"));
+            QueryResultsIterator<KeyValue> all = mock(QueryResultsIterator.class);
+            when(all.iterator()).thenAnswer(invocation -> page.iterator());
+            when(stub.getStateByRange("", "")).thenReturn(all);
+
+            String records = "{\"appraisedValue\":300,\"assetID\":\"asset1\",\"color\":\"blue\",\"owner\":\"Tomoko\",\"size\":5},"
+                    + "{\"appraisedValue\":400,\"assetID\":\"asset2\",\"color\":\"red\",\"owner\":\"Brad\",\"size\":5}";
+            assertThat(contract.GetAllAssetsWithPagination(ctx, 2, ""))
+                    .isEqualTo("{\"records\":[" + records + "],\"fetchedRecordsCount\":2,\"bookmark\":\"asset3\"}");
+            assertThat(contract.GetAllAssets(ctx)).isEqualTo("[" + records + "]");
+        }
+    }
+
     @Nested
     class TransferAssetTransaction {
 
@@ -221,12 +596,15 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
 
             String oldOwner = contract.TransferAsset(ctx, "asset1", "Dr Evil");
 
             assertThat(oldOwner).isEqualTo("Tomoko");
+            verify(stub).delState("\u0000owner~assetID\u0000Tomoko\u0000asset1\u0000");
+            verify(stub).putState("\u0000owner~assetID\u0000Dr Evil\u0000asset1\u0000", new byte[] {0x00});
+            verify(stub, never()).delState("\u0000color~assetID\u0000blue\u0000asset1\u0000");
         }
 
         @Test
@@ -235,7 +613,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn(new byte[0]);
 
             Throwable thrown = catchThrowable(() -> {
                 contract.TransferAsset(ctx, "asset1", "Dr Evil");
@@ -256,12 +634,18 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1"))
-                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 45, \"owner\": \"Arturo\", \"appraisedValue\": 60 }");
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 45, \"owner\": \"Arturo\", \"appraisedValue\": 60 }".getBytes(StandardCharsets.UTF_8));
 
             Asset asset = contract.UpdateAsset(ctx, "asset1", "pink", 45, "Arturo", 600);
 
             assertThat(asset).isEqualTo(new Asset("asset1", "pink", 45, "Arturo", 600));
+            verify(stub, times(1)).getState("asset1");
+            verify(stub).putState("asset1",
+                    "{\"appraisedValue\":600,\"assetID\":\"asset1\",\"color\":\"pink\",\"owner\":\"Arturo\",\"size\":45}".getBytes(StandardCharsets.UTF_8));
+            verify(stub).delState("\u0000color~assetID\u0000blue\u0000asset1\u0000");
+            verify(stub).putState("\u0000color~assetID\u0000pink\u0000asset1\u0000", new byte[] {0x00});
+            verify(stub, never()).delState("\u0000owner~assetID\u0000Arturo\u0000asset1\u0000");
         }
 
         @Test
@@ -270,7 +654,7 @@ public final class AssetTransferTest {
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn(new byte[0]);
 
             Throwable thrown = catchThrowable(() -> {
                 contract.TransferAsset(ctx, "asset1", "Alex");
@@ -285,13 +669,30 @@ public final class AssetTransferTest {
     @Nested
     class DeleteAssetTransaction {
 
+        @Test
+        public void whenAssetExists() {
+            AssetTransfer contract = new AssetTransfer();
+            Context ctx = mock(Context.class);
+            ChaincodeStub stub = mock(ChaincodeStub.class);
+            when(ctx.getStub()).thenReturn(stub);
+            when(stub.getState("asset1"))
+                    .thenReturn("{ \"assetID\": \"asset1\", \"color\": \"blue\", \"size\": 5, \"owner\": \"Tomoko\", \"appraisedValue\": 300 }".getBytes(StandardCharsets.UTF_8));
+
+            contract.DeleteAsset(ctx, "asset1");
+
+            verify(stub, times(1)).getState("asset1");
+            verify(stub).delState("asset1");
+            verify(stub).delState("\u0000owner~assetID\u0000Tomoko\u0000asset1\u0000");
+            verify(stub).delState("\u0000color~assetID\u0000blue\u0000asset1\u0000");
+        }
+
         @Test
         public void whenAssetDoesNotExist() {
             AssetTransfer contract = new AssetTransfer();
             Context ctx = mock(Context.class);
             ChaincodeStub stub = mock(ChaincodeStub.class);
             when(ctx.getStub()).thenReturn(stub);
-            when(stub.getStringState("asset1")).thenReturn("");
+            when(stub.getState("asset1")).thenReturn(new byte[0]);
 
             Throwable thrown = catchThrowable(() -> {
                 contract.DeleteAsset(ctx, "asset1");
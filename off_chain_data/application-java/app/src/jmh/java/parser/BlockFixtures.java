@@ -0,0 +1,172 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import org.hyperledger.fabric.protos.common.Block;
+import org.hyperledger.fabric.protos.common.BlockData;
+import org.hyperledger.fabric.protos.common.BlockHeader;
+import org.hyperledger.fabric.protos.common.BlockMetadata;
+import org.hyperledger.fabric.protos.common.BlockMetadataIndex;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Envelope;
+import org.hyperledger.fabric.protos.common.Header;
+import org.hyperledger.fabric.protos.common.HeaderType;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.hyperledger.fabric.protos.common.SignatureHeader;
+import org.hyperledger.fabric.protos.ledger.rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRead;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.ChaincodeActionPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeEndorsedAction;
+import org.hyperledger.fabric.protos.peer.Endorsement;
+import org.hyperledger.fabric.protos.peer.ProposalResponsePayload;
+import org.hyperledger.fabric.protos.peer.Transaction;
+import org.hyperledger.fabric.protos.peer.TransactionAction;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic blocks with the same structure as those delivered by a Fabric peer, so that parser performance can be
+ * measured without a running network. Each transaction updates a user chaincode namespace and also carries a read
+ * of the {@code _lifecycle} system chaincode namespace, as real endorser transactions do. Each transaction is endorsed
+ * by two organizations.
+ */
+final class BlockFixtures {
+    static final String CHANNEL_NAME = "mychannel";
+    static final String CHAINCODE_NAME = "basic";
+    static final String SYSTEM_CHAINCODE_NAME = "_lifecycle";
+
+    // Benchmark iterations, kept small enough for a full run to complete in a few minutes.
+    static final int WARMUP_ITERATIONS = 3;
+    static final int MEASUREMENT_ITERATIONS = 5;
+
+    // Approximate sizes of typical field content, so that fixtures have realistic encoded sizes.
+    private static final int VALUE_SIZE = 96; // JSON asset from the asset-transfer-basic smart contract
+    private static final int CERTIFICATE_SIZE = 800;
+    private static final int NONCE_SIZE = 24;
+    private static final int SIGNATURE_SIZE = 72;
+    private static final int HASH_SIZE = 32;
+    private static final int ENDORSEMENT_COUNT = 2;
+
+    /**
+     * Create a block of valid endorser transactions.
+     * @param blockNumber Block number.
+     * @param transactionCount Number of transactions in the block.
+     * @param writesPerTransaction Number of key writes made by each transaction.
+     * @return A block protobuf.
+     */
+    static Block newBlock(final long blockNumber, final int transactionCount, final int writesPerTransaction) {
+        var data = BlockData.newBuilder();
+        var validationCodes = new byte[transactionCount];
+        for (int i = 0; i < transactionCount; i++) {
+            var sequence = blockNumber * transactionCount + i;
+            data.addData(newEnvelope(sequence, writesPerTransaction).toByteString());
+            validationCodes[i] = (byte) TxValidationCode.VALID_VALUE;
+        }
+
+        var metadata = BlockMetadata.newBuilder();
+        for (int i = 0; i < BlockMetadataIndex.TRANSACTIONS_FILTER_VALUE; i++) {
+            metadata.addMetadata(ByteString.EMPTY);
+        }
+        metadata.addMetadata(ByteString.copyFrom(validationCodes));
+
+        return Block.newBuilder()
+                .setHeader(BlockHeader.newBuilder().setNumber(blockNumber))
+                .setData(data)
+                .setMetadata(metadata)
+                .build();
+    }
+
+    private static Envelope newEnvelope(final long sequence, final int writeCount) {
+        var channelHeader = ChannelHeader.newBuilder()
+                .setType(HeaderType.ENDORSER_TRANSACTION_VALUE)
+                .setChannelId(CHANNEL_NAME)
+                .setTxId(String.format("%064x", sequence))
+                .build();
+        var creator = SerializedIdentity.newBuilder()
+                .setMspid("Org1MSP")
+                .setIdBytes(ByteString.copyFrom(new byte[CERTIFICATE_SIZE]))
+                .build();
+        var signatureHeader = SignatureHeader.newBuilder()
+                .setCreator(creator.toByteString())
+                .setNonce(ByteString.copyFrom(new byte[NONCE_SIZE]))
+                .build();
+
+        var payload = Payload.newBuilder()
+                .setHeader(Header.newBuilder()
+                        .setChannelHeader(channelHeader.toByteString())
+                        .setSignatureHeader(signatureHeader.toByteString()))
+                .setData(newTransaction(sequence, writeCount).toByteString())
+                .build();
+
+        return Envelope.newBuilder()
+                .setPayload(payload.toByteString())
+                .setSignature(ByteString.copyFrom(new byte[SIGNATURE_SIZE]))
+                .build();
+    }
+
+    private static Transaction newTransaction(final long sequence, final int writeCount) {
+        var writes = KVRWSet.newBuilder();
+        for (int i = 0; i < writeCount; i++) {
+            writes.addWrites(KVWrite.newBuilder()
+                    .setKey("asset" + sequence + '_' + i)
+                    .setValue(newValue(i)));
+        }
+
+        var lifecycleReads = KVRWSet.newBuilder()
+                .addReads(KVRead.newBuilder().setKey("namespaces/fields/" + CHAINCODE_NAME + "/Sequence"));
+
+        var readWriteSet = TxReadWriteSet.newBuilder()
+                .setDataModel(TxReadWriteSet.DataModel.KV)
+                .addNsRwset(NsReadWriteSet.newBuilder()
+                        .setNamespace(SYSTEM_CHAINCODE_NAME)
+                        .setRwset(lifecycleReads.build().toByteString()))
+                .addNsRwset(NsReadWriteSet.newBuilder()
+                        .setNamespace(CHAINCODE_NAME)
+                        .setRwset(writes.build().toByteString()));
+
+        var chaincodeAction = ChaincodeAction.newBuilder()
+                .setResults(readWriteSet.build().toByteString())
+                .build();
+        var proposalResponsePayload = ProposalResponsePayload.newBuilder()
+                .setProposalHash(ByteString.copyFrom(new byte[HASH_SIZE]))
+                .setExtension(chaincodeAction.toByteString())
+                .build();
+        var endorsedAction = ChaincodeEndorsedAction.newBuilder()
+                .setProposalResponsePayload(proposalResponsePayload.toByteString());
+        for (int i = 0; i < ENDORSEMENT_COUNT; i++) {
+            endorsedAction.addEndorsements(Endorsement.newBuilder()
+                    .setEndorser(ByteString.copyFrom(new byte[CERTIFICATE_SIZE]))
+                    .setSignature(ByteString.copyFrom(new byte[SIGNATURE_SIZE])));
+        }
+        var actionPayload = ChaincodeActionPayload.newBuilder()
+                .setAction(endorsedAction)
+                .build();
+
+        return Transaction.newBuilder()
+                .addActions(TransactionAction.newBuilder().setPayload(actionPayload.toByteString()))
+                .build();
+    }
+
+    private static ByteString newValue(final int seed) {
+        var value = new StringBuilder(VALUE_SIZE);
+        value.append("{\"ID\":\"asset").append(seed).append("\",\"Owner\":\"");
+        while (value.length() < VALUE_SIZE - 2) {
+            value.append('x');
+        }
+        value.append("\"}");
+        return ByteString.copyFrom(value.toString(), StandardCharsets.UTF_8);
+    }
+
+    private BlockFixtures() { }
+}
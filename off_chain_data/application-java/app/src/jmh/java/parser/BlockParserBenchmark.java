@@ -0,0 +1,152 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block decode throughput for blocks of varying size. Each invocation parses a new block from the same protobuf, so
+ * nothing is cached between invocations. Scores are per block; divide by the transaction count for a per-transaction
+ * figure. Run with {@code -PjmhArgs="-prof gc"} to also report the allocation rate per block. The {@code lean}
+ * parameter compares full protobuf parsing with the lean parser, which skips content not needed for off-chain data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = BlockFixtures.WARMUP_ITERATIONS, time = 2)
+@Measurement(iterations = BlockFixtures.MEASUREMENT_ITERATIONS, time = 2)
+@Fork(1)
+public class BlockParserBenchmark {
+    @Param({"1", "10", "100", "500"})
+    private int transactionCount;
+
+    @Param({"1", "10"})
+    private int writesPerTransaction;
+
+    @Param({"1", "4"})
+    private int decodeParallelism;
+
+    @Param({"false", "true"})
+    private boolean lean;
+
+    private org.hyperledger.fabric.protos.common.Block blockProto;
+    private ForkJoinPool decodePool;
+
+    @Setup(Level.Trial)
+    public final void setup() {
+        blockProto = BlockFixtures.newBlock(1, transactionCount, writesPerTransaction);
+        decodePool = decodeParallelism > 1 ? new ForkJoinPool(decodeParallelism) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        if (decodePool != null) {
+            decodePool.shutdown();
+        }
+    }
+
+    /**
+     * Decode everything the off-chain data listener uses: channel headers and all read/write sets.
+     * @param blackhole Consumer of results.
+     * @throws InvalidProtocolBufferException if the block is not valid.
+     */
+    @Benchmark
+    public final void fullDecode(final Blackhole blackhole) throws InvalidProtocolBufferException {
+        for (var transaction : parseBlock().getTransactions()) {
+            blackhole.consume(transaction.getChannelHeader());
+            for (var readWriteSet : transaction.getNamespaceReadWriteSets()) {
+                blackhole.consume(readWriteSet.getReadWriteSet());
+            }
+        }
+    }
+
+    /**
+     * Decode channel headers and user chaincode read/write sets only, leaving system chaincode read/write sets encoded.
+     * @param blackhole Consumer of results.
+     * @throws InvalidProtocolBufferException if the block is not valid.
+     */
+    @Benchmark
+    public final void filteredDecode(final Blackhole blackhole) throws InvalidProtocolBufferException {
+        for (var transaction : parseBlock().getTransactions()) {
+            blackhole.consume(transaction.getChannelHeader());
+            for (var readWriteSet : transaction.getNamespaceReadWriteSets()) {
+                if (BlockFixtures.CHAINCODE_NAME.equals(readWriteSet.getNamespace())) {
+                    blackhole.consume(readWriteSet.getReadWriteSet());
+                }
+            }
+        }
+    }
+
+    /**
+     * Access only the transaction IDs, which lazy parsing allows without decoding any read/write sets.
+     * @param blackhole Consumer of results.
+     * @throws InvalidProtocolBufferException if the block is not valid.
+     */
+    @Benchmark
+    public final void transactionIdsOnly(final Blackhole blackhole) throws InvalidProtocolBufferException {
+        for (var transaction : parseBlock().getTransactions()) {
+            blackhole.consume(transaction.getChannelHeader().getTxId());
+        }
+    }
+
+    /**
+     * Decode only the transactions after the middle of the block, as when resuming from a mid-block checkpoint.
+     * @param blackhole Consumer of results.
+     * @throws InvalidProtocolBufferException if the block is not valid.
+     */
+    @Benchmark
+    public final void resumeFromMiddle(final Blackhole blackhole) throws InvalidProtocolBufferException {
+        for (var transaction : parseBlock().getTransactionsFrom(transactionCount / 2)) {
+            blackhole.consume(transaction.getChannelHeader());
+            for (var readWriteSet : transaction.getNamespaceReadWriteSets()) {
+                blackhole.consume(readWriteSet.getReadWriteSet());
+            }
+        }
+    }
+
+    /**
+     * Decode all transactions once, then access the same content again through the parser's cache.
+     * @param blackhole Consumer of results.
+     * @throws InvalidProtocolBufferException if the block is not valid.
+     */
+    @Benchmark
+    public final void repeatedAccess(final Blackhole blackhole) throws InvalidProtocolBufferException {
+        var block = parseBlock();
+        for (int i = 0; i < 2; i++) {
+            for (var transaction : block.getTransactions()) {
+                blackhole.consume(transaction.getChannelHeader());
+                for (var readWriteSet : transaction.getNamespaceReadWriteSets()) {
+                    blackhole.consume(readWriteSet.getReadWriteSet());
+                }
+            }
+        }
+    }
+
+    private Block parseBlock() {
+        if (lean) {
+            return BlockParser.parseBlockLean(blockProto, decodePool, namespace -> true);
+        }
+        return decodePool != null ? BlockParser.parseBlock(blockProto, decodePool) : BlockParser.parseBlock(blockProto);
+    }
+}
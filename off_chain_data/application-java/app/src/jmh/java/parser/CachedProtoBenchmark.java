@@ -0,0 +1,74 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Envelope;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Overhead of {@link Utils#getCachedProto(AtomicReference, Utils.ProtoCall)}, which caches lazily parsed protobuf
+ * messages using {@link AtomicReference#updateAndGet}. Cache hits are compared with a plain field read, and cache
+ * misses with parsing the same message directly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = BlockFixtures.WARMUP_ITERATIONS, time = 1)
+@Measurement(iterations = BlockFixtures.MEASUREMENT_ITERATIONS, time = 1)
+@Fork(1)
+public class CachedProtoBenchmark {
+    private Payload payload;
+    private ChannelHeader channelHeader;
+    private AtomicReference<ChannelHeader> populatedCache;
+
+    @Setup
+    public final void setup() throws InvalidProtocolBufferException {
+        var envelope = Envelope.parseFrom(BlockFixtures.newBlock(1, 1, 1).getData().getData(0));
+        payload = Payload.parseFrom(envelope.getPayload());
+        channelHeader = parseChannelHeader();
+        populatedCache = new AtomicReference<>(channelHeader);
+    }
+
+    @Benchmark
+    public final ChannelHeader fieldRead() {
+        return channelHeader;
+    }
+
+    @Benchmark
+    public final ChannelHeader cacheHit() throws InvalidProtocolBufferException {
+        return Utils.getCachedProto(populatedCache, this::parseChannelHeader);
+    }
+
+    @Benchmark
+    public final ChannelHeader directParse() throws InvalidProtocolBufferException {
+        return parseChannelHeader();
+    }
+
+    @Benchmark
+    public final ChannelHeader cacheMiss() throws InvalidProtocolBufferException {
+        return Utils.getCachedProto(new AtomicReference<>(), this::parseChannelHeader);
+    }
+
+    private ChannelHeader parseChannelHeader() throws InvalidProtocolBufferException {
+        return ChannelHeader.parseFrom(payload.getHeader().getChannelHeader());
+    }
+}
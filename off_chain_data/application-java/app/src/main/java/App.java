@@ -4,18 +4,34 @@
  * SPDX-License-Identifier: Apache-2.0
  */
 
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public final class App {
     private static final long SHUTDOWN_TIMEOUT_SECONDS = 3;
-    private static final Map<String, Command> COMMANDS = Map.ofEntries(
-            Map.entry("getAllAssets", new GetAllAssets()),
-            Map.entry("transact", new Transact()),
-            Map.entry("listen", new Listen())
+    // Interval between reports of Gateway call latency and throughput. Zero disables periodic reports.
+    private static final long METRICS_REPORT_SECONDS = Utils.getEnvOrDefault("METRICS_REPORT_SECONDS", Long::parseUnsignedLong, 0L);
+    // File to which Gateway call metrics are written in Prometheus text format. Empty disables file export.
+    private static final String METRICS_FILE = Utils.getEnvOrDefault("METRICS_FILE", "");
+    // Port on which Gateway call metrics are served in Prometheus text format. Zero disables the HTTP endpoint.
+    private static final int METRICS_PORT = Utils.getEnvOrDefault("METRICS_PORT", Integer::parseUnsignedInt, 0);
+    // Commands are created with the Gateway call metrics, which may be null, for commands that record their own.
+    private static final Map<String, Function<GatewayMetrics, Command>> COMMANDS = Map.ofEntries(
+            Map.entry("getAllAssets", metrics -> new GetAllAssets()),
+            Map.entry("getLocalAssets", metrics -> new GetLocalAssets()),
+            Map.entry("transact", Transact::new),
+            Map.entry("listen", metrics -> new Listen()),
+            Map.entry("replay", metrics -> new Replay()),
+            Map.entry("exportSnapshot", metrics -> new ExportSnapshot())
     );
 
     private final List<String> commandNames;
@@ -28,16 +44,25 @@ public final class App {
     public void run() throws Exception {
         var commands = getCommands();
         var grpcChannel = Connections.newGrpcConnection();
-        try {
+        try (var metrics = newGatewayMetrics()) {
+            Channel channel = metrics != null ? ClientInterceptors.intercept(grpcChannel, metrics) : grpcChannel;
             for (var command : commands) {
-                command.run(grpcChannel);
+                command.apply(metrics).run(channel);
             }
         } finally {
             grpcChannel.shutdownNow().awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
         }
     }
 
-    private List<Command> getCommands() {
+    private static GatewayMetrics newGatewayMetrics() throws IOException {
+        if (METRICS_REPORT_SECONDS == 0 && METRICS_FILE.isEmpty() && METRICS_PORT == 0) {
+            return null;
+        }
+
+        return new GatewayMetrics(METRICS_REPORT_SECONDS, METRICS_FILE.isEmpty() ? null : Paths.get(METRICS_FILE), METRICS_PORT);
+    }
+
+    private List<Function<GatewayMetrics, Command>> getCommands() {
         var commands = commandNames.stream()
                 .map(name -> {
                     var command = COMMANDS.get(name);
@@ -13,17 +13,30 @@ import org.hyperledger.fabric.client.SubmitException;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public final class AssetTransferBasic {
     private static final Gson GSON = new Gson();
     private final Contract contract;
+    private final CommitStatusMonitor commitMonitor;
 
     public AssetTransferBasic(final Contract contract) {
+        this(contract, null);
+    }
+
+    /**
+     * Create a smart contract client that also supports asynchronous transactions.
+     * @param contract Smart contract.
+     * @param commitMonitor Monitor used to obtain the commit status of asynchronous transactions.
+     */
+    public AssetTransferBasic(final Contract contract, final CommitStatusMonitor commitMonitor) {
         this.contract = contract;
+        this.commitMonitor = commitMonitor;
     }
 
     public void createAsset(final Asset asset) throws EndorseException, CommitException, SubmitException, CommitStatusException {
-        contract.submitTransaction(
+        submit(
                 "CreateAsset",
                 asset.getId(),
                 asset.getColor(),
@@ -34,18 +47,104 @@ public final class AssetTransferBasic {
     }
 
     public String transferAsset(final String id, final String newOwner) throws EndorseException, CommitException, SubmitException, CommitStatusException {
-        var resultBytes = contract.submitTransaction("TransferAsset", id, newOwner);
+        var resultBytes = submit("TransferAsset", id, newOwner);
         return new String(resultBytes, StandardCharsets.UTF_8);
     }
 
     public void deleteAsset(final String id) throws EndorseException, CommitException, SubmitException, CommitStatusException {
-        contract.submitTransaction("DeleteAsset", id);
+        submit("DeleteAsset", id);
+    }
+
+    /**
+     * Create an asset, without blocking while the transaction is committed. Requires a commit status monitor.
+     * @param asset Asset to create.
+     * @return Completes when the transaction is committed, or exceptionally with a {@link TransactionCommitException}
+     * if the transaction fails to commit successfully.
+     * @throws EndorseException if the transaction is not successfully endorsed.
+     * @throws SubmitException if the endorsed transaction is not successfully submitted to the orderer.
+     */
+    public CompletableFuture<Void> createAssetAsync(final Asset asset) throws EndorseException, SubmitException {
+        return submitAsync(
+                "CreateAsset",
+                asset.getId(),
+                asset.getColor(),
+                Integer.toString(asset.getSize()),
+                asset.getOwner(),
+                Integer.toString(asset.getAppraisedValue())
+        ).thenApply(resultBytes -> null);
+    }
+
+    /**
+     * Transfer an asset to a new owner, without blocking while the transaction is committed. Requires a commit status
+     * monitor.
+     * @param id Asset ID.
+     * @param newOwner New owner of the asset.
+     * @return The previous owner, available when the transaction is committed. Completes exceptionally with a
+     * {@link TransactionCommitException} if the transaction fails to commit successfully.
+     * @throws EndorseException if the transaction is not successfully endorsed.
+     * @throws SubmitException if the endorsed transaction is not successfully submitted to the orderer.
+     */
+    public CompletableFuture<String> transferAssetAsync(final String id, final String newOwner) throws EndorseException, SubmitException {
+        return submitAsync("TransferAsset", id, newOwner)
+                .thenApply(resultBytes -> new String(resultBytes, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Delete an asset, without blocking while the transaction is committed. Requires a commit status monitor.
+     * @param id Asset ID.
+     * @return Completes when the transaction is committed, or exceptionally with a {@link TransactionCommitException}
+     * if the transaction fails to commit successfully.
+     * @throws EndorseException if the transaction is not successfully endorsed.
+     * @throws SubmitException if the endorsed transaction is not successfully submitted to the orderer.
+     */
+    public CompletableFuture<Void> deleteAssetAsync(final String id) throws EndorseException, SubmitException {
+        return submitAsync("DeleteAsset", id).thenApply(resultBytes -> null);
     }
 
     public List<Asset> getAllAssets() throws EndorseException, CommitException, SubmitException, CommitStatusException {
-        var resultBytes = contract.submitTransaction("GetAllAssets");
+        var resultBytes = submit("GetAllAssets");
         var resultJson = new String(resultBytes, StandardCharsets.UTF_8);
         var assets = GSON.fromJson(resultJson, Asset[].class);
         return assets != null ? List.of(assets) : List.of();
     }
+
+    // Transaction phases are labelled with the transaction name, for reporting by GatewayMetrics.
+    private byte[] submit(final String transactionName, final String... args)
+            throws EndorseException, CommitException, SubmitException, CommitStatusException {
+        var options = GatewayMetrics.forFunction(transactionName);
+        return contract.newProposal(transactionName)
+                .addArguments(args)
+                .build()
+                .endorse(options)
+                .submit(options);
+    }
+
+    // Commit status is obtained from the shared commit status monitor, so no thread is blocked waiting for commit.
+    private CompletableFuture<byte[]> submitAsync(final String transactionName, final String... args) throws EndorseException, SubmitException {
+        if (commitMonitor == null) {
+            throw new IllegalStateException("No commit status monitor for asynchronous transactions");
+        }
+
+        var options = GatewayMetrics.forFunction(transactionName);
+        var transaction = contract.newProposal(transactionName)
+                .addArguments(args)
+                .build()
+                .endorse(options);
+
+        var transactionId = transaction.getTransactionId();
+        var status = commitMonitor.register(transactionId, transactionName);
+        try {
+            transaction.submitAsync(options);
+        } catch (SubmitException | RuntimeException e) {
+            commitMonitor.unregister(transactionId);
+            throw e;
+        }
+
+        return status.thenApply(commitStatus -> {
+            if (!commitStatus.isSuccessful()) {
+                throw new CompletionException(new TransactionCommitException(commitStatus));
+            }
+            return transaction.getResult();
+        });
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes asset values as stored on the ledger by the smart contract. Values are normally JSON, but the Java smart
+ * contract stores assets in a compact binary form when its {@code ASSET_ENCODING} is {@code binary}. The binary form
+ * begins with a format tag byte that can never start a JSON value. Version 1 holds the asset ID, color, size, owner
+ * and appraised value in that order. Strings are a varint of the UTF-8 length plus one, with zero for null, followed
+ * by the UTF-8 bytes. Integers are zigzag varints.
+ */
+public final class AssetValue {
+    private static final Gson GSON = new Gson();
+
+    private static final byte BINARY_V1 = 0x01;
+    private static final int VARINT_BITS = 7;
+    private static final int VARINT_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    private final ByteString value;
+    private int position = 1;
+
+    private AssetValue(final ByteString value) {
+        this.value = value;
+    }
+
+    /**
+     * Decode a stored asset value in either JSON or binary form.
+     * @param value Stored value.
+     * @return An asset.
+     * @throws IllegalArgumentException if a binary value is not a valid asset.
+     */
+    public static Asset decode(final ByteString value) {
+        if (value.isEmpty() || value.byteAt(0) != BINARY_V1) {
+            return GSON.fromJson(value.toStringUtf8(), Asset.class);
+        }
+
+        return new AssetValue(value).readAsset();
+    }
+
+    private Asset readAsset() {
+        var asset = new Asset(readString());
+        asset.setColor(readString());
+        asset.setSize(readInt());
+        asset.setOwner(readString());
+        asset.setAppraisedValue(readInt());
+
+        if (position != value.size()) {
+            throw new IllegalArgumentException("Unexpected data after asset value");
+        }
+        return asset;
+    }
+
+    private String readString() {
+        int length = readVarint() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > value.size() - position) {
+            throw new IllegalArgumentException("Truncated asset value");
+        }
+
+        var result = value.substring(position, position + length).toString(StandardCharsets.UTF_8);
+        position += length;
+        return result;
+    }
+
+    private int readInt() {
+        int zigzag = readVarint();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private int readVarint() {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += VARINT_BITS) {
+            if (position >= value.size()) {
+                throw new IllegalArgumentException("Truncated asset value");
+            }
+
+            byte b = value.byteAt(position++);
+            result |= (b & VARINT_MASK) << shift;
+            if ((b & VARINT_CONTINUATION) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Invalid varint in asset value");
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Off-chain store that accepts ledger updates asynchronously, so that writes for several transactions can be in
+ * progress at once. This suits sinks such as message brokers and databases that only achieve good throughput with
+ * many outstanding requests. Completions may arrive in any order. The caller advances its checkpoint only after the
+ * writes for a transaction and all earlier transactions have completed.
+ */
+public interface AsyncStore extends AutoCloseable {
+    /**
+     * Begin storing the writes for a transaction.
+     * @param blockNumber Block number.
+     * @param transactionId Transaction ID.
+     * @param writes Ledger writes.
+     * @return Completes when the writes are durably stored, or exceptionally if they cannot be stored.
+     */
+    CompletionStage<Void> store(long blockNumber, String transactionId, List<Write> writes);
+
+    /**
+     * Number of transactions whose writes may be in progress at once. This is checked before each transaction is
+     * stored, so a store can apply backpressure by reducing its capacity while it is overloaded. The default
+     * implementation allows one transaction at a time.
+     * @return Maximum number of incomplete store requests.
+     */
+    default int getCapacity() {
+        return 1;
+    }
+
+    /**
+     * Release any resources held by the store. The default implementation does nothing.
+     * @throws IOException if pending writes cannot be flushed.
+     */
+    @Override
+    default void close() throws IOException {
+        // Nothing to release
+    }
+
+    /**
+     * Adapt a synchronous store. Each request completes before it returns, so only one is ever in progress. Use
+     * {@link ExecutorAsyncStore} to apply the writes for several transactions at once to a thread-safe store.
+     * @param store A synchronous store.
+     * @return An asynchronous store.
+     */
+    static AsyncStore of(final Store store) {
+        return new AsyncStore() {
+            @Override
+            public CompletionStage<Void> store(final long blockNumber, final String transactionId, final List<Write> writes) {
+                try {
+                    store.store(blockNumber, transactionId, writes);
+                    return CompletableFuture.completedFuture(null);
+                } catch (IOException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                store.close();
+            }
+        };
+    }
+}
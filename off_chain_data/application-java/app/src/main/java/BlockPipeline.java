@@ -0,0 +1,116 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import parser.Block;
+import parser.DecodedTransaction;
+
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Processes blocks in two pipelined stages. Blocks are parsed on a dedicated parser thread and passed through a bounded
+ * queue to the calling thread, which applies them strictly in order. Protobuf decoding of the following blocks
+ * therefore overlaps with store writes for the current block, while checkpoints are still written in block order.
+ */
+public final class BlockPipeline {
+    private static final ParseResult END = new ParseResult(null, null);
+
+    private final Iterator<org.hyperledger.fabric.protos.common.Block> blocks;
+    private final Function<org.hyperledger.fabric.protos.common.Block, Block> parser;
+    private final Predicate<String> namespaceFilter;
+    private final BlockingQueue<ParseResult> parsedBlocks;
+    private final Consumer<Block> processor;
+
+    /**
+     * Create a block pipeline.
+     * @param blocks Source of block events.
+     * @param parser Parser used to create each block.
+     * @param namespaceFilter Namespaces whose read/write sets should be decoded.
+     * @param depth Maximum number of parsed blocks waiting to be processed.
+     * @param processor Action used to apply each parsed block, in order.
+     */
+    public BlockPipeline(final Iterator<org.hyperledger.fabric.protos.common.Block> blocks,
+                         final Function<org.hyperledger.fabric.protos.common.Block, Block> parser,
+                         final Predicate<String> namespaceFilter, final int depth, final Consumer<Block> processor) {
+        this.blocks = blocks;
+        this.parser = parser;
+        this.namespaceFilter = namespaceFilter;
+        this.parsedBlocks = new ArrayBlockingQueue<>(depth);
+        this.processor = processor;
+    }
+
+    /**
+     * Process blocks until the source is exhausted, or until parsing or processing of a block fails.
+     * @throws InterruptedException if interrupted while waiting for the next parsed block.
+     */
+    public void run() throws InterruptedException {
+        var parser = new Thread(this::parseBlocks, "block-parser");
+        parser.setDaemon(true);
+        parser.start();
+
+        try {
+            while (true) {
+                var result = parsedBlocks.take();
+                if (result.error != null) {
+                    throw result.error;
+                }
+                if (result == END) {
+                    return;
+                }
+
+                processor.accept(result.block);
+            }
+        } finally {
+            parser.interrupt();
+        }
+    }
+
+    private void parseBlocks() {
+        try {
+            try {
+                while (blocks.hasNext()) {
+                    var block = parser.apply(blocks.next());
+                    decode(block);
+                    parsedBlocks.put(new ParseResult(block, null));
+                }
+                parsedBlocks.put(END);
+            } catch (InvalidProtocolBufferException e) {
+                parsedBlocks.put(new ParseResult(null, new UncheckedIOException(e)));
+            } catch (RuntimeException e) {
+                parsedBlocks.put(new ParseResult(null, e));
+            }
+        } catch (InterruptedException e) {
+            // Processing has stopped so there is no consumer for parsed blocks.
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Eagerly decode all the parts of the block used during processing. Parsed values are cached, so the processing
+    // stage does not repeat this work.
+    private void decode(final Block block) throws InvalidProtocolBufferException {
+        for (var transaction : block.getTransactions()) {
+            if (transaction instanceof DecodedTransaction) {
+                ((DecodedTransaction) transaction).decode(namespaceFilter);
+            }
+        }
+    }
+
+    private static final class ParseResult {
+        private final Block block;
+        private final RuntimeException error;
+
+        ParseResult(final Block block, final RuntimeException error) {
+            this.block = block;
+            this.error = error;
+        }
+    }
+}
@@ -11,19 +11,50 @@ import parser.Transaction;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 public final class BlockProcessor {
     private final Block block;
     private final Checkpointer checkpointer;
-    private final Store store;
+    private final AsyncStore store;
+    private final ShardedStore shardedStore;
+    private final Executor executor;
+    private final WriteFilter filter;
 
-    public BlockProcessor(final Block block, final Checkpointer checkpointer, final Store store) {
+    public BlockProcessor(final Block block, final Checkpointer checkpointer, final AsyncStore store, final WriteFilter filter) {
         this.block = block;
         this.checkpointer = checkpointer;
         this.store = store;
+        this.shardedStore = null;
+        this.executor = null;
+        this.filter = filter;
+    }
+
+    /**
+     * Create a processor that applies the writes for different shards of a sharded store in parallel. The block is
+     * checkpointed once all the shards have been updated, and transactions within the block are not checkpointed.
+     * @param block A block.
+     * @param checkpointer Checkpointer.
+     * @param store Sharded store.
+     * @param filter Filter applied to ledger writes.
+     * @param executor Executor used to update shards. Should be able to run a task for each shard concurrently.
+     */
+    public BlockProcessor(final Block block, final Checkpointer checkpointer, final ShardedStore store, final WriteFilter filter,
+                          final Executor executor) {
+        this.block = block;
+        this.checkpointer = checkpointer;
+        this.store = null;
+        this.shardedStore = store;
+        this.executor = executor;
+        this.filter = filter;
     }
 
     public void process() {
@@ -35,11 +66,10 @@ public final class BlockProcessor {
                     .filter(Transaction::isValid)
                     .collect(Collectors.toList());
 
-            for (var transaction : validTransactions) {
-                new TransactionProcessor(transaction, blockNumber, store).process();
-
-                var transactionId = transaction.getChannelHeader().getTxId();
-                checkpointer.checkpointTransaction(blockNumber, transactionId);
+            if (shardedStore != null) {
+                storeSharded(validTransactions);
+            } else {
+                storePipelined(validTransactions);
             }
 
             checkpointer.checkpointBlock(blockNumber);
@@ -48,27 +78,187 @@ public final class BlockProcessor {
         }
     }
 
-    private List<Transaction> getNewTransactions() throws InvalidProtocolBufferException {
-        var transactions = block.getTransactions();
+    // Writes for several transactions may be in progress at once, up to the store's capacity. Transactions are
+    // checkpointed strictly in block order as their writes complete.
+    private void storePipelined(final List<Transaction> transactions) throws IOException {
+        var inProgress = new ArrayDeque<PendingTransaction>();
+        for (var transaction : transactions) {
+            while (!inProgress.isEmpty() && inProgress.size() >= store.getCapacity()) {
+                completeNext(inProgress);
+            }
+
+            var completion = new TransactionProcessor(transaction, block.getNumber(), store, filter).process().toCompletableFuture();
+            inProgress.add(new PendingTransaction(transaction, completion));
+
+            while (!inProgress.isEmpty() && inProgress.peek().completion.isDone()) {
+                completeNext(inProgress);
+            }
+        }
+
+        while (!inProgress.isEmpty()) {
+            completeNext(inProgress);
+        }
+    }
+
+    // Each ledger key belongs to one shard, so the writes for different shards are independent and are applied in
+    // parallel. Each shard applies its writes in block order, so writes to the same key keep their order.
+    private void storeSharded(final List<Transaction> transactions) throws IOException {
+        var shardTransactions = partitionByShard(transactions);
+
+        var completions = new ArrayList<CompletableFuture<Void>>(shardTransactions.size());
+        for (int i = 0; i < shardTransactions.size(); i++) {
+            var shard = shardedStore.getShard(i);
+            var shardWork = shardTransactions.get(i);
+            if (!shardWork.isEmpty()) {
+                completions.add(CompletableFuture.runAsync(() -> storeShard(shard, shardWork), executor));
+            }
+        }
+
+        // Wait for every shard, even if one fails, so that no shard is still being updated when the block is retried.
+        CompletableFuture.allOf(completions.toArray(CompletableFuture<?>[]::new)).exceptionally(e -> null).join();
+        for (var completion : completions) {
+            join(completion);
+        }
+    }
+
+    // Transactions whose writes are applied to each shard, in block order, with only the writes for that shard.
+    private List<List<ShardTransaction>> partitionByShard(final List<Transaction> transactions) throws IOException {
+        var shardCount = shardedStore.getShardCount();
+        var shardTransactions = new ArrayList<List<ShardTransaction>>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shardTransactions.add(new ArrayList<>());
+        }
+
+        for (var transaction : transactions) {
+            var transactionId = transaction.getChannelHeader().getTxId();
+            var writes = TransactionProcessor.getWrites(transaction, filter);
+            if (writes.isEmpty()) {
+                System.out.println("Skipping read-only, system or filtered transaction " + transactionId);
+                continue;
+            }
+
+            System.out.println("Process transaction " + transactionId);
+            var shardWrites = shardedStore.partition(writes);
+            for (int i = 0; i < shardCount; i++) {
+                if (!shardWrites.get(i).isEmpty()) {
+                    shardTransactions.get(i).add(new ShardTransaction(transactionId, shardWrites.get(i)));
+                }
+            }
+        }
+
+        return shardTransactions;
+    }
+
+    private void storeShard(final Store shard, final List<ShardTransaction> shardWork) {
+        try {
+            for (var transaction : shardWork) {
+                shard.store(block.getNumber(), transaction.transactionId, transaction.writes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Wait for the oldest transaction in progress to be stored, then checkpoint it.
+    private void completeNext(final Queue<PendingTransaction> inProgress) throws IOException {
+        var pending = inProgress.remove();
+        join(pending.completion);
+        checkpointTransaction(pending.transaction);
+    }
 
+    private static void join(final CompletableFuture<Void> completion) throws IOException {
+        try {
+            completion.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void checkpointTransaction(final Transaction transaction) throws IOException {
+        var transactionId = transaction.getChannelHeader().getTxId();
+        if (checkpointer instanceof IndexedCheckpointer) {
+            ((IndexedCheckpointer) checkpointer).checkpointTransaction(block.getNumber(), transactionId, transaction.getIndex());
+        } else {
+            checkpointer.checkpointTransaction(block.getNumber(), transactionId);
+        }
+    }
+
+    private List<Transaction> getNewTransactions() throws InvalidProtocolBufferException {
         var lastTransactionId = checkpointer.getTransactionId();
         if (lastTransactionId.isEmpty()) {
             // No previously processed transactions within this block so all are new
-            return transactions;
+            return block.getTransactions();
+        }
+
+        var indexedTransactions = getTransactionsAfterIndexedCheckpoint(lastTransactionId.get());
+        if (indexedTransactions.isPresent()) {
+            return indexedTransactions.get();
         }
 
-        var transactionIds = new ArrayList<>();
+        // Ignore transactions up to the last processed transaction ID
+        var transactions = block.getTransactions();
+        for (int i = 0; i < transactions.size(); i++) {
+            if (transactions.get(i).getChannelHeader().getTxId().equals(lastTransactionId.get())) {
+                return transactions.subList(i + 1, transactions.size());
+            }
+        }
+
+        var transactionIds = new ArrayList<String>();
         for (var transaction : transactions) {
             transactionIds.add(transaction.getChannelHeader().getTxId());
         }
+        throw new IllegalArgumentException("Checkpoint transaction ID " + lastTransactionId + " not found in block "
+                + Long.toUnsignedString(block.getNumber()) + " containing transactions: " + transactionIds);
+    }
 
-        // Ignore transactions up to the last processed transaction ID
-        var lastProcessedIndex = transactionIds.indexOf(lastTransactionId.get());
-        if (lastProcessedIndex < 0) {
-            throw new IllegalArgumentException("Checkpoint transaction ID " + lastTransactionId + " not found in block "
-                    + Long.toUnsignedString(block.getNumber()) + " containing transactions: " + transactionIds);
+    // Use the checkpointed position of the last processed transaction to skip earlier transactions without decoding
+    // them. The transaction ID at that position is checked in case the position is out of date.
+    private Optional<List<Transaction>> getTransactionsAfterIndexedCheckpoint(final String lastTransactionId)
+            throws InvalidProtocolBufferException {
+        if (!(checkpointer instanceof IndexedCheckpointer)) {
+            return Optional.empty();
+        }
+
+        var lastTransactionIndex = ((IndexedCheckpointer) checkpointer).getTransactionIndex();
+        if (lastTransactionIndex.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var transactions = block.getTransactionsFrom(lastTransactionIndex.getAsInt());
+        if (transactions.isEmpty() || !transactions.get(0).getChannelHeader().getTxId().equals(lastTransactionId)) {
+            return Optional.empty();
         }
 
-        return transactions.subList(lastProcessedIndex + 1, transactions.size());
+        return Optional.of(transactions.subList(1, transactions.size()));
+    }
+
+    private static final class PendingTransaction {
+        private final Transaction transaction;
+        private final CompletableFuture<Void> completion;
+
+        PendingTransaction(final Transaction transaction, final CompletableFuture<Void> completion) {
+            this.transaction = transaction;
+            this.completion = completion;
+        }
+    }
+
+    private static final class ShardTransaction {
+        private final String transactionId;
+        private final List<Write> writes;
+
+        ShardTransaction(final String transactionId, final List<Write> writes) {
+            this.transactionId = transactionId;
+            this.writes = writes;
+        }
     }
 }
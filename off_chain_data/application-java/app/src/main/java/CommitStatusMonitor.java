@@ -0,0 +1,202 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Network;
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.protos.common.BlockchainInfo;
+import org.hyperledger.fabric.protos.peer.FilteredBlock;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Waits for the commit status of many submitted transactions using a single filtered block event stream, instead of
+ * a blocking commit status request for each transaction. Transactions must be registered before they are submitted to
+ * the orderer. Block events are received from the ledger height at the time the monitor was started, so no commit can
+ * be missed. A transaction that is not committed within a timeout completes exceptionally with a
+ * {@link TimeoutException}, so that a transaction lost before reaching the orderer does not wait forever. The time from
+ * registration to commit is recorded for each transaction function, if metrics are supplied.
+ */
+public final class CommitStatusMonitor implements AutoCloseable {
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final CloseableIterator<FilteredBlock> blocks;
+    private final GatewayMetrics metrics;
+    private final Duration timeout;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Thread thread;
+    private volatile RuntimeException failure;
+
+    /**
+     * Start monitoring commits on a channel.
+     * @param network Network for the channel.
+     * @param timeout Time after registration at which transactions that have not committed complete exceptionally.
+     * @param metrics Metrics to which commit latency is recorded, or null.
+     * @return A running commit status monitor.
+     * @throws GatewayException if the current ledger height cannot be obtained.
+     * @throws InvalidProtocolBufferException if the ledger height response is not valid.
+     */
+    public static CommitStatusMonitor start(final Network network, final Duration timeout, final GatewayMetrics metrics)
+            throws GatewayException, InvalidProtocolBufferException {
+        var chainInfo = network.getContract("qscc").evaluateTransaction("GetChainInfo", network.getName());
+        var height = BlockchainInfo.parseFrom(chainInfo).getHeight();
+
+        var blocks = network.newFilteredBlockEventsRequest()
+                .startBlock(height)
+                .build()
+                .getEvents();
+        return new CommitStatusMonitor(blocks, network.getName(), timeout, metrics);
+    }
+
+    CommitStatusMonitor(final CloseableIterator<FilteredBlock> blocks, final String channelName, final Duration timeout,
+                        final GatewayMetrics metrics) {
+        this.blocks = blocks;
+        this.timeout = timeout;
+        this.metrics = metrics;
+
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            var timerThread = new Thread(runnable, "commit-timeout-" + channelName);
+            timerThread.setDaemon(true);
+            return timerThread;
+        });
+        timer.setRemoveOnCancelPolicy(true); // Most transactions commit before their timeout
+        thread = new Thread(this::receiveBlocks, "commit-status-" + channelName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Register a transaction whose commit status is required. Must be called before the transaction is submitted.
+     * @param transactionId Transaction ID.
+     * @param transactionName Transaction function name, used to label commit latency.
+     * @return Commit status, available once the transaction is committed.
+     */
+    public CompletableFuture<Status> register(final String transactionId, final String transactionName) {
+        var entry = new Pending(transactionName);
+        pending.put(transactionId, entry);
+
+        var expiry = timer.schedule(() -> expire(transactionId, entry), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        entry.result.whenComplete((status, e) -> expiry.cancel(false));
+
+        // The event stream may have failed before the transaction was registered.
+        var cause = failure;
+        if (cause != null && pending.remove(transactionId, entry)) {
+            entry.result.completeExceptionally(cause);
+        }
+
+        return entry.result;
+    }
+
+    /**
+     * Stop waiting for a registered transaction, typically because it could not be submitted.
+     * @param transactionId Transaction ID.
+     */
+    public void unregister(final String transactionId) {
+        pending.remove(transactionId);
+    }
+
+    /**
+     * Stop receiving block events. Transactions still waiting for commit status complete exceptionally.
+     */
+    @Override
+    public void close() {
+        blocks.close();
+        thread.interrupt();
+        timer.shutdownNow();
+        failAll(new IllegalStateException("Commit status monitor closed"));
+    }
+
+    private void receiveBlocks() {
+        try {
+            blocks.forEachRemaining(this::onBlock);
+            failAll(new IllegalStateException("Block event stream ended"));
+        } catch (RuntimeException e) {
+            failAll(e);
+        }
+    }
+
+    private void onBlock(final FilteredBlock block) {
+        for (var transaction : block.getFilteredTransactionsList()) {
+            var entry = pending.remove(transaction.getTxid());
+            if (entry == null) {
+                continue;
+            }
+
+            var status = new CommitStatus(transaction.getTxid(), block.getNumber(), transaction.getTxValidationCode());
+            if (metrics != null) {
+                var micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - entry.startNanos);
+                metrics.recordCommit(entry.transactionName, micros, status.isSuccessful());
+            }
+            entry.result.complete(status);
+        }
+    }
+
+    private void expire(final String transactionId, final Pending entry) {
+        if (pending.remove(transactionId, entry)) {
+            entry.result.completeExceptionally(new TimeoutException("Transaction " + transactionId + " not committed within " + timeout));
+        }
+    }
+
+    private void failAll(final RuntimeException cause) {
+        failure = cause;
+        pending.keySet().forEach(transactionId -> {
+            var entry = pending.remove(transactionId);
+            if (entry != null) {
+                entry.result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private static final class Pending {
+        private final CompletableFuture<Status> result = new CompletableFuture<>();
+        private final String transactionName;
+        private final long startNanos = System.nanoTime();
+
+        Pending(final String transactionName) {
+            this.transactionName = transactionName;
+        }
+    }
+
+    private static final class CommitStatus implements Status {
+        private final String transactionId;
+        private final long blockNumber;
+        private final TxValidationCode code;
+
+        CommitStatus(final String transactionId, final long blockNumber, final TxValidationCode code) {
+            this.transactionId = transactionId;
+            this.blockNumber = blockNumber;
+            this.code = code;
+        }
+
+        @Override
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        @Override
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        @Override
+        public TxValidationCode getCode() {
+            return code;
+        }
+
+        @Override
+        public boolean isSuccessful() {
+            return code == TxValidationCode.VALID;
+        }
+    }
+}
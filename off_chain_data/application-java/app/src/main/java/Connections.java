@@ -68,7 +68,7 @@ public final class Connections {
     private static final long EVALUATE_TIMEOUT_SECONDS = 5;
     private static final long ENDORSE_TIMEOUT_SECONDS = 15;
     private static final long SUBMIT_TIMEOUT_SECONDS = 5;
-    private static final long COMMIT_STATUS_TIMEOUT_SECONDS = 60;
+    public static final long COMMIT_STATUS_TIMEOUT_SECONDS = 60;
 
     private Connections() {
         // Private constructor to prevent instantiation
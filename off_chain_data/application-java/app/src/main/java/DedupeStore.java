@@ -0,0 +1,142 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Off-chain store that passes ledger updates to another store at most once for each transaction, so that downstream
+ * sinks do not see duplicate writes when blocks are received again. This happens when listening resumes from a
+ * checkpoint that lags behind the store, or when blocks are deliberately replayed from an earlier position.
+ *
+ * <p>The most recently stored transactions, identified by block number and transaction ID, are held in a bounded
+ * window. Each transaction is recorded in a window file immediately after its writes are accepted by the underlying
+ * store, and the file is reloaded on restart. The file is rewritten to contain only the current window when it grows
+ * to twice the window size, so both memory use and file size are bounded.
+ */
+public final class DedupeStore implements Store {
+    private final Store store;
+    private final Path file;
+    private final int windowSize;
+    private final boolean fsync;
+    private final Queue<String> window = new ArrayDeque<>();
+    private final Set<String> windowKeys = new HashSet<>();
+    private FileChannel channel;
+    private int fileEntryCount;
+
+    /**
+     * Create a deduplicating store, loading any existing window from the file.
+     * @param store Store to which ledger updates are passed.
+     * @param file File in which the window of recently stored transactions is persisted.
+     * @param windowSize Number of recently stored transactions remembered.
+     * @param fsync Whether to force each window update to the storage device.
+     * @throws IOException if the window file cannot be read or opened.
+     */
+    public DedupeStore(final Store store, final Path file, final int windowSize, final boolean fsync) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+
+        this.store = store;
+        this.file = file;
+        this.windowSize = windowSize;
+        this.fsync = fsync;
+
+        if (Files.exists(file)) {
+            var content = Files.readString(file, StandardCharsets.UTF_8);
+            // Any text after the last line break is a partial entry left by a failed append, so is ignored.
+            content.substring(0, content.lastIndexOf('\n') + 1).lines()
+                    .filter(line -> !line.isEmpty())
+                    .forEach(this::remember);
+        }
+
+        // Start with a compact file, so that new entries are never appended after a partial line left by a failed append.
+        rewrite();
+    }
+
+    @Override
+    public void store(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
+        var key = Long.toUnsignedString(blockNumber) + ' ' + transactionId;
+        if (windowKeys.contains(key)) {
+            System.out.println("Skipping duplicate transaction " + transactionId);
+            return;
+        }
+
+        store.store(blockNumber, transactionId, writes);
+        remember(key);
+        append(key);
+    }
+
+    /**
+     * Number of recently stored transactions currently remembered.
+     * @return Window size.
+     */
+    public int size() {
+        return window.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (store) {
+            channel.close();
+        }
+    }
+
+    private void remember(final String key) {
+        if (!windowKeys.add(key)) {
+            return;
+        }
+
+        window.add(key);
+        if (window.size() > windowSize) {
+            windowKeys.remove(window.remove());
+        }
+    }
+
+    private void append(final String key) throws IOException {
+        var data = ByteBuffer.wrap((key + '\n').getBytes(StandardCharsets.UTF_8));
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+
+        if (++fileEntryCount >= 2 * windowSize) {
+            rewrite();
+        }
+    }
+
+    // Replace the window file with one containing only the current window, then continue appending to the new file.
+    private void rewrite() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+
+        var tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tempFile, window, StandardCharsets.UTF_8);
+        if (fsync) {
+            try (var tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                tempChannel.force(false);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileEntryCount = window.size();
+    }
+}
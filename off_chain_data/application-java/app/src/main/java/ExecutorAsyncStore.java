@@ -0,0 +1,120 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous store that applies ledger updates to a thread-safe synchronous store using a pool of threads, so that
+ * the writes for several transactions are in progress at once. Writes to the same key are applied in the order they
+ * were requested. A transaction is only applied after any earlier transactions still in progress that write any of
+ * the same keys have completed, and fails without being applied if any of them fail.
+ *
+ * <p>This only improves throughput if the underlying store can apply several transactions at the same time, such as a
+ * client for a remote database. A store that serializes its writes internally, such as {@link StoreLog}, gains nothing.
+ */
+public final class ExecutorAsyncStore implements AsyncStore {
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final Store store;
+    private final int concurrency;
+    private final ExecutorService executor;
+    // Most recently requested transaction that writes each key, until it completes.
+    private final Map<String, CompletableFuture<Void>> lastWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Create an asynchronous store.
+     * @param store A thread-safe synchronous store.
+     * @param concurrency Number of transactions whose writes may be in progress at once.
+     * @param name Name used for the store threads.
+     */
+    public ExecutorAsyncStore(final Store store, final int concurrency, final String name) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Store concurrency must be positive: " + concurrency);
+        }
+
+        this.store = store;
+        this.concurrency = concurrency;
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            var thread = new Thread(runnable, "store-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletionStage<Void> store(final long blockNumber, final String transactionId, final List<Write> writes) {
+        var keys = writes.stream()
+                .map(write -> write.getChannelName() + '\0' + write.getNamespace() + '\0' + write.getKey())
+                .distinct()
+                .collect(Collectors.toList());
+
+        var result = new CompletableFuture<Void>();
+        var predecessors = new ArrayList<CompletableFuture<Void>>();
+        for (var key : keys) {
+            lastWrites.compute(key, (k, previous) -> {
+                if (previous != null) {
+                    predecessors.add(previous);
+                }
+                return result;
+            });
+        }
+
+        CompletableFuture.allOf(predecessors.toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> apply(blockNumber, transactionId, writes), executor)
+                .whenComplete((ignored, e) -> {
+                    keys.forEach(key -> lastWrites.remove(key, result));
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(null);
+                    }
+                });
+
+        return result;
+    }
+
+    @Override
+    public int getCapacity() {
+        return concurrency;
+    }
+
+    /**
+     * Wait for writes in progress to complete, then close the underlying store.
+     * @throws IOException if writes in progress do not complete, or the underlying store cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try (store) {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Store writes still in progress after " + CLOSE_TIMEOUT_SECONDS + " seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for store writes to complete");
+        }
+    }
+
+    private void apply(final long blockNumber, final String transactionId, final List<Write> writes) {
+        try {
+            store.store(blockNumber, transactionId, writes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import io.grpc.Channel;
+import org.hyperledger.fabric.client.GatewayException;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.cert.CertificateException;
+
+/**
+ * Export the current assets from the smart contract to a snapshot file, which the listen command can use to bootstrap
+ * a new off-chain store.
+ */
+public final class ExportSnapshot implements Command {
+    @Override
+    public void run(final Channel grpcChannel) throws CertificateException, IOException, InvalidKeyException, GatewayException {
+        try (var gateway = Connections.newGatewayBuilder(grpcChannel).connect()) {
+            var network = gateway.getNetwork(Connections.CHANNEL_NAME);
+            Listen.newSnapshot(network).export(Listen.getSnapshotFile(Connections.CHANNEL_NAME));
+        }
+    }
+}
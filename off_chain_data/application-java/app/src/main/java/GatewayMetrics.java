@@ -0,0 +1,272 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.sun.net.httpserver.HttpServer;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Records the latency of Gateway service calls made by the client API, for each phase of the transaction flow
+ * (evaluate, endorse, submit and commit status) and each transaction function. Calls are intercepted on the gRPC
+ * connection, so the timing of each phase is measured independently, even when a single client API method performs
+ * several phases. The transaction function is identified by call options attached using {@link #forFunction(String)}.
+ * Transactions submitted asynchronously make no commit status call, so their commit latency is recorded separately using
+ * {@link #recordCommit(String, long, boolean)}.
+ *
+ * <p>Periodic reports of throughput and latency percentiles can be printed to the console, and metrics can be exported
+ * in the Prometheus text format to a file or a local HTTP endpoint.
+ */
+public final class GatewayMetrics implements ClientInterceptor, AutoCloseable {
+    private static final String GATEWAY_SERVICE = "gateway.Gateway";
+    private static final String COMMIT_PHASE = "commit";
+    private static final Map<String, String> PHASES = Map.of(
+            "Evaluate", "evaluate",
+            "Endorse", "endorse",
+            "Submit", "submit",
+            "CommitStatus", COMMIT_PHASE
+    );
+    // Order in which phases are reported, following the transaction flow.
+    private static final List<String> PHASE_ORDER = List.of("evaluate", "endorse", "submit", COMMIT_PHASE);
+    private static final CallOptions.Key<String> FUNCTION_KEY = CallOptions.Key.createWithDefault("transactionFunction", "unknown");
+    private static final double[] REPORT_PERCENTILES = {50, 90, 99};
+    private static final double MICROS_PER_MILLI = 1_000.0;
+    private static final double MICROS_PER_SECOND = 1_000_000.0;
+
+    private final Map<Key, Series> series = new ConcurrentSkipListMap<>();
+    private final Map<Key, Long> lastReportedCounts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reporter;
+    private final Path exportFile;
+    private final HttpServer httpServer;
+    private long lastReportNanos = System.nanoTime();
+
+    /**
+     * Create metrics with the specified reporting.
+     * @param reportIntervalSeconds Interval between console reports and file exports, or zero for no periodic reports.
+     * @param exportFile File to which metrics are written in Prometheus text format, or null.
+     * @param httpPort Port on which metrics are served in Prometheus text format, or zero for no HTTP endpoint.
+     * @throws IOException if the HTTP endpoint cannot be started.
+     */
+    public GatewayMetrics(final long reportIntervalSeconds, final Path exportFile, final int httpPort) throws IOException {
+        this.exportFile = exportFile;
+
+        if (httpPort > 0) {
+            httpServer = HttpServer.create(new InetSocketAddress(httpPort), 0);
+            httpServer.createContext("/metrics", exchange -> {
+                var body = toPrometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length); // checkstyle:ignore-line:MagicNumber
+                try (var out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            httpServer.start();
+            System.out.println("Serving gateway metrics on port " + httpPort);
+        } else {
+            httpServer = null;
+        }
+
+        if (reportIntervalSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "gateway-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(this::report, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Call options that identify the transaction function for calls made with them. Pass to client API methods that
+     * accept a {@code UnaryOperator<CallOptions>}.
+     * @param transactionName Transaction function name.
+     * @return Call options operator.
+     */
+    public static UnaryOperator<CallOptions> forFunction(final String transactionName) {
+        return options -> options.withOption(FUNCTION_KEY, transactionName);
+    }
+
+    /**
+     * Record the latency from submit to commit of a transaction whose commit status was not obtained by a commit status
+     * call.
+     * @param transactionName Transaction function name.
+     * @param micros Latency in microseconds.
+     * @param isSuccessful Whether the transaction committed successfully.
+     */
+    public void recordCommit(final String transactionName, final long micros, final boolean isSuccessful) {
+        series.computeIfAbsent(new Key(COMMIT_PHASE, transactionName), key -> new Series()).record(micros, isSuccessful);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method, final CallOptions callOptions,
+                                                               final Channel next) {
+        var call = next.newCall(method, callOptions);
+        var phase = GATEWAY_SERVICE.equals(method.getServiceName()) ? PHASES.get(method.getBareMethodName()) : null;
+        if (phase == null) {
+            return call;
+        }
+
+        var timedSeries = series.computeIfAbsent(new Key(phase, callOptions.getOption(FUNCTION_KEY)), key -> new Series());
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            public void start(final Listener<RespT> responseListener, final Metadata headers) {
+                var startNanos = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(final Status status, final Metadata trailers) {
+                        timedSeries.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), status.isOk());
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    /**
+     * Stop periodic reporting, and print and export the final metrics.
+     */
+    @Override
+    public void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        if (!series.isEmpty()) {
+            report();
+        }
+    }
+
+    private synchronized void report() {
+        var now = System.nanoTime();
+        var intervalSeconds = Math.max(1, now - lastReportNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        lastReportNanos = now;
+
+        var out = new StringBuilder("Gateway call latency (ms):\n");
+        series.forEach((key, value) -> {
+            var count = value.latency.getCount();
+            var previousCount = lastReportedCounts.getOrDefault(key, 0L);
+            lastReportedCounts.put(key, count);
+
+            out.append(String.format("  %-8s %-16s count=%d (%.1f/s) errors=%d", key.phase, key.function,
+                    count, (count - previousCount) / intervalSeconds, value.errors.sum()));
+            for (var percentile : REPORT_PERCENTILES) {
+                out.append(String.format(" p%.0f=%.1f", percentile, value.latency.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+            }
+            out.append(String.format(" max=%.1f%n", value.latency.getMaxMicros() / MICROS_PER_MILLI));
+        });
+        System.out.print(out);
+
+        if (exportFile != null) {
+            try {
+                export(exportFile);
+            } catch (IOException e) {
+                // Keep reporting; the export may succeed next time.
+                System.err.println("Failed to export gateway metrics to " + exportFile + ": " + e);
+            }
+        }
+    }
+
+    // Write to a temporary file and then move it into place so that readers never see a partially written file.
+    private void export(final Path file) throws IOException {
+        var tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tempFile, toPrometheusText());
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String toPrometheusText() {
+        var out = new StringBuilder();
+        out.append("# HELP fabric_gateway_call_duration_seconds Latency of Gateway service calls.\n");
+        out.append("# TYPE fabric_gateway_call_duration_seconds summary\n");
+        series.forEach((key, value) -> {
+            var labels = "phase=\"" + key.phase + "\",function=\"" + key.function + "\"";
+            for (var percentile : REPORT_PERCENTILES) {
+                out.append("fabric_gateway_call_duration_seconds{").append(labels)
+                        .append(",quantile=\"").append(percentile / 100).append("\"} ") // checkstyle:ignore-line:MagicNumber
+                        .append(value.latency.getValueAtPercentile(percentile) / MICROS_PER_SECOND).append('\n');
+            }
+            out.append("fabric_gateway_call_duration_seconds_sum{").append(labels).append("} ")
+                    .append(value.latency.getTotalMicros() / MICROS_PER_SECOND).append('\n');
+            out.append("fabric_gateway_call_duration_seconds_count{").append(labels).append("} ")
+                    .append(value.latency.getCount()).append('\n');
+        });
+
+        out.append("# HELP fabric_gateway_call_errors_total Gateway service calls that failed.\n");
+        out.append("# TYPE fabric_gateway_call_errors_total counter\n");
+        series.forEach((key, value) -> out.append("fabric_gateway_call_errors_total{phase=\"").append(key.phase)
+                .append("\",function=\"").append(key.function).append("\"} ").append(value.errors.sum()).append('\n'));
+
+        return out.toString();
+    }
+
+    private static final class Series {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        void record(final long micros, final boolean isSuccessful) {
+            latency.record(micros);
+            if (!isSuccessful) {
+                errors.increment();
+            }
+        }
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final String phase;
+        private final String function;
+
+        Key(final String phase, final String function) {
+            this.phase = phase;
+            this.function = function;
+        }
+
+        @Override
+        public int compareTo(final Key other) {
+            var result = Integer.compare(PHASE_ORDER.indexOf(phase), PHASE_ORDER.indexOf(other.phase));
+            return result != 0 ? result : function.compareTo(other.function);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            var that = (Key) other;
+            return phase.equals(that.phase) && function.equals(that.function);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(phase, function);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.protobuf.ByteString;
+import io.grpc.Channel;
+
+import java.io.IOException;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Retrieve the current details of all assets from the materialized view maintained by the listen command, without
+ * querying the smart contract. Assets stored in either JSON or binary form are decoded.
+ */
+public final class GetLocalAssets implements Command {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    @Override
+    public void run(final Channel grpcChannel) throws IOException {
+        // Each key is held by only one shard, so the shard contents are merged in key order.
+        var values = new TreeMap<String, ByteString>();
+        for (var directory : Listen.getViewDirectories(Connections.CHANNEL_NAME)) {
+            try (var view = MaterializedViewStore.openReadOnly(directory)) {
+                values.putAll(view.getRange(Connections.CHANNEL_NAME, Connections.CHAINCODE_NAME, "", ""));
+            }
+        }
+
+        // Composite keys, such as the smart contract's owner and color index entries, begin with a null character.
+        var assets = values.entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("\u0000"))
+                .map(entry -> AssetValue.decode(entry.getValue()))
+                .collect(Collectors.toList());
+
+        var assetsJson = GSON.toJson(assets);
+        System.out.println(assetsJson);
+    }
+}
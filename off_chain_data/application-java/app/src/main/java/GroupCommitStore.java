@@ -0,0 +1,173 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.hyperledger.fabric.client.ChaincodeEvent;
+import org.hyperledger.fabric.client.Checkpointer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Off-chain store that appends ledger updates to a {@link StoreLog}. Writes are buffered in memory and appended to the
+ * log in one operation after a configured number of blocks have been processed. Writes for completed blocks can also be
+ * flushed at a fixed interval, so that they are not held indefinitely when few blocks are received.
+ *
+ * <p>This store also acts as the checkpointer used during block processing. Block checkpoints are passed to the
+ * underlying checkpointer only after the buffered writes have been flushed, so the persisted checkpoint never moves
+ * ahead of the data in the store. If processing fails, writes buffered since the last flush are discarded and are
+ * received again when listening resumes from the persisted checkpoint.
+ */
+public final class GroupCommitStore implements Store, Checkpointer, AutoCloseable {
+    private final StoreLog log;
+    private final Checkpointer checkpointer;
+    private final int commitBlockCount;
+    private final boolean fsync;
+    private final WriteEncoder encoder = new WriteEncoder();
+    private final ScheduledExecutorService committer;
+
+    private int completedLength = 0; // Buffered bytes belonging to completed blocks
+    private int completedBlockCount = 0;
+    private long lastCompletedBlock;
+    private OptionalLong blockNumber;
+    private Optional<String> transactionId;
+    private IOException commitFailure;
+
+    /**
+     * Create a group commit store.
+     * @param log Log to which ledger updates are appended. The log is closed when this store is closed.
+     * @param checkpointer Checkpointer that persists the listening position.
+     * @param commitBlockCount Number of completed blocks buffered before writes are flushed to the file.
+     * @param fsync Whether to force flushed writes to the storage device before checkpointing.
+     * @param commitIntervalSeconds Interval at which writes for completed blocks are flushed, or zero to flush only
+     *                              after commitBlockCount blocks.
+     */
+    public GroupCommitStore(final StoreLog log, final Checkpointer checkpointer, final int commitBlockCount, final boolean fsync,
+                            final long commitIntervalSeconds) {
+        this.log = log;
+        this.checkpointer = checkpointer;
+        this.commitBlockCount = commitBlockCount;
+        this.fsync = fsync;
+        this.blockNumber = checkpointer.getBlockNumber();
+        this.transactionId = checkpointer.getTransactionId();
+
+        if (commitIntervalSeconds > 0) {
+            committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "group-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            committer.scheduleWithFixedDelay(this::commitInBackground, commitIntervalSeconds, commitIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            committer = null;
+        }
+    }
+
+    @Override
+    public synchronized void store(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
+        throwCommitFailure();
+        encoder.encode(writes);
+    }
+
+    @Override
+    public synchronized void checkpointBlock(final long blockNumber) throws IOException {
+        throwCommitFailure();
+        completedLength = encoder.size();
+        completedBlockCount++;
+        lastCompletedBlock = blockNumber;
+
+        this.blockNumber = OptionalLong.of(blockNumber + 1);
+        this.transactionId = Optional.empty();
+
+        if (completedBlockCount >= commitBlockCount) {
+            commit();
+        }
+    }
+
+    @Override
+    public synchronized void checkpointTransaction(final long blockNumber, final String transactionId) {
+        // Transaction checkpoints are held in memory only. The persisted checkpoint advances by whole blocks on commit.
+        this.blockNumber = OptionalLong.of(blockNumber);
+        this.transactionId = Optional.of(transactionId);
+    }
+
+    @Override
+    public void checkpointChaincodeEvent(final ChaincodeEvent event) {
+        checkpointTransaction(event.getBlockNumber(), event.getTransactionId());
+    }
+
+    @Override
+    public synchronized OptionalLong getBlockNumber() {
+        return blockNumber;
+    }
+
+    @Override
+    public synchronized Optional<String> getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Flush writes for all completed blocks and close the store log. Writes for a partially processed block are
+     * discarded.
+     * @throws IOException if writes cannot be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (committer != null) {
+            committer.shutdown();
+            try {
+                committer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try (log) {
+            synchronized (this) {
+                throwCommitFailure();
+                commit();
+            }
+        }
+    }
+
+    private synchronized void commitInBackground() {
+        if (commitFailure != null) {
+            return;
+        }
+
+        try {
+            commit();
+        } catch (IOException e) {
+            // The state of the log is unknown, so processing stops when the failure is rethrown by the next update.
+            commitFailure = e;
+        }
+    }
+
+    private void throwCommitFailure() throws IOException {
+        if (commitFailure != null) {
+            throw new IOException("Failed to flush store writes in the background", commitFailure);
+        }
+    }
+
+    private void commit() throws IOException {
+        if (completedBlockCount == 0) {
+            return;
+        }
+
+        log.append(encoder.getEncoded(completedLength), fsync);
+
+        checkpointer.checkpointBlock(lastCompletedBlock);
+
+        // Retain any writes already buffered for the current block.
+        encoder.discard(completedLength);
+        completedLength = 0;
+        completedBlockCount = 0;
+    }
+}
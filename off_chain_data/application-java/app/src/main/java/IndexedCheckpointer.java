@@ -0,0 +1,31 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.hyperledger.fabric.client.Checkpointer;
+
+import java.io.IOException;
+import java.util.OptionalInt;
+
+/**
+ * Checkpointer that also records the position of the last processed transaction within its block, allowing processing
+ * to resume part way through a block without decoding the transactions already processed.
+ */
+public interface IndexedCheckpointer extends Checkpointer {
+    /**
+     * Checkpoint a transaction along with its position within the block.
+     * @param blockNumber Block number.
+     * @param transactionId Transaction ID.
+     * @param transactionIndex Position of the transaction envelope within the block.
+     * @throws IOException if the checkpoint cannot be persisted.
+     */
+    void checkpointTransaction(long blockNumber, String transactionId, int transactionIndex) throws IOException;
+
+    /**
+     * Position within the block of the transaction identified by {@link #getTransactionId()}.
+     * @return A transaction envelope index, or empty if not known.
+     */
+    OptionalInt getTransactionIndex();
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * File-based checkpointer that persists the position of the last processed transaction within its block, in addition
+ * to the block number and transaction ID. The checkpoint file format is compatible with
+ * {@link org.hyperledger.fabric.client.FileCheckpointer}.
+ */
+public final class IndexedFileCheckpointer implements IndexedCheckpointer, AutoCloseable {
+    private static final String BLOCK_NUMBER = "blockNumber";
+    private static final String TRANSACTION_ID = "transactionId";
+    private static final String TRANSACTION_INDEX = "transactionIndex";
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private OptionalLong blockNumber = OptionalLong.empty();
+    private Optional<String> transactionId = Optional.empty();
+    private OptionalInt transactionIndex = OptionalInt.empty();
+
+    /**
+     * Create a checkpointer, loading any existing checkpoint state from the file.
+     * @param path Checkpoint file.
+     * @throws IOException if the file cannot be opened and locked, or its content is not valid.
+     */
+    public IndexedFileCheckpointer(final Path path) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        lock = channel.tryLock();
+        if (lock == null) {
+            channel.close();
+            throw new IOException("File is already locked: " + path);
+        }
+
+        try {
+            load();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void checkpointBlock(final long blockNumber) throws IOException {
+        save(OptionalLong.of(blockNumber + 1), Optional.empty(), OptionalInt.empty());
+    }
+
+    @Override
+    public void checkpointTransaction(final long blockNumber, final String transactionId) throws IOException {
+        save(OptionalLong.of(blockNumber), Optional.of(transactionId), OptionalInt.empty());
+    }
+
+    @Override
+    public void checkpointTransaction(final long blockNumber, final String transactionId, final int transactionIndex) throws IOException {
+        save(OptionalLong.of(blockNumber), Optional.of(transactionId), OptionalInt.of(transactionIndex));
+    }
+
+    @Override
+    public void checkpointChaincodeEvent(final ChaincodeEvent event) throws IOException {
+        checkpointTransaction(event.getBlockNumber(), event.getTransactionId());
+    }
+
+    @Override
+    public OptionalLong getBlockNumber() {
+        return blockNumber;
+    }
+
+    @Override
+    public Optional<String> getTransactionId() {
+        return transactionId;
+    }
+
+    @Override
+    public OptionalInt getTransactionIndex() {
+        return transactionIndex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            lock.release();
+        }
+    }
+
+    private void load() throws IOException {
+        if (channel.size() == 0) {
+            return;
+        }
+
+        var buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        var json = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+
+        try {
+            var data = JsonParser.parseString(json).getAsJsonObject();
+            if (data.has(BLOCK_NUMBER)) {
+                blockNumber = OptionalLong.of(data.get(BLOCK_NUMBER).getAsLong());
+            }
+            if (data.has(TRANSACTION_ID)) {
+                transactionId = Optional.of(data.get(TRANSACTION_ID).getAsString());
+            }
+            if (data.has(TRANSACTION_INDEX)) {
+                transactionIndex = OptionalInt.of(data.get(TRANSACTION_INDEX).getAsInt());
+            }
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            throw new IOException("Failed to parse checkpoint data from file: " + path, e);
+        }
+
+        if (transactionIndex.isPresent() && transactionIndex.getAsInt() < 0) {
+            throw new IOException("Invalid transaction index " + transactionIndex.getAsInt() + " in checkpoint file: " + path);
+        }
+    }
+
+    private void save(final OptionalLong blockNumber, final Optional<String> transactionId, final OptionalInt transactionIndex)
+            throws IOException {
+        this.blockNumber = blockNumber;
+        this.transactionId = transactionId;
+        this.transactionIndex = transactionIndex;
+
+        var data = new JsonObject();
+        blockNumber.ifPresent(value -> data.addProperty(BLOCK_NUMBER, value));
+        transactionId.ifPresent(value -> data.addProperty(TRANSACTION_ID, value));
+        transactionIndex.ifPresent(value -> data.addProperty(TRANSACTION_INDEX, value));
+
+        var bytes = ByteBuffer.wrap(data.toString().getBytes(StandardCharsets.UTF_8));
+        var length = bytes.remaining();
+        long position = 0;
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+        channel.truncate(length);
+    }
+}
@@ -4,77 +4,460 @@
  * SPDX-License-Identifier: Apache-2.0
  */
 
-import com.google.gson.Gson;
 import io.grpc.Channel;
-import org.hyperledger.fabric.client.FileCheckpointer;
+import org.hyperledger.fabric.client.Checkpointer;
+import org.hyperledger.fabric.client.Gateway;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Network;
+import parser.Block;
 import parser.BlockParser;
 
 import java.io.IOException;
-import java.io.StringWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
 import java.security.InvalidKeyException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public final class Listen implements Command {
     private static final Path CHECKPOINT_FILE = Paths.get(Utils.getEnvOrDefault("CHECKPOINT_FILE", "checkpoint.json"));
     private static final Path STORE_FILE = Paths.get(Utils.getEnvOrDefault("STORE_FILE", "store.log"));
     private static final int SIMULATED_FAILURE_COUNT = Utils.getEnvOrDefault("SIMULATED_FAILURE_COUNT", Integer::parseUnsignedInt, 0);
+    // Comma-separated names of channels to listen to concurrently. Each channel has its own checkpoint and store.
+    private static final List<String> CHANNEL_NAMES = Arrays.stream(Utils.getEnvOrDefault("CHANNEL_NAMES", Connections.CHANNEL_NAME).split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    // Number of parsed blocks that can be queued ahead of the block being processed. Zero disables pipelining.
+    private static final int PIPELINE_DEPTH = Utils.getEnvOrDefault("PIPELINE_DEPTH", Integer::parseUnsignedInt, 0);
+    // Comma-separated chaincode namespaces and key prefixes to include in the store. Empty values include everything.
+    private static final WriteFilter WRITE_FILTER = WriteFilter.parse(
+            Utils.getEnvOrDefault("STORE_NAMESPACES", ""),
+            Utils.getEnvOrDefault("STORE_KEY_PREFIXES", ""));
+    // Number of threads used to decode transactions within a block. A value of one decodes on the listener thread.
+    private static final int DECODE_PARALLELISM = Utils.getEnvOrDefault("DECODE_PARALLELISM", Integer::parseUnsignedInt, 1);
+    // Whether to decode only the block content needed to store ledger updates, skipping endorsements and read sets.
+    private static final boolean LEAN_PARSER = Utils.getEnvOrDefault("LEAN_PARSER", Boolean::parseBoolean, false);
+    // Number of blocks buffered before store writes are flushed together. Zero appends the writes for each transaction.
+    private static final int STORE_COMMIT_BLOCKS = Utils.getEnvOrDefault("STORE_COMMIT_BLOCKS", Integer::parseUnsignedInt, 0);
+    private static final long STORE_COMMIT_SECONDS = Utils.getEnvOrDefault("STORE_COMMIT_SECONDS", Long::parseUnsignedLong, 5L);
+    // Interval in seconds at which the need to compact the store.log file is checked. Zero disables compaction.
+    private static final long STORE_COMPACT_SECONDS = Utils.getEnvOrDefault("STORE_COMPACT_SECONDS", Long::parseUnsignedLong, 0L);
+    // Maximum number of keys held in memory by each pass of store.log compaction.
+    private static final int STORE_COMPACT_KEYS = Utils.getEnvOrDefault("STORE_COMPACT_KEYS", Integer::parseUnsignedInt, 1_000_000);
+    private static final boolean STORE_FSYNC = Utils.getEnvOrDefault("STORE_FSYNC", Boolean::parseBoolean, false);
+    // Format of the off-chain store: "json" for the store.log file, "segmented" for a segmented binary log, or "view" for
+    // a materialized view of the current ledger state.
+    private static final String STORE_FORMAT = Utils.getEnvOrDefault("STORE_FORMAT", "json");
+    // Number of shards to which ledger updates are applied in parallel, with each key always stored in the same shard. Used
+    // with the "json" and "view" store formats. One applies all updates to a single store in transaction order.
+    private static final int STORE_SHARDS = Utils.getEnvOrDefault("STORE_SHARDS", Integer::parseUnsignedInt, 1);
+    private static final Path STORE_DIRECTORY = Paths.get(Utils.getEnvOrDefault("STORE_DIRECTORY", "store"));
+    private static final int STORE_SEGMENT_SIZE = Utils.getEnvOrDefault("STORE_SEGMENT_SIZE", Integer::parseUnsignedInt, 64 * 1024 * 1024);
+    // Number of recently stored transactions remembered so that blocks received again are not stored twice. Zero
+    // disables deduplication.
+    private static final int DEDUPE_WINDOW = Utils.getEnvOrDefault("DEDUPE_WINDOW", Integer::parseUnsignedInt, 0);
+    private static final Path DEDUPE_FILE = Paths.get(Utils.getEnvOrDefault("DEDUPE_FILE", "dedupe.log"));
+    // Source of the initial store content when there is no checkpoint: "contract" to query the current assets from the
+    // smart contract, or "file" to load the snapshot file. Empty replays the entire chain.
+    private static final String BOOTSTRAP = Utils.getEnvOrDefault("BOOTSTRAP", "");
+    private static final Path SNAPSHOT_FILE = Paths.get(Utils.getEnvOrDefault("SNAPSHOT_FILE", "snapshot.log"));
+    // Number of assets queried at once when taking a snapshot from the smart contract. Zero queries all assets at once.
+    private static final int SNAPSHOT_PAGE_SIZE = Utils.getEnvOrDefault("SNAPSHOT_PAGE_SIZE", Integer::parseUnsignedInt, 0);
 
     private static final long START_BLOCK = 0L;
-    private static final Gson GSON = new Gson();
 
-    private int transactionCount = 0; // Used only to simulate failures
+    private final ForkJoinPool decodePool = DECODE_PARALLELISM > 1 ? new ForkJoinPool(DECODE_PARALLELISM) : null;
 
     @Override
     public void run(final Channel grpcChannel)
-            throws CertificateException, IOException, InvalidKeyException {
-        try (var gateway = Connections.newGatewayBuilder(grpcChannel).connect();
-             var checkpointer = new FileCheckpointer(CHECKPOINT_FILE)) {
-            var network = gateway.getNetwork(Connections.CHANNEL_NAME);
-
-            System.out.println("Starting event listening from block " + Long.toUnsignedString(checkpointer.getBlockNumber().orElse(START_BLOCK)));
-            System.out.println(checkpointer.getTransactionId()
-                    .map(transactionId -> "Last processed transaction ID within block: " + transactionId)
-                    .orElse("No last processed transaction ID"));
+            throws CertificateException, IOException, InvalidKeyException, InterruptedException {
+        if (CHANNEL_NAMES.isEmpty()) {
+            throw new IllegalArgumentException("No channel names specified");
+        }
+
+        // A single gateway, and its gRPC connection, is shared by the listeners for all channels.
+        try (var gateway = Connections.newGatewayBuilder(grpcChannel).connect()) {
+            System.out.println("Storing writes for " + WRITE_FILTER);
             if (SIMULATED_FAILURE_COUNT > 0) {
                 System.out.println("Simulating a write failure every " + SIMULATED_FAILURE_COUNT + " transactions");
             }
 
-            try (var blocks = network.newBlockEventsRequest()
-                    .startBlock(START_BLOCK) // Used only if there is no checkpoint block number
-                    .checkpoint(checkpointer)
-                    .build()
-                    .getEvents()) {
-                blocks.forEachRemaining(blockProto -> {
-                    var block = BlockParser.parseBlock(blockProto);
-                    var processor = new BlockProcessor(block, checkpointer, this::applyWritesToOffChainStore);
-                    processor.process();
-                });
+            if (CHANNEL_NAMES.size() == 1) {
+                new ChannelListener(gateway, CHANNEL_NAMES.get(0)).run();
+            } else {
+                runConcurrently(gateway);
             }
         }
     }
 
-    private void applyWritesToOffChainStore(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
-        simulateFailureIfRequired();
+    /**
+     * Directory used by the segmented and view store formats for a given channel. When listening to multiple channels,
+     * each channel has its own subdirectory.
+     * @param channelName A channel name.
+     * @return A directory path.
+     */
+    static Path getStoreDirectory(final String channelName) {
+        return isPartitioned() ? STORE_DIRECTORY.resolve(channelName) : STORE_DIRECTORY;
+    }
+
+    /**
+     * Snapshot file used to bootstrap the store for a given channel.
+     * @param channelName A channel name.
+     * @return A file path.
+     */
+    static Path getSnapshotFile(final String channelName) {
+        return getChannelFile(SNAPSHOT_FILE, channelName);
+    }
+
+    /**
+     * Create a snapshot source for the smart contract on a network.
+     * @param network Network for a channel.
+     * @return A snapshot source.
+     */
+    static StoreSnapshot newSnapshot(final Network network) {
+        return new StoreSnapshot(network, Connections.CHAINCODE_NAME, SNAPSHOT_PAGE_SIZE);
+    }
+
+    private static boolean isPartitioned() {
+        return CHANNEL_NAMES.size() > 1;
+    }
+
+    /**
+     * Directories containing the materialized view for a given channel, one for each shard.
+     * @param channelName A channel name.
+     * @return Directory paths.
+     */
+    static List<Path> getViewDirectories(final String channelName) {
+        var directory = getStoreDirectory(channelName);
+        if (STORE_SHARDS <= 1) {
+            return List.of(directory);
+        }
+
+        return IntStream.range(0, STORE_SHARDS)
+                .mapToObj(shard -> getShardDirectory(directory, shard))
+                .collect(Collectors.toList());
+    }
+
+    // Per-channel file name, with the channel name inserted before any file extension.
+    private static Path getChannelFile(final Path file, final String channelName) {
+        return isPartitioned() ? insertBeforeExtension(file, channelName) : file;
+    }
+
+    private static Path getShardFile(final Path file, final int shard) {
+        return insertBeforeExtension(file, "shard" + shard);
+    }
+
+    private static Path getShardDirectory(final Path directory, final int shard) {
+        return directory.resolve("shard" + shard);
+    }
+
+    private static Path insertBeforeExtension(final Path file, final String suffix) {
+        var name = file.getFileName().toString();
+        var extensionIndex = name.lastIndexOf('.');
+        var newName = extensionIndex > 0
+                ? name.substring(0, extensionIndex) + '-' + suffix + name.substring(extensionIndex)
+                : name + '-' + suffix;
+        return file.resolveSibling(newName);
+    }
+
+    private void runConcurrently(final Gateway gateway) throws IOException, InterruptedException {
+        System.out.println("Listening to channels " + CHANNEL_NAMES);
 
-        try (var writer = new StringWriter()) {
-            for (var write : writes) {
-                GSON.toJson(write, writer);
-                writer.append('\n');
+        var executor = Executors.newFixedThreadPool(CHANNEL_NAMES.size(), runnable -> {
+            var thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            var completion = new ExecutorCompletionService<Void>(executor);
+            for (var channelName : CHANNEL_NAMES) {
+                completion.submit(() -> {
+                    Thread.currentThread().setName("listen-" + channelName);
+                    new ChannelListener(gateway, channelName).run();
+                    return null;
+                });
+            }
+
+            // A failure on any channel stops all listeners. Each resumes from its own checkpoint on restart.
+            for (int i = 0; i < CHANNEL_NAMES.size(); i++) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                }
             }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static IOException unwrap(final ExecutionException e) {
+        var cause = e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
 
-            Files.writeString(STORE_FILE, writer.toString(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    private Block parseBlock(final org.hyperledger.fabric.protos.common.Block blockProto) {
+        if (LEAN_PARSER) {
+            return BlockParser.parseBlockLean(blockProto, decodePool, WRITE_FILTER::includesNamespace);
         }
+        return decodePool != null ? BlockParser.parseBlock(blockProto, decodePool, WRITE_FILTER::includesNamespace) : BlockParser.parseBlock(blockProto);
     }
 
-    private void simulateFailureIfRequired() {
-        if (SIMULATED_FAILURE_COUNT > 0 && transactionCount++ >= SIMULATED_FAILURE_COUNT) {
-            transactionCount = 0;
-            throw new ExpectedException("Simulated write failure");
+    /**
+     * Listens to block events for one channel, with its own checkpoint and store.
+     */
+    private final class ChannelListener {
+        private final Gateway gateway;
+        private final String channelName;
+        private final Path checkpointFile;
+        private final Path storeFile;
+        private final Path storeDirectory;
+        private final Path dedupeFile;
+        private final ExecutorService shardExecutor;
+        private final AtomicInteger transactionCount = new AtomicInteger(); // Used only to simulate failures
+
+        ChannelListener(final Gateway gateway, final String channelName) {
+            this.gateway = gateway;
+            this.channelName = channelName;
+            checkpointFile = getChannelFile(CHECKPOINT_FILE, channelName);
+            storeFile = getChannelFile(STORE_FILE, channelName);
+            storeDirectory = getStoreDirectory(channelName);
+            dedupeFile = getChannelFile(DEDUPE_FILE, channelName);
+            shardExecutor = STORE_SHARDS > 1 ? Executors.newFixedThreadPool(STORE_SHARDS, runnable -> {
+                var thread = new Thread(runnable, "apply-" + channelName);
+                thread.setDaemon(true);
+                return thread;
+            }) : null;
+        }
+
+        void run() throws IOException, InterruptedException {
+            try {
+                listen();
+            } finally {
+                if (shardExecutor != null) {
+                    shardExecutor.shutdownNow();
+                }
+            }
+        }
+
+        private void listen() throws IOException, InterruptedException {
+            try (var fileCheckpointer = new IndexedFileCheckpointer(checkpointFile);
+                 var store = newStore(fileCheckpointer)) {
+                // Stores that buffer writes also control when the checkpoint is persisted.
+                var checkpointer = store instanceof Checkpointer ? (Checkpointer) store : fileCheckpointer;
+
+                var network = gateway.getNetwork(channelName);
+
+                System.out.println(channelName + ": Starting event listening from block "
+                        + Long.toUnsignedString(checkpointer.getBlockNumber().orElse(START_BLOCK)));
+                System.out.println(channelName + ": " + checkpointer.getTransactionId()
+                        .map(transactionId -> "Last processed transaction ID within block: " + transactionId)
+                        .orElse("No last processed transaction ID"));
+
+                try (var blocks = network.newBlockEventsRequest()
+                        .startBlock(START_BLOCK) // Used only if there is no checkpoint block number
+                        .checkpoint(checkpointer)
+                        .build()
+                        .getEvents()) {
+                    if (PIPELINE_DEPTH > 0) {
+                        System.out.println(channelName + ": Pipelining up to " + PIPELINE_DEPTH + " parsed blocks ahead of processing");
+                        new BlockPipeline(blocks, Listen.this::parseBlock, WRITE_FILTER::includesNamespace, PIPELINE_DEPTH,
+                                block -> processBlock(block, checkpointer, store)).run();
+                    } else {
+                        blocks.forEachRemaining(blockProto -> processBlock(parseBlock(blockProto), checkpointer, store));
+                    }
+                }
+            }
+        }
+
+        private Store newStore(final Checkpointer checkpointer) throws IOException {
+            var store = newFormatStore(checkpointer);
+            try {
+                bootstrapIfRequired(store, store instanceof Checkpointer ? (Checkpointer) store : checkpointer);
+            } catch (IOException | RuntimeException e) {
+                store.close();
+                throw e;
+            }
+
+            if (DEDUPE_WINDOW == 0) {
+                return store;
+            }
+
+            if (store instanceof ShardedStore) {
+                return newDedupeShards((ShardedStore) store);
+            }
+
+            if (store instanceof Checkpointer) {
+                // Buffered writes are not durable when accepted, and the checkpoint never moves ahead of them anyway.
+                System.out.println(channelName + ": Deduplication is not used with buffered store writes");
+                return store;
+            }
+
+            var dedupeStore = new DedupeStore(store, dedupeFile, DEDUPE_WINDOW, STORE_FSYNC);
+            System.out.println(channelName + ": Deduplicating the last " + DEDUPE_WINDOW + " stored transactions, "
+                    + dedupeStore.size() + " loaded from " + dedupeFile);
+            return dedupeStore;
+        }
+
+        // Each shard is deduplicated separately, since transactions are split between shards.
+        private ShardedStore newDedupeShards(final ShardedStore store) throws IOException {
+            var shards = new ArrayList<Store>(store.getShardCount());
+            try {
+                for (int i = 0; i < store.getShardCount(); i++) {
+                    shards.add(new DedupeStore(store.getShard(i), getShardFile(dedupeFile, i), DEDUPE_WINDOW, STORE_FSYNC));
+                }
+            } catch (IOException | RuntimeException e) {
+                store.close();
+                throw e;
+            }
+
+            System.out.println(channelName + ": Deduplicating the last " + DEDUPE_WINDOW + " stored transactions for each shard");
+            return new ShardedStore(shards);
+        }
+
+        // A new store is loaded from a snapshot, and listening continues from the snapshot's ledger height.
+        private void bootstrapIfRequired(final Store store, final Checkpointer checkpointer) throws IOException {
+            if (BOOTSTRAP.isEmpty() || checkpointer.getBlockNumber().isPresent()) {
+                return;
+            }
+
+            long blockHeight;
+            switch (BOOTSTRAP) {
+                case "contract":
+                    try {
+                        blockHeight = newSnapshot(gateway.getNetwork(channelName)).loadInto(store);
+                    } catch (GatewayException e) {
+                        throw new IOException("Failed to query snapshot from chaincode " + Connections.CHAINCODE_NAME, e);
+                    }
+                    break;
+                case "file":
+                    blockHeight = StoreSnapshot.loadFile(getSnapshotFile(channelName), store);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown bootstrap source: " + BOOTSTRAP);
+            }
+
+            if (blockHeight > 0) {
+                checkpointer.checkpointBlock(blockHeight - 1);
+            }
+        }
+
+        private Store newFormatStore(final Checkpointer checkpointer) throws IOException {
+            if (STORE_SHARDS > 1) {
+                return newShardedStore();
+            }
+
+            switch (STORE_FORMAT) {
+                case "json":
+                    if (STORE_COMPACT_SECONDS > 0) {
+                        System.out.println(channelName + ": Compacting " + storeFile + " in the background");
+                    }
+                    var storeLog = new StoreLog(storeFile, STORE_COMPACT_SECONDS, STORE_COMPACT_KEYS);
+                    if (STORE_COMMIT_BLOCKS > 0) {
+                        System.out.println(channelName + ": Flushing store writes every " + STORE_COMMIT_BLOCKS + " blocks"
+                                + (STORE_COMMIT_SECONDS > 0 ? " or " + STORE_COMMIT_SECONDS + " seconds" : "")
+                                + (STORE_FSYNC ? " with fsync" : ""));
+                        return new GroupCommitStore(storeLog, checkpointer, STORE_COMMIT_BLOCKS, STORE_FSYNC, STORE_COMMIT_SECONDS);
+                    }
+                    return storeLog;
+                case "segmented":
+                    System.out.println(channelName + ": Writing segmented store log to " + storeDirectory);
+                    return new SegmentedLogStore(storeDirectory, STORE_SEGMENT_SIZE);
+                case "view":
+                    System.out.println(channelName + ": Writing materialized view to " + storeDirectory);
+                    return MaterializedViewStore.open(storeDirectory);
+                default:
+                    throw new IllegalArgumentException("Unknown store format: " + STORE_FORMAT);
+            }
+        }
+
+        private ShardedStore newShardedStore() throws IOException {
+            if (STORE_COMMIT_BLOCKS > 0) {
+                throw new IllegalArgumentException("STORE_SHARDS cannot be used with STORE_COMMIT_BLOCKS");
+            }
+
+            System.out.println(channelName + ": Applying ledger updates to " + STORE_SHARDS + " shards in parallel");
+            var shards = new ArrayList<Store>(STORE_SHARDS);
+            try {
+                for (int i = 0; i < STORE_SHARDS; i++) {
+                    shards.add(newShard(i));
+                }
+            } catch (IOException | RuntimeException e) {
+                new ShardedStore(shards).close();
+                throw e;
+            }
+
+            return new ShardedStore(shards);
+        }
+
+        private Store newShard(final int shard) throws IOException {
+            switch (STORE_FORMAT) {
+                case "json":
+                    return new StoreLog(getShardFile(storeFile, shard), STORE_COMPACT_SECONDS, STORE_COMPACT_KEYS);
+                case "view":
+                    return MaterializedViewStore.open(getShardDirectory(storeDirectory, shard));
+                default:
+                    throw new IllegalArgumentException("Store format cannot be sharded: " + STORE_FORMAT);
+            }
+        }
+
+        private void processBlock(final Block block, final Checkpointer checkpointer, final Store store) {
+            if (store instanceof ShardedStore) {
+                var shardedStore = withFailureSimulation((ShardedStore) store);
+                new BlockProcessor(block, checkpointer, shardedStore, WRITE_FILTER, shardExecutor).process();
+                return;
+            }
+
+            var processor = new BlockProcessor(block, checkpointer, AsyncStore.of(withFailureSimulation(store)), WRITE_FILTER);
+            processor.process();
+        }
+
+        // Shards are updated in parallel, so each shard update counts towards the simulated failures.
+        private ShardedStore withFailureSimulation(final ShardedStore store) {
+            if (SIMULATED_FAILURE_COUNT == 0) {
+                return store;
+            }
+
+            var shards = new ArrayList<Store>(store.getShardCount());
+            for (int i = 0; i < store.getShardCount(); i++) {
+                shards.add(withFailureSimulation(store.getShard(i)));
+            }
+            return new ShardedStore(shards);
+        }
+
+        private Store withFailureSimulation(final Store store) {
+            return (blockNumber, transactionId, writes) -> {
+                simulateFailureIfRequired();
+                store.store(blockNumber, transactionId, writes);
+            };
+        }
+
+        private void simulateFailureIfRequired() {
+            if (SIMULATED_FAILURE_COUNT > 0 && transactionCount.getAndIncrement() >= SIMULATED_FAILURE_COUNT) {
+                transactionCount.set(0);
+                throw new ExpectedException("Simulated write failure");
+            }
         }
     }
 }
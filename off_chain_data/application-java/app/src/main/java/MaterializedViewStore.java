@@ -0,0 +1,365 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Off-chain store that materializes the current world state from ledger updates, as a sorted key/value table for each
+ * channel and chaincode namespace. Deletes remove keys from the table. Tables support point and range lookups, so
+ * queries such as retrieving all assets can be served locally instead of by the smart contract.
+ *
+ * <p>Tables are held entirely in memory. They are persisted as a snapshot file plus a write-ahead journal of the
+ * ledger updates applied since the snapshot was started. The journal uses the record format of
+ * {@link SegmentedLogFormat}. Once the journal grows beyond a size limit, it is set aside and a new snapshot is written
+ * by a background thread, while ledger updates continue to be appended to a new journal. The set-aside journal is
+ * deleted only after the new snapshot has been forced to the storage device. When a view is opened, the snapshot is
+ * loaded and any set-aside journal, followed by the current journal, is replayed over it.
+ *
+ * <p>The snapshot is read from the tables while they continue to be updated, so it may include some updates that are
+ * also in the current journal. Reapplying journal records over a snapshot that already includes them gives the same
+ * result, so this is safe, as is a failure part way through writing a snapshot.
+ */
+public final class MaterializedViewStore implements Store {
+    private static final String SNAPSHOT_FILE = "view.snapshot";
+    private static final String JOURNAL_FILE = "view.journal";
+    private static final String PREVIOUS_JOURNAL_FILE = "view.journal.previous";
+    private static final long SNAPSHOT_JOURNAL_SIZE = 64L * 1024 * 1024;
+    // Length written in place of a table name or key to mark the end of the tables or entries in a snapshot.
+    private static final int END_MARKER = -1;
+    // Composite keys start with a null character, so the chaincode range query starts simple keys from this key.
+    private static final String SIMPLE_KEY_START = "\u0001";
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final Path previousJournalPath;
+    private final long snapshotJournalSize;
+    private final Map<String, NavigableMap<String, ByteString>> tables = new ConcurrentHashMap<>();
+    private final ExecutorService snapshotWriter;
+    private FileChannel journal;
+    private CompletableFuture<Void> backgroundSnapshot = CompletableFuture.completedFuture(null);
+
+    /**
+     * Open a materialized view for update, restoring any existing state from the directory.
+     * @param directory Directory containing the view files.
+     * @return A materialized view store.
+     * @throws IOException if existing state cannot be read.
+     */
+    public static MaterializedViewStore open(final Path directory) throws IOException {
+        return open(directory, SNAPSHOT_JOURNAL_SIZE);
+    }
+
+    static MaterializedViewStore open(final Path directory, final long snapshotJournalSize) throws IOException {
+        Files.createDirectories(directory);
+        return new MaterializedViewStore(directory, true, snapshotJournalSize);
+    }
+
+    /**
+     * Open a materialized view for queries only. The view reflects the state at the time it was opened.
+     * @param directory Directory containing the view files.
+     * @return A materialized view store.
+     * @throws IOException if existing state cannot be read.
+     */
+    public static MaterializedViewStore openReadOnly(final Path directory) throws IOException {
+        return new MaterializedViewStore(directory, false, SNAPSHOT_JOURNAL_SIZE);
+    }
+
+    private MaterializedViewStore(final Path directory, final boolean writable, final long snapshotJournalSize) throws IOException {
+        snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        journalPath = directory.resolve(JOURNAL_FILE);
+        previousJournalPath = directory.resolve(PREVIOUS_JOURNAL_FILE);
+        this.snapshotJournalSize = snapshotJournalSize;
+
+        if (!writable) {
+            snapshotWriter = null;
+            loadConsistent();
+            return;
+        }
+
+        var journalLength = load();
+
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal.truncate(journalLength); // Discard any incomplete record
+        journal.position(journalLength);
+
+        if (Files.exists(previousJournalPath)) {
+            // A background snapshot did not complete before the view was last closed.
+            writeSnapshot();
+        }
+
+        snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "snapshot-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void store(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("Materialized view is read-only");
+        }
+
+        var record = SegmentedLogFormat.encode(blockNumber, transactionId, writes);
+        var length = ByteBuffer.allocate(Integer.BYTES).putInt(record.remaining()).flip();
+        var buffers = new ByteBuffer[] {length, record};
+        while (record.hasRemaining()) {
+            journal.write(buffers);
+        }
+
+        writes.forEach(this::apply);
+
+        if (journal.size() >= snapshotJournalSize && backgroundSnapshot.isDone()) {
+            awaitSnapshot(); // Report any failure of the previous snapshot before its journal could be replaced
+            startSnapshot();
+        }
+    }
+
+    /**
+     * Get the current value of a key.
+     * @param channelName Channel name.
+     * @param namespace Chaincode namespace.
+     * @param key Ledger key.
+     * @return The value, or empty if the key does not exist.
+     */
+    public Optional<ByteString> get(final String channelName, final String namespace, final String key) {
+        return Optional.ofNullable(getTable(channelName, namespace).get(key));
+    }
+
+    /**
+     * Get the current values for a range of keys, in key order. As with the chaincode range query, an empty start key
+     * or end key leaves that end of the range unbounded, except that an empty start key excludes composite keys, such
+     * as those used for secondary indexes.
+     * @param channelName Channel name.
+     * @param namespace Chaincode namespace.
+     * @param startKey First key in the range (inclusive).
+     * @param endKey Last key in the range (exclusive).
+     * @return An unmodifiable view of keys and values.
+     */
+    public NavigableMap<String, ByteString> getRange(final String channelName, final String namespace, final String startKey, final String endKey) {
+        var range = getTable(channelName, namespace).tailMap(startKey.isEmpty() ? SIMPLE_KEY_START : startKey, true);
+        if (!endKey.isEmpty()) {
+            range = range.headMap(endKey, false);
+        }
+
+        return Collections.unmodifiableNavigableMap(range);
+    }
+
+    /**
+     * Wait for any background snapshot to complete, then write a snapshot of the current state and close the journal.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            snapshotWriter.shutdown();
+            awaitSnapshot();
+            writeSnapshot();
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Wait for any background snapshot to complete.
+     * @throws IOException if the snapshot could not be written.
+     */
+    void awaitSnapshot() throws IOException {
+        try {
+            backgroundSnapshot.join();
+        } catch (CompletionException e) {
+            var cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static String tableName(final String channelName, final String namespace) {
+        return channelName + '/' + namespace;
+    }
+
+    private NavigableMap<String, ByteString> getTable(final String channelName, final String namespace) {
+        return tables.getOrDefault(tableName(channelName, namespace), Collections.emptyNavigableMap());
+    }
+
+    private void apply(final Write write) {
+        var table = tables.computeIfAbsent(tableName(write.getChannelName(), write.getNamespace()), name -> new ConcurrentSkipListMap<>());
+        if (write.isDelete()) {
+            table.remove(write.getKey());
+        } else {
+            table.put(write.getKey(), write.getValueBytes());
+        }
+    }
+
+    // Returns the length of the valid journal records.
+    private long load() throws IOException {
+        readSnapshot();
+        replayJournal(previousJournalPath);
+        return replayJournal(journalPath);
+    }
+
+    // A writer may replace the snapshot or set aside the journal while they are being read, in which case some updates
+    // might be missed, so read them again. Both operations replace a file, so they can be detected from the file keys.
+    private void loadConsistent() throws IOException {
+        List<Object> files;
+        do {
+            tables.clear();
+            files = fileKeys();
+            load();
+        } while (!files.equals(fileKeys()));
+    }
+
+    private List<Object> fileKeys() throws IOException {
+        return Arrays.asList(fileKey(snapshotPath), fileKey(journalPath));
+    }
+
+    private static Object fileKey(final Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private long replayJournal(final Path path) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+
+        while (SegmentedLogFormat.hasRecord(buffer)) {
+            SegmentedLogFormat.decode(buffer).getWrites().forEach(this::apply);
+        }
+
+        return buffer.position();
+    }
+
+    // The snapshot is a sequence of tables, each a name followed by a sequence of key and value entries. Names, keys and
+    // values are length-prefixed, and the tables and the entries of each table are followed by an end marker. No
+    // counts are recorded, since tables may be updated while the snapshot is written.
+    private void readSnapshot() throws IOException {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            for (var tableName = readString(in); tableName != null; tableName = readString(in)) {
+                var table = new ConcurrentSkipListMap<String, ByteString>();
+                tables.put(tableName, table);
+
+                for (var key = readString(in); key != null; key = readString(in)) {
+                    table.put(key, UnsafeByteOperations.unsafeWrap(readBytes(in)));
+                }
+            }
+        }
+    }
+
+    // Set the journal aside and write a snapshot in the background, while ledger updates are appended to a new journal.
+    private void startSnapshot() throws IOException {
+        journal.close();
+        Files.move(journalPath, previousJournalPath, StandardCopyOption.ATOMIC_MOVE);
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        backgroundSnapshot = CompletableFuture.runAsync(() -> {
+            try {
+                writeSnapshotFile();
+                Files.delete(previousJournalPath);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, snapshotWriter);
+    }
+
+    // Write a snapshot of the current state, then discard all journals. Ledger updates must not be applied concurrently.
+    private void writeSnapshot() throws IOException {
+        writeSnapshotFile();
+        Files.deleteIfExists(previousJournalPath);
+        journal.truncate(0);
+    }
+
+    // The snapshot is forced to the storage device before it replaces the previous snapshot, so that journals are only
+    // discarded once their updates are durably included in a snapshot.
+    private void writeSnapshotFile() throws IOException {
+        var tempPath = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (var channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            for (var table : tables.entrySet()) {
+                writeBytes(out, table.getKey().getBytes(StandardCharsets.UTF_8));
+                for (var entry : table.getValue().entrySet()) {
+                    writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+                    out.writeInt(entry.getValue().size());
+                    entry.getValue().writeTo(out);
+                }
+                out.writeInt(END_MARKER);
+            }
+            out.writeInt(END_MARKER);
+            out.flush();
+            channel.force(false);
+        }
+
+        Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        var bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    // Returns null if an end marker is read instead.
+    private static String readString(final DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if (length == END_MARKER) {
+            return null;
+        }
+
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
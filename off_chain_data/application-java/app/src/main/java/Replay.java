@@ -0,0 +1,28 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import io.grpc.Channel;
+
+import java.io.IOException;
+
+/**
+ * Replay ledger updates recorded by the listen command in a segmented store log, starting from a given block number.
+ */
+public final class Replay implements Command {
+    private static final long REPLAY_START_BLOCK = Utils.getEnvOrDefault("REPLAY_START_BLOCK", Long::parseUnsignedLong, 0L);
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public void run(final Channel grpcChannel) throws IOException {
+        var reader = new SegmentedLogReader(Listen.getStoreDirectory(Connections.CHANNEL_NAME));
+        reader.replay(REPLAY_START_BLOCK, (blockNumber, transactionId, writes) -> {
+            for (var write : writes) {
+                System.out.println(Long.toUnsignedString(blockNumber) + " " + transactionId + " " + GSON.toJson(write));
+            }
+        });
+    }
+}
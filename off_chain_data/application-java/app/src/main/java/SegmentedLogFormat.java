@@ -0,0 +1,263 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * File layout shared by {@link SegmentedLogStore} and {@link SegmentedLogReader}.
+ *
+ * <p>The log is a directory of segment files, each named after the block being written when the segment was started.
+ * Segment names increase, and the records for one block may continue from the end of one segment into the next. A
+ * segment starts with a header, followed by length-prefixed transaction records. A record length of zero marks the end of the data
+ * in a segment. Each record contains the block number, the transaction ID and the transaction's writes. Strings and
+ * values are length-prefixed, with strings encoded as UTF-8.
+ *
+ * <p>Each segment has an accompanying sparse index file of (block number, offset) entries, which allows a reader to
+ * seek close to the first record for a given block without scanning the whole segment.
+ */
+final class SegmentedLogFormat {
+    static final int MAGIC = 0x46534c47; // "FSLG"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    // Minimum gap between indexed block numbers.
+    static final long INDEX_BLOCK_INTERVAL = 16;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String NAME_FORMAT = "%020d";
+    private static final int INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * A decoded transaction record.
+     */
+    static final class Record {
+        private final long blockNumber;
+        private final String transactionId;
+        private final List<Write> writes;
+
+        Record(final long blockNumber, final String transactionId, final List<Write> writes) {
+            this.blockNumber = blockNumber;
+            this.transactionId = transactionId;
+            this.writes = writes;
+        }
+
+        long getBlockNumber() {
+            return blockNumber;
+        }
+
+        String getTransactionId() {
+            return transactionId;
+        }
+
+        List<Write> getWrites() {
+            return writes;
+        }
+    }
+
+    static Path segmentPath(final Path directory, final long firstBlock) {
+        return directory.resolve(String.format(NAME_FORMAT, firstBlock) + SEGMENT_SUFFIX);
+    }
+
+    static Path indexPath(final Path segment) {
+        var name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    /**
+     * List the segments in a log directory.
+     * @param directory Log directory.
+     * @return Segments keyed by the first block number they contain.
+     * @throws IOException if the directory cannot be read.
+     */
+    static NavigableMap<Long, Path> listSegments(final Path directory) throws IOException {
+        var results = new TreeMap<Long, Path>();
+        if (!Files.isDirectory(directory)) {
+            return results;
+        }
+
+        try (var files = Files.list(directory)) {
+            var segments = files
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .collect(Collectors.toList());
+            for (var segment : segments) {
+                var name = segment.getFileName().toString();
+                results.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), segment);
+            }
+        }
+
+        return results;
+    }
+
+    static void writeHeader(final ByteBuffer segment) {
+        segment.putInt(MAGIC).putInt(VERSION);
+    }
+
+    static void checkHeader(final ByteBuffer segment, final Path path) {
+        if (segment.remaining() < HEADER_SIZE || segment.getInt() != MAGIC || segment.getInt() != VERSION) {
+            throw new IllegalStateException("Not a valid log segment: " + path);
+        }
+    }
+
+    /**
+     * Encode a transaction record, excluding its length prefix.
+     * @param blockNumber Block number.
+     * @param transactionId Transaction ID.
+     * @param writes Ledger writes.
+     * @return A buffer ready to be read.
+     */
+    static ByteBuffer encode(final long blockNumber, final String transactionId, final List<Write> writes) {
+        var transactionIdBytes = transactionId.getBytes(StandardCharsets.UTF_8);
+        var encodedWrites = new ArrayList<EncodedWrite>(writes.size());
+        int size = Long.BYTES + Integer.BYTES + transactionIdBytes.length + Integer.BYTES;
+        for (var write : writes) {
+            var encodedWrite = new EncodedWrite(write);
+            encodedWrites.add(encodedWrite);
+            size += encodedWrite.size();
+        }
+
+        var buffer = ByteBuffer.allocate(size);
+        buffer.putLong(blockNumber);
+        putBytes(buffer, transactionIdBytes);
+        buffer.putInt(encodedWrites.size());
+        encodedWrites.forEach(encodedWrite -> encodedWrite.put(buffer));
+
+        return buffer.flip();
+    }
+
+    /**
+     * Whether another complete record is available at the current position of a segment buffer.
+     * @param segment Segment buffer.
+     * @return {@code true} if a record is available; otherwise {@code false}.
+     */
+    static boolean hasRecord(final ByteBuffer segment) {
+        if (segment.remaining() < Integer.BYTES) {
+            return false;
+        }
+
+        var length = segment.getInt(segment.position());
+        return length > 0 && segment.remaining() - Integer.BYTES >= length;
+    }
+
+    /**
+     * Read the block number of the record at the current position without advancing.
+     * @param segment Segment buffer.
+     * @return A block number.
+     */
+    static long peekBlockNumber(final ByteBuffer segment) {
+        return segment.getLong(segment.position() + Integer.BYTES);
+    }
+
+    /**
+     * Skip over the record at the current position.
+     * @param segment Segment buffer.
+     */
+    static void skipRecord(final ByteBuffer segment) {
+        var length = segment.getInt();
+        segment.position(segment.position() + length);
+    }
+
+    /**
+     * Decode the record at the current position and advance past it.
+     * @param segment Segment buffer.
+     * @return A transaction record.
+     */
+    static Record decode(final ByteBuffer segment) {
+        segment.getInt(); // Record length
+        var blockNumber = segment.getLong();
+        var transactionId = getString(segment);
+        var writeCount = segment.getInt();
+
+        var writes = new ArrayList<Write>(writeCount);
+        for (int i = 0; i < writeCount; i++) {
+            var channelName = getString(segment);
+            var namespace = getString(segment);
+            var key = getString(segment);
+            var isDelete = segment.get() != 0;
+            var value = UnsafeByteOperations.unsafeWrap(getBytes(segment)); // Newly allocated so safe to wrap
+            writes.add(new Write(channelName, namespace, key, isDelete, value));
+        }
+
+        return new Record(blockNumber, transactionId, writes);
+    }
+
+    static ByteBuffer encodeIndex(final NavigableMap<Long, Integer> index) {
+        var buffer = ByteBuffer.allocate(index.size() * INDEX_ENTRY_SIZE);
+        index.forEach((blockNumber, offset) -> buffer.putLong(blockNumber).putInt(offset));
+        return buffer.flip();
+    }
+
+    static NavigableMap<Long, Integer> readIndex(final Path segment) throws IOException {
+        var results = new TreeMap<Long, Integer>();
+        var indexFile = indexPath(segment);
+        if (!Files.exists(indexFile)) {
+            return results;
+        }
+
+        var buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        while (buffer.remaining() >= INDEX_ENTRY_SIZE) {
+            results.put(buffer.getLong(), buffer.getInt());
+        }
+
+        return results;
+    }
+
+    private static final class EncodedWrite {
+        private final byte[] channelName;
+        private final byte[] namespace;
+        private final byte[] key;
+        private final boolean isDelete;
+        private final ByteString value;
+
+        EncodedWrite(final Write write) {
+            channelName = write.getChannelName().getBytes(StandardCharsets.UTF_8);
+            namespace = write.getNamespace().getBytes(StandardCharsets.UTF_8);
+            key = write.getKey().getBytes(StandardCharsets.UTF_8);
+            isDelete = write.isDelete();
+            value = write.getValueBytes();
+        }
+
+        int size() {
+            return 4 * Integer.BYTES + channelName.length + namespace.length + key.length + 1 + value.size(); // checkstyle:ignore-line:MagicNumber
+        }
+
+        void put(final ByteBuffer buffer) {
+            putBytes(buffer, channelName);
+            putBytes(buffer, namespace);
+            putBytes(buffer, key);
+            buffer.put((byte) (isDelete ? 1 : 0));
+            buffer.putInt(value.size());
+            value.copyTo(buffer);
+        }
+    }
+
+    private static void putBytes(final ByteBuffer buffer, final byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static byte[] getBytes(final ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        return new String(getBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private SegmentedLogFormat() { }
+}
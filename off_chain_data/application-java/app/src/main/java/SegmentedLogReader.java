@@ -0,0 +1,77 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads ledger updates written by {@link SegmentedLogStore}. The sparse block index is used to seek directly to the
+ * segment and offset of a given block, so replay from a block does not require the preceding log to be parsed.
+ */
+public final class SegmentedLogReader {
+    private final Path directory;
+
+    public SegmentedLogReader(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Replay all transaction records for blocks at or after a given block number, in the order they were logged.
+     * @param startBlock First block number to replay.
+     * @param store Destination for replayed ledger updates.
+     * @throws IOException if the log cannot be read, or the destination store fails.
+     */
+    public void replay(final long startBlock, final Store store) throws IOException {
+        // A new segment is started whenever the current one is full, so the first records for the start block may be at
+        // the end of the segment before the one named after it. Start from the last segment named before the start block.
+        var segments = SegmentedLogFormat.listSegments(directory);
+        var firstSegment = segments.lowerKey(startBlock);
+        if (firstSegment != null) {
+            segments = segments.tailMap(firstSegment, true);
+        }
+
+        var isFirst = true;
+        for (var segmentPath : segments.values()) {
+            try (var channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+                var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                SegmentedLogFormat.checkHeader(segment, segmentPath);
+                if (isFirst) {
+                    seek(segment, segmentPath, startBlock);
+                    isFirst = false;
+                }
+
+                replaySegment(segment, startBlock, store);
+            }
+        }
+    }
+
+    private static void seek(final ByteBuffer segment, final Path segmentPath, final long startBlock) throws IOException {
+        var indexEntry = SegmentedLogFormat.readIndex(segmentPath).floorEntry(startBlock);
+        if (indexEntry != null) {
+            segment.position(indexEntry.getValue());
+        }
+
+        while (SegmentedLogFormat.hasRecord(segment) && SegmentedLogFormat.peekBlockNumber(segment) < startBlock) {
+            SegmentedLogFormat.skipRecord(segment);
+        }
+    }
+
+    private static void replaySegment(final ByteBuffer segment, final long startBlock, final Store store) throws IOException {
+        while (SegmentedLogFormat.hasRecord(segment)) {
+            if (SegmentedLogFormat.peekBlockNumber(segment) < startBlock) {
+                // Earlier block received again after a listener restart.
+                SegmentedLogFormat.skipRecord(segment);
+                continue;
+            }
+
+            var record = SegmentedLogFormat.decode(segment);
+            store.store(record.getBlockNumber(), record.getTransactionId(), record.getWrites());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Off-chain store that appends ledger updates to a segmented binary log. Segments are memory-mapped files of a fixed
+ * size, and a new segment is started when the current one is full. A sparse index of block number to record offset is
+ * maintained for each segment so that {@link SegmentedLogReader} can seek directly to a block. See
+ * {@link SegmentedLogFormat} for details of the file layout.
+ */
+public final class SegmentedLogStore implements Store {
+    private final Path directory;
+    private final int segmentSize;
+
+    private long segmentFirstBlock = -1;
+    private Path segmentPath;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private NavigableMap<Long, Integer> index = new TreeMap<>();
+    private long highestBlock = -1;
+
+    /**
+     * Create a segmented log store, continuing any existing log in the directory.
+     * @param directory Directory containing log segments.
+     * @param segmentSize Size in bytes of each log segment.
+     * @throws IOException if an existing log cannot be opened.
+     */
+    public SegmentedLogStore(final Path directory, final int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+
+        Files.createDirectories(directory);
+        var lastSegment = SegmentedLogFormat.listSegments(directory).lastEntry();
+        if (lastSegment != null) {
+            segmentFirstBlock = lastSegment.getKey();
+            openSegment(lastSegment.getValue());
+        }
+    }
+
+    @Override
+    public void store(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
+        var record = SegmentedLogFormat.encode(blockNumber, transactionId, writes);
+        var length = record.remaining();
+        if (segment == null || segment.remaining() < Integer.BYTES + length) {
+            rollSegment(blockNumber, length);
+        }
+
+        var offset = segment.position();
+        addIndexEntry(blockNumber, offset);
+
+        // Write the record body before its length so that a partially written record is never visible to readers.
+        segment.position(offset + Integer.BYTES);
+        segment.put(record);
+        segment.putInt(offset, length);
+    }
+
+    /**
+     * Flush and close the current segment.
+     * @throws IOException if the segment cannot be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+
+    private void addIndexEntry(final long blockNumber, final int offset) {
+        if (blockNumber <= highestBlock) {
+            return;
+        }
+
+        if (index.isEmpty() || blockNumber - index.lastKey() >= SegmentedLogFormat.INDEX_BLOCK_INTERVAL) {
+            index.put(blockNumber, offset);
+        }
+        highestBlock = blockNumber;
+    }
+
+    private void rollSegment(final long firstBlock, final int recordLength) throws IOException {
+        closeSegment();
+
+        // Blocks replayed after a restart may precede the start of the current segment. Segment names must be unique and
+        // increasing, and a reader seeking to any block reads forward through all later segments.
+        segmentFirstBlock = Math.max(firstBlock, segmentFirstBlock + 1);
+
+        var size = Math.max(segmentSize, SegmentedLogFormat.HEADER_SIZE + Integer.BYTES + recordLength);
+        segmentPath = SegmentedLogFormat.segmentPath(directory, segmentFirstBlock);
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        SegmentedLogFormat.writeHeader(segment);
+        index = new TreeMap<>();
+    }
+
+    private void openSegment(final Path path) throws IOException {
+        segmentPath = path;
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        SegmentedLogFormat.checkHeader(segment, path);
+
+        // Find the end of existing data, rebuilding the index in case it was not written before a failure.
+        index = new TreeMap<>();
+        while (SegmentedLogFormat.hasRecord(segment)) {
+            addIndexEntry(SegmentedLogFormat.peekBlockNumber(segment), segment.position());
+            SegmentedLogFormat.skipRecord(segment);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment == null) {
+            return;
+        }
+
+        segment.force();
+        Files.write(SegmentedLogFormat.indexPath(segmentPath), SegmentedLogFormat.encodeIndex(index).array());
+        channel.close();
+
+        segment = null;
+        channel = null;
+    }
+}
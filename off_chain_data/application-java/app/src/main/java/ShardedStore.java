@@ -0,0 +1,104 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Off-chain store made up of several independent shards. Each ledger key always belongs to the same shard, so writes
+ * for different shards never conflict and can be applied in parallel, while the writes to any one key remain in order
+ * as long as each shard is updated by one thread at a time.
+ *
+ * <p>When used directly as a {@link Store}, the writes for a transaction are divided between the shards and applied
+ * to each in turn.
+ */
+public final class ShardedStore implements Store {
+    private final List<Store> shards;
+
+    /**
+     * Create a sharded store. The shards are closed when this store is closed.
+     * @param shards Shard stores.
+     */
+    public ShardedStore(final List<? extends Store> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("No shards specified");
+        }
+
+        this.shards = List.copyOf(shards);
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public Store getShard(final int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * Shard to which a ledger write belongs.
+     * @param write A ledger write.
+     * @return Shard index.
+     */
+    public int shardOf(final Write write) {
+        var hash = Objects.hash(write.getChannelName(), write.getNamespace(), write.getKey());
+        return Math.floorMod(hash, shards.size());
+    }
+
+    /**
+     * Divide ledger writes between the shards, preserving their order.
+     * @param writes Ledger writes.
+     * @return Writes for each shard, indexed by shard. Shards with no writes have an empty list.
+     */
+    public List<List<Write>> partition(final List<Write> writes) {
+        var result = new ArrayList<List<Write>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            result.add(new ArrayList<>());
+        }
+
+        for (var write : writes) {
+            result.get(shardOf(write)).add(write);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void store(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
+        var shardWrites = partition(writes);
+        for (int i = 0; i < shards.size(); i++) {
+            if (!shardWrites.get(i).isEmpty()) {
+                shards.get(i).store(blockNumber, transactionId, shardWrites.get(i));
+            }
+        }
+    }
+
+    /**
+     * Close all the shards, even if some fail to close.
+     * @throws IOException if any shard fails to close.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (var shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -8,6 +8,15 @@ import java.io.IOException;
 import java.util.List;
 
 @FunctionalInterface
-public interface Store {
+public interface Store extends AutoCloseable {
     void store(long blockNumber, String transactionId, List<Write> writes) throws IOException;
+
+    /**
+     * Release any resources held by the store. The default implementation does nothing.
+     * @throws IOException if pending writes cannot be flushed.
+     */
+    @Override
+    default void close() throws IOException {
+        // Nothing to release
+    }
 }
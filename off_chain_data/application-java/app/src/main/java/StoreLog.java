@@ -0,0 +1,373 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Off-chain store that appends ledger updates to a file, one JSON line per write, through a single long-lived file
+ * channel. The file can be compacted while ledger updates continue to be appended. Any incomplete final line left by a
+ * failed append is removed when the file is opened.
+ *
+ * <p>Compaction rewrites the file to keep only the latest value for each channel, namespace and key, and drops keys
+ * whose latest update is a delete. The content of the file up to the point at which compaction starts is compacted
+ * without blocking appends. Only the final step, which copies anything appended in the meantime and atomically
+ * replaces the file, excludes appends. Memory use is bounded by processing keys in hash partitions, one pass of the
+ * file for each partition, with more partitions used if any pass would hold too many keys. Each compaction starts with
+ * the number of partitions used by the previous one. Only the fields that identify the key of each line are parsed.
+ */
+public final class StoreLog implements Store {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // Compaction is only worthwhile once the file has grown by this factor since it was last compacted.
+    private static final int COMPACT_GROWTH_FACTOR = 2;
+    private static final long COMPACT_MIN_SIZE = 1024 * 1024;
+
+    private final Path file;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+    private final int compactMaxKeys;
+    private final WriteEncoder encoder = new WriteEncoder(); // Guarded by appendLock
+    private FileChannel channel; // Guarded by appendLock
+    private volatile long compactedSize = 0;
+    private volatile int compactPartitions = 1;
+
+    /**
+     * Open a store log, creating the file if it does not exist.
+     * @param file Store log file.
+     * @param compactIntervalSeconds Interval at which the need for background compaction is checked, or zero for no
+     *                               background compaction.
+     * @param compactMaxKeys Maximum number of keys held in memory by each compaction pass.
+     * @throws IOException if the file cannot be opened.
+     */
+    public StoreLog(final Path file, final long compactIntervalSeconds, final int compactMaxKeys) throws IOException {
+        if (compactMaxKeys <= 0) {
+            throw new IllegalArgumentException("Maximum compaction keys must be positive: " + compactMaxKeys);
+        }
+
+        this.file = file;
+        this.compactMaxKeys = compactMaxKeys;
+        truncateIncompleteLine(file);
+        channel = openForAppend();
+
+        if (compactIntervalSeconds > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "compact-" + file.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactIfRequired, compactIntervalSeconds, compactIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    @Override
+    public void store(final long blockNumber, final String transactionId, final List<Write> writes) throws IOException {
+        // The encoder is reused for every transaction, so encoding is done while holding the append lock.
+        appendLock.lock();
+        try {
+            encoder.clear();
+            encoder.encode(writes);
+            append(encoder.getEncoded(encoder.size()), false);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Append complete JSON lines to the file.
+     * @param data Encoded lines.
+     * @param fsync Whether to force the data to the storage device before returning.
+     * @throws IOException if the data cannot be written.
+     */
+    public void append(final ByteBuffer data, final boolean fsync) throws IOException {
+        appendLock.lock();
+        try {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Compact the file now. Appends may continue while the file is being compacted.
+     * @throws IOException if the file cannot be compacted. The existing file is unchanged.
+     */
+    public void compact() throws IOException {
+        long compactLength;
+        appendLock.lock();
+        try {
+            compactLength = channel.size();
+        } finally {
+            appendLock.unlock();
+        }
+
+        long compactedLength;
+        var tempFile = file.resolveSibling(file.getFileName() + ".compact");
+        try (var output = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var endOfLines = writeLatestValues(compactLength, output);
+            compactedLength = output.size();
+
+            appendLock.lock();
+            try {
+                try (var input = FileChannel.open(file, StandardOpenOption.READ)) {
+                    // Copy anything appended since compaction started, including any incomplete final line.
+                    var position = endOfLines;
+                    var end = input.size();
+                    while (position < end) {
+                        position += input.transferTo(position, end - position, output);
+                    }
+                }
+                output.force(false);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                channel.close();
+                channel = openForAppend();
+                compactedSize = channel.size();
+            } finally {
+                appendLock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        System.out.println("Compacted " + compactLength + " bytes of " + file + " to " + compactedLength + " bytes");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (compactor != null) {
+            // Allow any compaction in progress to finish. Interrupting it could close the append channel.
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        appendLock.lock();
+        try {
+            channel.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static void truncateIncompleteLine(final Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (var input = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            var end = input.size();
+            while (end > 0) {
+                var start = Math.max(0, end - buffer.capacity());
+                readFully(input, buffer.clear().limit((int) (end - start)), start);
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        input.truncate(start + i + 1);
+                        return;
+                    }
+                }
+                end = start;
+            }
+            input.truncate(0);
+        }
+    }
+
+    private static void readFully(final FileChannel input, final ByteBuffer buffer, final long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (input.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void compactIfRequired() {
+        try {
+            var size = Files.size(file);
+            if (size >= COMPACT_MIN_SIZE && size >= COMPACT_GROWTH_FACTOR * compactedSize) {
+                compact();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep appending to the existing file; compaction is tried again later.
+            System.err.println("Failed to compact " + file + ": " + e);
+        }
+    }
+
+    // Write the latest value of each live key in the first length bytes of the file, one hash partition of the keys at
+    // a time. If any partition holds too many keys, start again with twice as many partitions. Returns the end position
+    // of the last complete line processed.
+    private long writeLatestValues(final long length, final FileChannel output) throws IOException {
+        for (int partitions = compactPartitions; ; partitions *= 2) {
+            output.truncate(0);
+            output.position(0);
+
+            long endOfLines = 0;
+            var isComplete = true;
+            for (int partition = 0; partition < partitions && isComplete; partition++) {
+                var latestValues = new HashMap<String, byte[]>();
+                endOfLines = readLines(length, partitions, partition, latestValues);
+                isComplete = latestValues.size() <= compactMaxKeys;
+                if (isComplete) {
+                    for (var line : latestValues.values()) {
+                        var data = ByteBuffer.wrap(line);
+                        while (data.hasRemaining()) {
+                            output.write(data);
+                        }
+                    }
+                }
+            }
+
+            if (isComplete) {
+                compactPartitions = partitions;
+                return endOfLines;
+            }
+        }
+    }
+
+    // Read complete lines in the first length bytes of the file, recording the latest line for keys in the given
+    // partition, and removing keys whose latest update is a delete. Stops early if too many keys are held. Returns the
+    // end position of the last complete line.
+    private long readLines(final long length, final int partitions, final int partition, final Map<String, byte[]> latestValues)
+            throws IOException {
+        try (var input = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            var line = new ByteArrayOutputStream();
+            long position = 0;
+            long endOfLines = 0;
+
+            while (position < length && latestValues.size() <= compactMaxKeys) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), length - position));
+                var count = input.read(buffer, position);
+                if (count < 0) {
+                    break;
+                }
+                position += count;
+
+                var bytes = buffer.array();
+                var start = 0;
+                for (int i = 0; i < count; i++) {
+                    if (bytes[i] == '\n') {
+                        line.write(bytes, start, i + 1 - start);
+                        applyLine(line.toByteArray(), partitions, partition, latestValues);
+                        line.reset();
+                        start = i + 1;
+                        endOfLines = position - count + start;
+                    }
+                }
+                line.write(bytes, start, count - start);
+            }
+
+            return endOfLines;
+        }
+    }
+
+    private static void applyLine(final byte[] line, final int partitions, final int partition, final Map<String, byte[]> latestValues)
+            throws IOException {
+        if (isBlank(line)) {
+            return;
+        }
+
+        var update = KeyUpdate.parse(line);
+        if (Math.floorMod(update.key.hashCode(), partitions) != partition) {
+            return;
+        }
+
+        if (update.isDelete) {
+            latestValues.remove(update.key);
+        } else {
+            latestValues.put(update.key, line);
+        }
+    }
+
+    private static boolean isBlank(final byte[] line) {
+        for (var b : line) {
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Channel, namespace and key of a line, and whether it is a delete. The value, which is typically most of the line,
+    // is skipped without being decoded.
+    private static final class KeyUpdate {
+        private final String key;
+        private final boolean isDelete;
+
+        private KeyUpdate(final String key, final boolean isDelete) {
+            this.key = key;
+            this.isDelete = isDelete;
+        }
+
+        static KeyUpdate parse(final byte[] line) throws IOException {
+            String channelName = null;
+            String namespace = null;
+            String key = null;
+            var isDelete = false;
+
+            try (var reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(line), StandardCharsets.UTF_8))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "channelName":
+                            channelName = reader.nextString();
+                            break;
+                        case "namespace":
+                            namespace = reader.nextString();
+                            break;
+                        case "key":
+                            key = reader.nextString();
+                            break;
+                        case "isDelete":
+                            isDelete = reader.nextBoolean();
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            }
+
+            if (channelName == null || namespace == null || key == null) {
+                throw new IOException("Store log line has no channel name, namespace or key");
+            }
+            return new KeyUpdate(channelName + '\0' + namespace + '\0' + key, isDelete);
+        }
+    }
+}
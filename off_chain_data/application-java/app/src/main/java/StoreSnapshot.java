@@ -0,0 +1,240 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.client.GatewayException;
+import org.hyperledger.fabric.client.Network;
+import org.hyperledger.fabric.protos.common.BlockchainInfo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot of the assets in the world state, used to bootstrap an off-chain store without replaying the entire chain.
+ * A snapshot records the ledger height at which it was taken. Listening then continues from that height.
+ *
+ * <p>A snapshot is taken by querying all assets from the smart contract, optionally one page at a time. Paged queries
+ * use the {@code GetAllAssetsWithPagination} function, which only the Java smart contract provides. Queries may
+ * observe ledger updates committed after the recorded height, and those updates are received again as block events
+ * once listening continues. Each ledger update replaces the full value of a key, so applying them again over the
+ * snapshot gives the correct current state.
+ *
+ * <p>The snapshot file format is one line containing a JSON header with the ledger height, followed by one line for
+ * each asset in the same JSON format as the {@code store.log} file.
+ */
+public final class StoreSnapshot {
+    // Transaction ID recorded in the store for writes loaded from a snapshot.
+    private static final String TRANSACTION_ID = "snapshot";
+
+    private static final Gson GSON = new Gson();
+    private static final String BLOCK_HEIGHT = "blockHeight";
+    private static final String PAGINATED_QUERY = "GetAllAssetsWithPagination";
+    private static final String QUERY = "GetAllAssets";
+    // Number of writes passed to the store at once when loading a snapshot file.
+    static final int LOAD_BATCH_SIZE = 1000;
+
+    private final Network network;
+    private final String chaincodeName;
+    private final int pageSize;
+
+    /**
+     * Create a snapshot source for a smart contract.
+     * @param network Network for the channel.
+     * @param chaincodeName Chaincode name.
+     * @param pageSize Number of assets to query at once using {@code GetAllAssetsWithPagination}, or zero to query all
+     *                 assets at once using {@code GetAllAssets}.
+     */
+    public StoreSnapshot(final Network network, final String chaincodeName, final int pageSize) {
+        this.network = network;
+        this.chaincodeName = chaincodeName;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Load the current assets from the smart contract into a store.
+     * @param store Store to which assets are written.
+     * @return Ledger height at which listening should continue.
+     * @throws GatewayException if a query fails.
+     * @throws IOException if the store cannot be updated.
+     */
+    public long loadInto(final Store store) throws GatewayException, IOException {
+        var blockHeight = getBlockHeight();
+        var lastBlock = blockHeight - 1;
+        var count = forEachPage(writes -> store.store(lastBlock, TRANSACTION_ID, writes));
+        System.out.println("Loaded " + count + " assets from chaincode " + chaincodeName + " at block height " + blockHeight);
+        return blockHeight;
+    }
+
+    /**
+     * Export the current assets from the smart contract to a snapshot file. The file is replaced atomically.
+     * @param file Snapshot file.
+     * @throws GatewayException if a query fails.
+     * @throws IOException if the file cannot be written.
+     */
+    public void export(final Path file) throws GatewayException, IOException {
+        var blockHeight = getBlockHeight();
+        var tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        long count;
+        try (var writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            var header = new JsonObject();
+            header.addProperty(BLOCK_HEIGHT, blockHeight);
+            writer.write(header.toString());
+            writer.newLine();
+
+            count = forEachPage(writes -> writeLines(writer, writes));
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        System.out.println("Exported " + count + " assets from chaincode " + chaincodeName + " at block height " + blockHeight
+                + " to " + file);
+    }
+
+    /**
+     * Load a previously exported snapshot file into a store.
+     * @param file Snapshot file.
+     * @param store Store to which the snapshot writes are passed.
+     * @return Ledger height at which listening should continue.
+     * @throws IOException if the file cannot be read or does not start with a valid header, or the store cannot be
+     * updated.
+     */
+    public static long loadFile(final Path file, final Store store) throws IOException {
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            var headerLine = reader.readLine();
+            if (headerLine == null) {
+                throw new IOException("Empty snapshot file: " + file);
+            }
+            var blockHeight = parseBlockHeight(headerLine, file);
+            var lastBlock = blockHeight - 1;
+
+            long count = 0;
+            var batch = new ArrayList<Write>(LOAD_BATCH_SIZE);
+            for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                batch.add(GSON.fromJson(line, Write.class));
+                if (batch.size() >= LOAD_BATCH_SIZE) {
+                    store.store(lastBlock, TRANSACTION_ID, batch);
+                    count += batch.size();
+                    batch = new ArrayList<>(LOAD_BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                store.store(lastBlock, TRANSACTION_ID, batch);
+                count += batch.size();
+            }
+
+            System.out.println("Loaded " + count + " writes from " + file + " at block height " + blockHeight);
+            return blockHeight;
+        }
+    }
+
+    private static long parseBlockHeight(final String headerLine, final Path file) throws IOException {
+        try {
+            var blockHeight = JsonParser.parseString(headerLine).getAsJsonObject().get(BLOCK_HEIGHT);
+            if (blockHeight == null) {
+                throw new IOException("Missing " + BLOCK_HEIGHT + " in snapshot file header: " + file);
+            }
+            return blockHeight.getAsLong();
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid snapshot file header: " + file, e);
+        }
+    }
+
+    private long getBlockHeight() throws GatewayException {
+        var chainInfo = network.getContract("qscc").evaluateTransaction("GetChainInfo", network.getName());
+        try {
+            return BlockchainInfo.parseFrom(chainInfo).getHeight();
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Invalid chain information", e);
+        }
+    }
+
+    // Query assets one page at a time, passing the writes for each page to the consumer. Returns the number of assets.
+    private long forEachPage(final PageConsumer consumer) throws GatewayException, IOException {
+        if (pageSize == 0) {
+            var json = evaluate(QUERY);
+            var assets = json.isEmpty() ? new JsonArray() : JsonParser.parseString(json).getAsJsonArray();
+            consumer.accept(toWrites(assets));
+            return assets.size();
+        }
+
+        long count = 0;
+        var bookmark = "";
+        do {
+            var page = JsonParser.parseString(evaluatePage(bookmark)).getAsJsonObject();
+            var records = page.get("records");
+            var assets = records == null || records.isJsonNull() ? new JsonArray() : records.getAsJsonArray();
+            if (assets.size() > 0) {
+                consumer.accept(toWrites(assets));
+            }
+            count += assets.size();
+            bookmark = assets.size() < pageSize ? "" : page.get("bookmark").getAsString();
+        } while (!bookmark.isEmpty());
+
+        return count;
+    }
+
+    // The Go and TypeScript smart contracts do not provide the paginated query, so a failure of the first page is reported
+    // with the likely cause.
+    private String evaluatePage(final String bookmark) throws GatewayException, IOException {
+        try {
+            return evaluate(PAGINATED_QUERY, Integer.toString(pageSize), bookmark);
+        } catch (GatewayException e) {
+            if (!bookmark.isEmpty()) {
+                throw e;
+            }
+            throw new IOException("Failed to query " + PAGINATED_QUERY + " from chaincode " + chaincodeName
+                    + ". Snapshots queried one page at a time need a smart contract that provides this function, such as"
+                    + " the Java smart contract. Set the page size to zero to query all assets with " + QUERY + ".", e);
+        }
+    }
+
+    private String evaluate(final String transactionName, final String... args) throws GatewayException {
+        var result = network.getContract(chaincodeName).newProposal(transactionName)
+                .addArguments(args)
+                .build()
+                .evaluate(GatewayMetrics.forFunction(transactionName));
+        return new String(result, StandardCharsets.UTF_8);
+    }
+
+    // Asset values are stored exactly as returned by the smart contract, keyed by asset ID. The Java smart contract
+    // names the ID property differently from the Go and TypeScript implementations.
+    private List<Write> toWrites(final JsonArray assets) {
+        var writes = new ArrayList<Write>(assets.size());
+        var channelName = network.getName();
+        for (var asset : assets) {
+            var properties = asset.getAsJsonObject();
+            var key = (properties.has("ID") ? properties.get("ID") : properties.get("assetID")).getAsString();
+            writes.add(new Write(channelName, chaincodeName, key, false, ByteString.copyFromUtf8(asset.toString())));
+        }
+        return writes;
+    }
+
+    private static void writeLines(final BufferedWriter writer, final List<Write> writes) throws IOException {
+        for (var write : writes) {
+            GSON.toJson(write, writer);
+            writer.newLine();
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageConsumer {
+        void accept(List<Write> writes) throws IOException;
+    }
+}
@@ -5,23 +5,37 @@
  */
 
 import io.grpc.Channel;
+import org.hyperledger.fabric.client.GatewayException;
 
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.cert.CertificateException;
+import java.time.Duration;
 
 public final class Transact implements Command {
+    private final GatewayMetrics metrics;
+
+    /**
+     * Create the command.
+     * @param metrics Metrics to which the commit latency of submitted transactions is recorded, or null.
+     */
+    public Transact(final GatewayMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
     public void run(final Channel grpcChannel)
-            throws CertificateException, IOException, InvalidKeyException {
+            throws CertificateException, IOException, InvalidKeyException, InterruptedException, GatewayException {
         try (var gateway = Connections.newGatewayBuilder(grpcChannel).connect()) {
             var network = gateway.getNetwork(Connections.CHANNEL_NAME);
             var contract = network.getContract(Connections.CHAINCODE_NAME);
 
-            var smartContract = new AssetTransferBasic(contract);
+            try (var commitMonitor = CommitStatusMonitor.start(network, Duration.ofSeconds(Connections.COMMIT_STATUS_TIMEOUT_SECONDS), metrics)) {
+                var smartContract = new AssetTransferBasic(contract, commitMonitor);
 
-            var app = new TransactApp(smartContract);
-            app.run();
+                var app = new TransactApp(smartContract);
+                app.run();
+            }
         }
     }
 }
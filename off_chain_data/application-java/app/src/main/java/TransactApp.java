@@ -4,66 +4,196 @@
  * SPDX-License-Identifier: Apache-2.0
  */
 
-import org.hyperledger.fabric.client.CommitException;
-import org.hyperledger.fabric.client.CommitStatusException;
 import org.hyperledger.fabric.client.EndorseException;
 import org.hyperledger.fabric.client.SubmitException;
 
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
 
+/**
+ * Generates load by submitting a mix of create, transfer and delete transactions. Transactions are started at a target
+ * rate, independent of how long earlier transactions take to complete, up to a limit on the number of transactions in
+ * progress. If the concurrency limit is reached, later transactions are delayed until earlier ones complete.
+ */
 public final class TransactApp {
     private static final List<String> COLORS = List.of("red", "green", "blue");
     private static final List<String> OWNERS = List.of("alice", "bob", "charlie");
     private static final int MAX_INITIAL_VALUE = 1000;
     private static final int MAX_INITIAL_SIZE = 10;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long DEFAULT_BATCH_SIZE = 10;
+
+    // Target rate at which transactions are started. Zero starts each transaction as soon as concurrency allows.
+    private static final double TARGET_TPS = Utils.getEnvOrDefault("LOAD_TPS", Double::parseDouble, 0.0);
+    // Time for which load is generated. Zero means no time limit.
+    private static final long DURATION_SECONDS = Utils.getEnvOrDefault("LOAD_DURATION_SECONDS", Long::parseUnsignedLong, 0L);
+    // Number of transactions to start. Zero means no limit. Defaults to a small batch unless a duration is specified.
+    private static final long TRANSACTION_LIMIT = Utils.getEnvOrDefault("LOAD_TRANSACTIONS", Long::parseUnsignedLong,
+            DURATION_SECONDS > 0 ? 0L : DEFAULT_BATCH_SIZE);
+    // Maximum number of transactions in progress at once.
+    private static final int CONCURRENCY = Utils.getEnvOrDefault("LOAD_CONCURRENCY", Integer::parseUnsignedInt, 10);
+    // Relative weights of each operation. Transfers and deletes act on assets created earlier in the run.
+    private static final Map<Operation, Integer> OPERATION_MIX = parseOperationMix(Utils.getEnvOrDefault("LOAD_MIX", "create=4,transfer=2,delete=1"));
+    // Whether to print a message for every transaction, in addition to periodic progress reports.
+    private static final boolean LOG_TRANSACTIONS = Utils.getEnvOrDefault("LOAD_LOG_TRANSACTIONS", Boolean::parseBoolean, true);
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+
+    private enum Operation { CREATE, TRANSFER, DELETE }
 
     private final AssetTransferBasic smartContract;
-    private final int batchSize = 10;
+    private final Queue<Asset> idleAssets = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, LongAdder> successCounts = newCounters();
+    private final Map<Operation, LongAdder> failureCounts = newCounters();
+    private final LongAdder delayedCount = new LongAdder();
+    private final int totalWeight = OPERATION_MIX.values().stream().mapToInt(Integer::intValue).sum();
+    private long startNanos;
 
     public TransactApp(final AssetTransferBasic smartContract) {
         this.smartContract = smartContract;
     }
 
-    public void run() {
-        var futures = Stream.generate(this::newCompletableFuture)
-                .limit(batchSize)
-                .toArray(CompletableFuture[]::new);
-        var allComplete = CompletableFuture.allOf(futures);
-        allComplete.join();
+    public void run() throws InterruptedException {
+        System.out.println("Generating load: " + describeLoad());
+
+        var workers = Executors.newFixedThreadPool(CONCURRENCY, newDaemonThreadFactory("transact"));
+        var reporter = Executors.newSingleThreadScheduledExecutor(newDaemonThreadFactory("transact-report"));
+        var permits = new Semaphore(CONCURRENCY);
+
+        startNanos = System.nanoTime();
+        var endNanos = DURATION_SECONDS > 0 ? startNanos + DURATION_SECONDS * NANOS_PER_SECOND : Long.MAX_VALUE;
+        var intervalNanos = TARGET_TPS > 0 ? (long) (NANOS_PER_SECOND / TARGET_TPS) : 0L;
+
+        reporter.scheduleAtFixedRate(() -> printReport("Progress"), REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        try {
+            for (long i = 0; TRANSACTION_LIMIT == 0 || i < TRANSACTION_LIMIT; i++) {
+                // Start times are fixed in advance so that slow transactions do not reduce the offered load.
+                var scheduledNanos = startNanos + i * intervalNanos;
+                if (scheduledNanos >= endNanos) {
+                    break;
+                }
+                waitUntil(scheduledNanos);
+                if (System.nanoTime() >= endNanos) {
+                    break;
+                }
+
+                if (!permits.tryAcquire()) {
+                    delayedCount.increment();
+                    permits.acquire();
+                }
+                workers.execute(() -> transact().whenComplete((result, e) -> permits.release()));
+            }
+
+            // Wait for in-progress transactions to complete.
+            permits.acquire(CONCURRENCY);
+        } finally {
+            reporter.shutdownNow();
+            workers.shutdownNow();
+        }
+
+        printReport("Completed");
     }
 
-    private CompletableFuture<Void> newCompletableFuture() {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                transact();
-            } catch (Exception e) {
-                throw new CompletionException(e);
+    // Endorsement and submit run on the calling worker thread. The returned future completes once the transaction is
+    // committed, without holding a thread while waiting.
+    private CompletableFuture<Void> transact() {
+        var operation = nextOperation();
+        var asset = operation == Operation.CREATE ? null : idleAssets.poll();
+        if (asset == null) {
+            // Nothing available to transfer or delete yet.
+            operation = Operation.CREATE;
+        }
+
+        try {
+            switch (operation) {
+                case TRANSFER:
+                    return transferAsset(asset);
+                case DELETE:
+                    return deleteAsset(asset);
+                default:
+                    return createAsset();
             }
-        });
+        } catch (EndorseException | SubmitException | RuntimeException e) {
+            recordFailure(operation, e);
+            if (asset != null) {
+                idleAssets.add(asset);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
     }
 
-    private void transact() throws EndorseException, CommitException, SubmitException, CommitStatusException {
+    private CompletableFuture<Void> createAsset() throws EndorseException, SubmitException {
         var asset = newAsset();
+        return smartContract.createAssetAsync(asset).handle((result, e) -> {
+            if (isCommitted(Operation.CREATE, e)) {
+                idleAssets.add(asset);
+                log("Created new asset " + asset.getId());
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> transferAsset(final Asset asset) throws EndorseException, SubmitException {
+        var newOwner = Utils.differentElement(OWNERS, asset.getOwner());
+        return smartContract.transferAssetAsync(asset.getId(), newOwner).handle((oldOwner, e) -> {
+            if (isCommitted(Operation.TRANSFER, e)) {
+                asset.setOwner(newOwner);
+                log("Transferred asset " + asset.getId() + " from " + oldOwner + " to " + newOwner);
+            }
+            idleAssets.add(asset);
+            return null;
+        });
+    }
 
-        smartContract.createAsset(asset);
-        System.out.println("Created new asset " + asset.getId());
+    private CompletableFuture<Void> deleteAsset(final Asset asset) throws EndorseException, SubmitException {
+        return smartContract.deleteAssetAsync(asset.getId()).handle((result, e) -> {
+            if (isCommitted(Operation.DELETE, e)) {
+                log("Deleted asset " + asset.getId());
+            } else {
+                idleAssets.add(asset);
+            }
+            return null;
+        });
+    }
 
-        // Transfer randomly 1 in 2 assets to a new owner.
-        if (Utils.randomInt(2) == 0) { // checkstyle:ignore-line:MagicNumber
-            var newOwner = Utils.differentElement(OWNERS, asset.getOwner());
-            var oldOwner = smartContract.transferAsset(asset.getId(), newOwner);
-            System.out.println("Transferred asset " + asset.getId() + " from " + oldOwner + " to " + newOwner);
+    private boolean isCommitted(final Operation operation, final Throwable failure) {
+        if (failure != null) {
+            recordFailure(operation, failure instanceof CompletionException ? failure.getCause() : failure);
+            return false;
         }
 
-        // Delete randomly 1 in 4 created assets.
-        if (Utils.randomInt(4) == 0) { // checkstyle:ignore-line:MagicNumber
-            smartContract.deleteAsset(asset.getId());
-            System.out.println("Deleted asset " + asset.getId());
+        successCounts.get(operation).increment();
+        return true;
+    }
+
+    private void recordFailure(final Operation operation, final Throwable failure) {
+        failureCounts.get(operation).increment();
+        log(operation + " failed: " + failure);
+    }
+
+    private Operation nextOperation() {
+        var selection = Utils.randomInt(totalWeight);
+        for (var entry : OPERATION_MIX.entrySet()) {
+            selection -= entry.getValue();
+            if (selection < 0) {
+                return entry.getKey();
+            }
         }
+
+        throw new IllegalStateException("No operation selected");
     }
 
     private Asset newAsset() {
@@ -74,4 +204,75 @@ public final class TransactApp {
         asset.setAppraisedValue(Utils.randomInt(MAX_INITIAL_VALUE) + 1);
         return asset;
     }
+
+    private void printReport(final String label) {
+        var elapsedSeconds = (double) (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        var committed = sum(successCounts);
+        System.out.println(String.format("%s after %.1fs: %d committed (%.1f TPS), %d failed, %d delayed by concurrency limit; %s",
+                label, elapsedSeconds, committed, committed / elapsedSeconds, sum(failureCounts), delayedCount.sum(),
+                Arrays.stream(Operation.values())
+                        .map(operation -> operation.name().toLowerCase() + "=" + successCounts.get(operation).sum())
+                        .collect(Collectors.joining(", "))));
+    }
+
+    private static String describeLoad() {
+        return (TARGET_TPS > 0 ? TARGET_TPS + " TPS" : "unlimited rate")
+                + ", " + (TRANSACTION_LIMIT > 0 ? TRANSACTION_LIMIT + " transactions" : "unlimited transactions")
+                + ", " + (DURATION_SECONDS > 0 ? DURATION_SECONDS + "s duration" : "no time limit")
+                + ", concurrency " + CONCURRENCY
+                + ", mix " + OPERATION_MIX;
+    }
+
+    private static void log(final String message) {
+        if (LOG_TRANSACTIONS) {
+            System.out.println(message);
+        }
+    }
+
+    private static void waitUntil(final long deadlineNanos) {
+        for (var remaining = deadlineNanos - System.nanoTime(); remaining > 0; remaining = deadlineNanos - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static Map<Operation, Integer> parseOperationMix(final String mix) {
+        var results = new EnumMap<Operation, Integer>(Operation.class);
+        for (var entry : mix.split(",")) {
+            var parts = entry.split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid operation weight: " + entry);
+            }
+
+            var weight = Integer.parseUnsignedInt(parts[1].trim());
+            if (weight > 0) {
+                results.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+            }
+        }
+
+        if (!results.containsKey(Operation.CREATE)) {
+            throw new IllegalArgumentException("Operation mix must include create: " + mix);
+        }
+
+        return results;
+    }
+
+    private static Map<Operation, LongAdder> newCounters() {
+        var results = new EnumMap<Operation, LongAdder>(Operation.class);
+        for (var operation : Operation.values()) {
+            results.put(operation, new LongAdder());
+        }
+        return results;
+    }
+
+    private static long sum(final Map<Operation, LongAdder> counters) {
+        return counters.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(final String name) {
+        return runnable -> {
+            var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
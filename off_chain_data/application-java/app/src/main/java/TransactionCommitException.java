@@ -0,0 +1,31 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.hyperledger.fabric.client.Status;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+/**
+ * Thrown when a transaction submitted asynchronously fails to commit successfully.
+ */
+public final class TransactionCommitException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Status status;
+
+    public TransactionCommitException(final Status status) {
+        super("Transaction " + status.getTransactionId() + " failed to commit with status code " + status.getCode().getNumber()
+                + " (" + status.getCode().name() + ")");
+        this.status = status;
+    }
+
+    public String getTransactionId() {
+        return status.getTransactionId();
+    }
+
+    public TxValidationCode getCode() {
+        return status.getCode();
+    }
+}
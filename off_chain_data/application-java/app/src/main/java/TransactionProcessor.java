@@ -7,60 +7,61 @@
 import com.google.protobuf.InvalidProtocolBufferException;
 import parser.Transaction;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 public final class TransactionProcessor {
-    // Typically we should ignore read/write sets that apply to system chaincode namespaces.
-    private static final Set<String> SYSTEM_CHAINCODE_NAMES = Set.of(
-            "_lifecycle",
-            "cscc",
-            "escc",
-            "lscc",
-            "qscc",
-            "vscc"
-    );
-
     private final long blockNumber;
     private final Transaction transaction;
-    private final Store store;
+    private final AsyncStore store;
+    private final WriteFilter filter;
 
-    public TransactionProcessor(final Transaction transaction, final long blockNumber, final Store store) {
+    public TransactionProcessor(final Transaction transaction, final long blockNumber, final AsyncStore store, final WriteFilter filter) {
         this.blockNumber = blockNumber;
         this.transaction = transaction;
         this.store = store;
+        this.filter = filter;
     }
 
-    private static boolean isSystemChaincode(final String chaincodeName) {
-        return SYSTEM_CHAINCODE_NAMES.contains(chaincodeName);
-    }
-
-    public void process() throws IOException {
+    /**
+     * Begin storing the transaction's writes.
+     * @return Completes when the writes have been stored.
+     * @throws InvalidProtocolBufferException if the transaction content is not valid.
+     */
+    public CompletionStage<Void> process() throws InvalidProtocolBufferException {
         var transactionId = transaction.getChannelHeader().getTxId();
 
-        var writes = getWrites();
+        var writes = getWrites(transaction, filter);
         if (writes.isEmpty()) {
-            System.out.println("Skipping read-only or system transaction " + transactionId);
-            return;
+            System.out.println("Skipping read-only, system or filtered transaction " + transactionId);
+            return CompletableFuture.completedFuture(null);
         }
 
         System.out.println("Process transaction " + transactionId);
-        store.store(blockNumber, transactionId, writes);
+        return store.store(blockNumber, transactionId, writes);
     }
 
-    private List<Write> getWrites() throws InvalidProtocolBufferException {
+    /**
+     * Ledger writes made by a transaction that should be stored.
+     * @param transaction A transaction.
+     * @param filter Filter applied to namespaces and keys.
+     * @return Ledger writes, in the order they appear in the transaction.
+     * @throws InvalidProtocolBufferException if the transaction content is not valid.
+     */
+    public static List<Write> getWrites(final Transaction transaction, final WriteFilter filter) throws InvalidProtocolBufferException {
         var channelName = transaction.getChannelHeader().getChannelId();
 
         var writes = new ArrayList<Write>();
         for (var readWriteSet : transaction.getNamespaceReadWriteSets()) {
             var namespace = readWriteSet.getNamespace();
-            if (isSystemChaincode(namespace)) {
+            if (!filter.includesNamespace(namespace)) {
                 continue;
             }
 
             readWriteSet.getReadWriteSet().getWritesList().stream()
+                    .filter(write -> filter.includesKey(write.getKey()))
                     .map(write -> new Write(channelName, namespace, write))
                     .forEach(writes::add);
         }
@@ -4,26 +4,34 @@
  * SPDX-License-Identifier: Apache-2.0
  */
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.protobuf.ByteString;
 import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
 
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 
 /**
- * Description of a ledger write that can be applied to an off-chain data store.
+ * Description of a ledger write that can be applied to an off-chain data store. The value is held as the original
+ * protobuf bytes, without copying or character decoding. It is rendered as a string only when serialized to JSON.
  */
+@JsonAdapter(WriteTypeAdapter.class)
 public final class Write {
     private final String channelName;
     private final String namespace;
     private final String key;
     private final boolean isDelete;
-    private final String value; // Store as String for readability when serialized to JSON.
+    private final ByteString value;
 
     public Write(final String channelName, final String namespace, final KVWrite write) {
+        this(channelName, namespace, write.getKey(), write.getIsDelete(), write.getValue());
+    }
+
+    public Write(final String channelName, final String namespace, final String key, final boolean isDelete, final ByteString value) {
         this.channelName = channelName;
         this.namespace = namespace;
-        this.key = write.getKey();
-        this.isDelete = write.getIsDelete();
-        this.value = write.getValue().toString(StandardCharsets.UTF_8);
+        this.key = key;
+        this.isDelete = isDelete;
+        this.value = value;
     }
 
     /**
@@ -59,10 +67,27 @@ public final class Write {
     }
 
     /**
-     * If {@link #isDelete()}` is {@code false}, the value written to the key; otherwise ignored.
+     * If {@link #isDelete()}` is {@code false}, the value written to the key; otherwise ignored. This returns a copy of
+     * the value, so {@link #getValueBytes()} or {@link #getValueBuffer()} should be preferred.
      * @return A ledger value.
      */
     public byte[] getValue() {
-        return value.getBytes(StandardCharsets.UTF_8);
+        return value.toByteArray();
+    }
+
+    /**
+     * If {@link #isDelete()}` is {@code false}, the value written to the key; otherwise ignored.
+     * @return A ledger value, without copying.
+     */
+    public ByteString getValueBytes() {
+        return value;
+    }
+
+    /**
+     * If {@link #isDelete()}` is {@code false}, the value written to the key; otherwise ignored.
+     * @return A read-only buffer containing the ledger value, without copying.
+     */
+    public ByteBuffer getValueBuffer() {
+        return value.asReadOnlyByteBuffer();
     }
 }
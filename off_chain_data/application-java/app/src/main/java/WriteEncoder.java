@@ -0,0 +1,277 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streaming encoder that writes ledger writes as JSON lines directly into a reusable direct buffer, ready to be
+ * written to a file channel. The output is identical to that of the {@link WriteTypeAdapter} used by a default
+ * {@link com.google.gson.Gson} instance, including its HTML-safe escaping, but no intermediate strings or character
+ * encoding steps are involved. Ledger values, which are typically UTF-8 JSON, are copied byte for byte apart from any
+ * characters that require escaping.
+ *
+ * <p>Encoded data accumulates in the buffer until it is discarded. Instances are not thread-safe.
+ */
+final class WriteEncoder {
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+    // Largest number of bytes used to encode a single char or byte of input, as a six byte unicode escape.
+    private static final int MAX_ENCODED_SIZE = 6;
+    private static final int ASCII_LIMIT = 0x80;
+    private static final int TWO_BYTE_LIMIT = 0x800;
+    private static final byte UTF8_LINE_SEPARATOR_0 = (byte) 0xE2;
+    private static final byte UTF8_LINE_SEPARATOR_1 = (byte) 0x80;
+    private static final byte UTF8_LINE_SEPARATOR = (byte) 0xA8;
+    private static final byte UTF8_PARAGRAPH_SEPARATOR = (byte) 0xA9;
+    private static final char LINE_SEPARATOR = '\u2028';
+    private static final char PARAGRAPH_SEPARATOR = '\u2029';
+    private static final int CONTINUATION_BITS = 6;
+    private static final int CONTINUATION_MASK = 0x3F;
+    private static final int CONTINUATION_PREFIX = 0x80;
+    private static final int TWO_BYTE_PREFIX = 0xC0;
+    private static final int THREE_BYTE_PREFIX = 0xE0;
+    private static final int FOUR_BYTE_PREFIX = 0xF0;
+
+    private static final byte[] CHANNEL_NAME = ascii("{\"channelName\":");
+    private static final byte[] NAMESPACE = ascii(",\"namespace\":");
+    private static final byte[] KEY = ascii(",\"key\":");
+    private static final byte[] IS_DELETE_TRUE = ascii(",\"isDelete\":true");
+    private static final byte[] IS_DELETE_FALSE = ascii(",\"isDelete\":false");
+    private static final byte[] VALUE = ascii(",\"value\":");
+    private static final byte[] END = ascii("}\n");
+    private static final byte[] LINE_SEPARATOR_ESCAPE = ascii("\\u2028");
+    private static final byte[] PARAGRAPH_SEPARATOR_ESCAPE = ascii("\\u2029");
+    // Escape sequence for each ASCII character that must be escaped, or null if the character is written as is.
+    private static final byte[][] ASCII_ESCAPES = newAsciiEscapes();
+
+    private ByteBuffer buffer;
+
+    WriteEncoder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    WriteEncoder(final int initialCapacity) {
+        buffer = ByteBuffer.allocateDirect(initialCapacity);
+    }
+
+    /**
+     * Append ledger writes to the buffer, one JSON line per write.
+     * @param writes Ledger writes.
+     */
+    public void encode(final List<Write> writes) {
+        for (var write : writes) {
+            encode(write);
+        }
+    }
+
+    /**
+     * Append a ledger write to the buffer as a JSON line.
+     * @param write A ledger write.
+     */
+    public void encode(final Write write) {
+        putStructure(CHANNEL_NAME);
+        putString(write.getChannelName());
+        putStructure(NAMESPACE);
+        putString(write.getNamespace());
+        putStructure(KEY);
+        putString(write.getKey());
+        putStructure(write.isDelete() ? IS_DELETE_TRUE : IS_DELETE_FALSE);
+        putStructure(VALUE);
+        putValue(write.getValueBytes());
+        putStructure(END);
+    }
+
+    /**
+     * Number of encoded bytes held in the buffer.
+     * @return A byte count.
+     */
+    public int size() {
+        return buffer.position();
+    }
+
+    /**
+     * View of the first encoded bytes in the buffer, positioned to be written to a channel. The view is only valid until
+     * the encoder is next used.
+     * @param length Number of bytes.
+     * @return Encoded data.
+     */
+    public ByteBuffer getEncoded(final int length) {
+        var result = buffer.duplicate();
+        result.flip();
+        result.limit(length);
+        return result;
+    }
+
+    /**
+     * Discard the first encoded bytes in the buffer, retaining any that follow.
+     * @param length Number of bytes.
+     */
+    public void discard(final int length) {
+        buffer.flip();
+        buffer.position(length);
+        buffer.compact();
+    }
+
+    /**
+     * Discard all encoded bytes.
+     */
+    public void clear() {
+        buffer.clear();
+    }
+
+    private void ensureRemaining(final int length) {
+        if (buffer.remaining() >= length) {
+            return;
+        }
+
+        var capacity = Math.max(buffer.capacity() * 2, buffer.position() + length);
+        var newBuffer = ByteBuffer.allocateDirect(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+    }
+
+    // Strings and values only reserve the space they need, so space is reserved separately for each part of the structure.
+    private void putStructure(final byte[] bytes) {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void putString(final String value) {
+        ensureRemaining(value.length() * MAX_ENCODED_SIZE + 2);
+        buffer.put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c < ASCII_LIMIT) {
+                putAscii(c);
+            } else if (c == LINE_SEPARATOR) {
+                buffer.put(LINE_SEPARATOR_ESCAPE);
+            } else if (c == PARAGRAPH_SEPARATOR) {
+                buffer.put(PARAGRAPH_SEPARATOR_ESCAPE);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                putCodePoint(Character.toCodePoint(c, value.charAt(++i)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?'); // Matches the replacement used by the UTF-8 charset encoder
+            } else {
+                putCodePoint(c);
+            }
+        }
+        buffer.put((byte) '"');
+    }
+
+    // Values that are valid UTF-8 are copied directly, in runs between any bytes that need escaping. Other values are
+    // decoded with replacement characters, as when rendered as a string.
+    private void putValue(final ByteString value) {
+        if (!value.isValidUtf8()) {
+            putString(value.toStringUtf8());
+            return;
+        }
+
+        ensureRemaining(value.size() * MAX_ENCODED_SIZE + 2);
+        buffer.put((byte) '"');
+
+        var source = value.asReadOnlyByteBuffer();
+        var runStart = source.position();
+        var end = source.limit();
+        for (int i = runStart; i < end; i++) {
+            var b = source.get(i);
+            var escape = b >= 0 ? ASCII_ESCAPES[b] : getSeparatorEscape(source, i, end);
+            if (escape != null) {
+                putRun(source, runStart, i);
+                buffer.put(escape);
+                if (b < 0) {
+                    i += 2; // Skip the remainder of the three byte separator character
+                }
+                runStart = i + 1;
+            }
+        }
+        putRun(source, runStart, end);
+
+        buffer.put((byte) '"');
+    }
+
+    private void putRun(final ByteBuffer source, final int start, final int end) {
+        if (start < end) {
+            var run = source.duplicate();
+            run.position(start);
+            run.limit(end);
+            buffer.put(run);
+        }
+    }
+
+    // Line and paragraph separators are escaped, as they are not valid in JavaScript string literals.
+    private static byte[] getSeparatorEscape(final ByteBuffer source, final int index, final int end) {
+        if (index + 2 >= end || source.get(index) != UTF8_LINE_SEPARATOR_0 || source.get(index + 1) != UTF8_LINE_SEPARATOR_1) {
+            return null;
+        }
+
+        var last = source.get(index + 2);
+        if (last == UTF8_LINE_SEPARATOR) {
+            return LINE_SEPARATOR_ESCAPE;
+        }
+        if (last == UTF8_PARAGRAPH_SEPARATOR) {
+            return PARAGRAPH_SEPARATOR_ESCAPE;
+        }
+        return null;
+    }
+
+    private void putAscii(final char c) {
+        var escape = ASCII_ESCAPES[c];
+        if (escape != null) {
+            buffer.put(escape);
+        } else {
+            buffer.put((byte) c);
+        }
+    }
+
+    private void putCodePoint(final int codePoint) {
+        if (codePoint < TWO_BYTE_LIMIT) {
+            buffer.put((byte) (TWO_BYTE_PREFIX | codePoint >>> CONTINUATION_BITS));
+        } else if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            buffer.put((byte) (THREE_BYTE_PREFIX | codePoint >>> 2 * CONTINUATION_BITS));
+            putContinuation(codePoint >>> CONTINUATION_BITS);
+        } else {
+            buffer.put((byte) (FOUR_BYTE_PREFIX | codePoint >>> 3 * CONTINUATION_BITS)); // checkstyle:ignore-line:MagicNumber
+            putContinuation(codePoint >>> 2 * CONTINUATION_BITS);
+            putContinuation(codePoint >>> CONTINUATION_BITS);
+        }
+        putContinuation(codePoint);
+    }
+
+    private void putContinuation(final int bits) {
+        buffer.put((byte) (CONTINUATION_PREFIX | bits & CONTINUATION_MASK));
+    }
+
+    // Escapes used by Gson's JsonWriter with HTML-safe output, which is the Gson default.
+    private static byte[][] newAsciiEscapes() {
+        var escapes = new byte[ASCII_LIMIT][];
+        for (int c = 0; c < ' '; c++) {
+            escapes[c] = unicodeEscape(c);
+        }
+        escapes['"'] = ascii("\\\"");
+        escapes['\\'] = ascii("\\\\");
+        escapes['\t'] = ascii("\\t");
+        escapes['\b'] = ascii("\\b");
+        escapes['\n'] = ascii("\\n");
+        escapes['\r'] = ascii("\\r");
+        escapes['\f'] = ascii("\\f");
+        for (var c : "<>&='".toCharArray()) {
+            escapes[c] = unicodeEscape(c);
+        }
+        return escapes;
+    }
+
+    private static byte[] unicodeEscape(final int c) {
+        return ascii(String.format("\\u%04x", c));
+    }
+
+    private static byte[] ascii(final String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Selects the ledger writes to be applied to the off-chain data store. Filtering is configured before any blocks are
+ * received so that read/write sets for namespaces that are not of interest are never decoded.
+ */
+public final class WriteFilter {
+    // Typically we should ignore read/write sets that apply to system chaincode namespaces.
+    private static final Set<String> SYSTEM_CHAINCODE_NAMES = Set.of(
+            "_lifecycle",
+            "cscc",
+            "escc",
+            "lscc",
+            "qscc",
+            "vscc"
+    );
+
+    private final Set<String> namespaces;
+    private final List<String> keyPrefixes;
+
+    /**
+     * Create a write filter.
+     * @param namespaces Namespaces to include. If empty, all non-system chaincode namespaces are included.
+     * @param keyPrefixes Key prefixes to include. If empty, all keys are included.
+     */
+    public WriteFilter(final Set<String> namespaces, final List<String> keyPrefixes) {
+        this.namespaces = Set.copyOf(namespaces);
+        this.keyPrefixes = List.copyOf(keyPrefixes);
+    }
+
+    /**
+     * Create a write filter from comma-separated lists of values.
+     * @param namespaces Namespaces to include, or an empty string to include all non-system chaincode namespaces.
+     * @param keyPrefixes Key prefixes to include, or an empty string to include all keys.
+     * @return A write filter.
+     */
+    public static WriteFilter parse(final String namespaces, final String keyPrefixes) {
+        return new WriteFilter(Set.copyOf(splitList(namespaces)), splitList(keyPrefixes));
+    }
+
+    private static List<String> splitList(final String values) {
+        return Arrays.stream(values.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    public boolean includesNamespace(final String namespace) {
+        if (namespaces.isEmpty()) {
+            return !SYSTEM_CHAINCODE_NAMES.contains(namespace);
+        }
+
+        return namespaces.contains(namespace);
+    }
+
+    public boolean includesKey(final String key) {
+        return keyPrefixes.isEmpty() || keyPrefixes.stream().anyMatch(key::startsWith);
+    }
+
+    @Override
+    public String toString() {
+        return "namespaces=" + (namespaces.isEmpty() ? "<all>" : namespaces)
+                + ", keyPrefixes=" + (keyPrefixes.isEmpty() ? "<all>" : keyPrefixes);
+    }
+}
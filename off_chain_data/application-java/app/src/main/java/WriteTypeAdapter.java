@@ -0,0 +1,71 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.protobuf.ByteString;
+
+import java.io.IOException;
+
+/**
+ * JSON representation of a {@link Write}, used for human-readable store output. The value is rendered as a UTF-8
+ * string only at the point it is serialized.
+ */
+final class WriteTypeAdapter extends TypeAdapter<Write> {
+    private static final String CHANNEL_NAME = "channelName";
+    private static final String NAMESPACE = "namespace";
+    private static final String KEY = "key";
+    private static final String IS_DELETE = "isDelete";
+    private static final String VALUE = "value";
+
+    @Override
+    public void write(final JsonWriter out, final Write write) throws IOException {
+        out.beginObject();
+        out.name(CHANNEL_NAME).value(write.getChannelName());
+        out.name(NAMESPACE).value(write.getNamespace());
+        out.name(KEY).value(write.getKey());
+        out.name(IS_DELETE).value(write.isDelete());
+        out.name(VALUE).value(write.getValueBytes().toStringUtf8());
+        out.endObject();
+    }
+
+    @Override
+    public Write read(final JsonReader in) throws IOException {
+        String channelName = null;
+        String namespace = null;
+        String key = null;
+        boolean isDelete = false;
+        var value = ByteString.EMPTY;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case CHANNEL_NAME:
+                    channelName = in.nextString();
+                    break;
+                case NAMESPACE:
+                    namespace = in.nextString();
+                    break;
+                case KEY:
+                    key = in.nextString();
+                    break;
+                case IS_DELETE:
+                    isDelete = in.nextBoolean();
+                    break;
+                case VALUE:
+                    value = ByteString.copyFromUtf8(in.nextString());
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return new Write(channelName, namespace, key, isDelete, value);
+    }
+}
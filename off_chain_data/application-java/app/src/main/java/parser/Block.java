@@ -13,5 +13,14 @@ import java.util.List;
 public interface Block {
     long getNumber();
     List<Transaction> getTransactions() throws InvalidProtocolBufferException;
+
+    /**
+     * Get the transactions at or after a given position within the block. Envelopes before that position are not
+     * decoded unless the block's transactions have already been parsed.
+     * @param index Position of the first envelope within the block data.
+     * @return Transactions in block order.
+     * @throws InvalidProtocolBufferException if the block content is not valid.
+     */
+    List<Transaction> getTransactionsFrom(int index) throws InvalidProtocolBufferException;
     org.hyperledger.fabric.protos.common.Block toProto();
 }
@@ -6,10 +6,51 @@
 
 package parser;
 
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+
 public final class BlockParser {
     public static Block parseBlock(final org.hyperledger.fabric.protos.common.Block block) {
         return new ParsedBlock(block);
     }
 
+    /**
+     * Parse a block, decoding the envelopes of large blocks in parallel. Transaction order is preserved.
+     * @param block A block protobuf.
+     * @param decodeExecutor Executor used to decode individual transaction envelopes.
+     * @return A parsed block.
+     */
+    public static Block parseBlock(final org.hyperledger.fabric.protos.common.Block block, final Executor decodeExecutor) {
+        return parseBlock(block, decodeExecutor, namespace -> true);
+    }
+
+    /**
+     * Parse a block, decoding the envelopes of large blocks in parallel. Transaction order is preserved. Only the
+     * read/write sets of selected namespaces are decoded in advance. Others are decoded only if accessed.
+     * @param block A block protobuf.
+     * @param decodeExecutor Executor used to decode individual transaction envelopes.
+     * @param namespaceFilter Namespaces whose read/write sets should be decoded.
+     * @return A parsed block.
+     */
+    public static Block parseBlock(final org.hyperledger.fabric.protos.common.Block block, final Executor decodeExecutor,
+                                   final Predicate<String> namespaceFilter) {
+        return new ParsedBlock(block, decodeExecutor, namespaceFilter, false);
+    }
+
+    /**
+     * Parse a block, decoding only the content used to replicate ledger updates: channel headers, validation codes and
+     * namespace writes. Endorsements, signatures and read sets are skipped without being materialized, and namespace
+     * read/write sets contain only writes. Other transaction content is parsed only if accessed.
+     * @param block A block protobuf.
+     * @param decodeExecutor Executor used to decode individual transaction envelopes, or null to decode on the calling
+     *                       thread.
+     * @param namespaceFilter Namespaces whose writes should be decoded in advance.
+     * @return A parsed block.
+     */
+    public static Block parseBlockLean(final org.hyperledger.fabric.protos.common.Block block, final Executor decodeExecutor,
+                                       final Predicate<String> namespaceFilter) {
+        return new ParsedBlock(block, decodeExecutor, namespaceFilter, true);
+    }
+
     private BlockParser() { }
 }
@@ -0,0 +1,23 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.util.function.Predicate;
+
+/**
+ * Transaction whose content can be parsed ahead of use, such as on a thread other than the one that processes it.
+ */
+public interface DecodedTransaction extends Transaction {
+    /**
+     * Eagerly parse the transaction content that is otherwise parsed lazily on first access.
+     * @param namespaceFilter Namespaces whose read/write sets should be parsed.
+     * @throws InvalidProtocolBufferException if the transaction content is not valid.
+     */
+    void decode(Predicate<String> namespaceFilter) throws InvalidProtocolBufferException;
+}
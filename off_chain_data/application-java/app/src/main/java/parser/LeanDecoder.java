@@ -0,0 +1,107 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts individual fields from encoded protobuf messages without parsing the whole message. Other fields are skipped
+ * without being copied or materialized. Extracted bytes share the storage of the encoded message.
+ */
+final class LeanDecoder {
+    private static final int TAG_TYPE_BITS = 3;
+
+    /**
+     * Get a length-delimited field (bytes, string or embedded message). As with normal protobuf parsing, the last value
+     * wins if the field appears more than once.
+     * @param message Encoded message.
+     * @param fieldNumber Field number.
+     * @return Field content, or empty if the field is not present.
+     * @throws InvalidProtocolBufferException if the message is not valid.
+     */
+    static ByteString getBytes(final ByteString message, final int fieldNumber) throws InvalidProtocolBufferException {
+        var results = getRepeatedBytes(message, fieldNumber);
+        return results.isEmpty() ? ByteString.EMPTY : results.get(results.size() - 1);
+    }
+
+    /**
+     * Get all values of a repeated length-delimited field, in order.
+     * @param message Encoded message.
+     * @param fieldNumber Field number.
+     * @return Field values.
+     * @throws InvalidProtocolBufferException if the message is not valid.
+     */
+    static List<ByteString> getRepeatedBytes(final ByteString message, final int fieldNumber) throws InvalidProtocolBufferException {
+        var results = new ArrayList<ByteString>(1);
+        var fieldTag = tag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        forEachField(message, (tag, input) -> {
+            if (tag != fieldTag) {
+                return false;
+            }
+            results.add(input.readBytes());
+            return true;
+        });
+
+        return results;
+    }
+
+    /**
+     * Get a varint field, such as an integer or enum value.
+     * @param message Encoded message.
+     * @param fieldNumber Field number.
+     * @return Field value, or zero if the field is not present.
+     * @throws InvalidProtocolBufferException if the message is not valid.
+     */
+    static int getInt(final ByteString message, final int fieldNumber) throws InvalidProtocolBufferException {
+        var result = new int[1];
+        var fieldTag = tag(fieldNumber, WireFormat.WIRETYPE_VARINT);
+        forEachField(message, (tag, input) -> {
+            if (tag != fieldTag) {
+                return false;
+            }
+            result[0] = input.readInt32();
+            return true;
+        });
+
+        return result[0];
+    }
+
+    // Pass each field to the reader, skipping any field that the reader does not consume.
+    private static void forEachField(final ByteString message, final FieldReader reader) throws InvalidProtocolBufferException {
+        var input = message.newCodedInput();
+        input.enableAliasing(true);
+        try {
+            for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+                if (!reader.read(tag, input)) {
+                    input.skipField(tag);
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new InvalidProtocolBufferException(e);
+        }
+    }
+
+    private static int tag(final int fieldNumber, final int wireType) {
+        return fieldNumber << TAG_TYPE_BITS | wireType;
+    }
+
+    @FunctionalInterface
+    private interface FieldReader {
+        boolean read(int tag, CodedInputStream input) throws IOException;
+    }
+
+    private LeanDecoder() { }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.ledger.rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Namespace read/write set decoded by {@link LeanTransaction}. Only the writes are decoded, so the read/write set does
+ * not include reads, range query information or metadata writes. Private data collection hashes are skipped.
+ */
+final class LeanReadWriteSet implements NamespaceReadWriteSet {
+    private static final int NAMESPACE = 1;
+    private static final int RWSET = 2;
+    private static final int KVRWSET_WRITES = 3;
+
+    private final ByteString readWriteSet;
+    private final String namespace;
+    private final ByteString rwset;
+    private final AtomicReference<KVRWSet> cachedReadWriteSet = new AtomicReference<>();
+
+    static LeanReadWriteSet decode(final ByteString readWriteSet) throws InvalidProtocolBufferException {
+        var namespace = LeanDecoder.getBytes(readWriteSet, NAMESPACE).toStringUtf8();
+        var rwset = LeanDecoder.getBytes(readWriteSet, RWSET);
+        return new LeanReadWriteSet(readWriteSet, namespace, rwset);
+    }
+
+    private LeanReadWriteSet(final ByteString readWriteSet, final String namespace, final ByteString rwset) {
+        this.readWriteSet = readWriteSet;
+        this.namespace = namespace;
+        this.rwset = rwset;
+    }
+
+    @Override
+    public String getNamespace() {
+        return namespace;
+    }
+
+    @Override
+    public KVRWSet getReadWriteSet() throws InvalidProtocolBufferException {
+        return Utils.getCachedProto(cachedReadWriteSet, this::decodeWrites);
+    }
+
+    @Override
+    public NsReadWriteSet toProto() {
+        try {
+            return NsReadWriteSet.parseFrom(readWriteSet);
+        } catch (InvalidProtocolBufferException e) {
+            // The namespace and read/write set were already decoded successfully, so this is not expected to fail.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private KVRWSet decodeWrites() throws InvalidProtocolBufferException {
+        var result = KVRWSet.newBuilder();
+        for (var write : LeanDecoder.getRepeatedBytes(rwset, KVRWSET_WRITES)) {
+            result.addWrites(KVWrite.parseFrom(write));
+        }
+
+        return result.build();
+    }
+}
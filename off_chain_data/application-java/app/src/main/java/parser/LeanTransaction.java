@@ -0,0 +1,155 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.client.identity.Identity;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.HeaderType;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.hyperledger.fabric.protos.common.SignatureHeader;
+import org.hyperledger.fabric.protos.ledger.rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+
+/**
+ * Transaction decoded by extracting only the channel header and namespace read/write sets from the encoded envelope.
+ * Endorsements, signatures, proposal payloads and chaincode events are skipped without being materialized. Content
+ * not needed for off-chain data, such as the creator and the payload protobuf, is parsed only if accessed.
+ */
+final class LeanTransaction implements DecodedTransaction {
+    // Field numbers of the messages on the path from an envelope to its read/write sets.
+    private static final int ENVELOPE_PAYLOAD = 1;
+    private static final int PAYLOAD_HEADER = 1;
+    private static final int PAYLOAD_DATA = 2;
+    private static final int HEADER_CHANNEL_HEADER = 1;
+    private static final int HEADER_SIGNATURE_HEADER = 2;
+    private static final int TRANSACTION_ACTIONS = 1;
+    private static final int TRANSACTION_ACTION_PAYLOAD = 2;
+    private static final int CHAINCODE_ACTION_PAYLOAD_ACTION = 2;
+    private static final int ENDORSED_ACTION_PROPOSAL_RESPONSE_PAYLOAD = 1;
+    private static final int PROPOSAL_RESPONSE_PAYLOAD_EXTENSION = 2;
+    private static final int CHAINCODE_ACTION_RESULTS = 1;
+    private static final int TX_READ_WRITE_SET_DATA_MODEL = 1;
+    private static final int TX_READ_WRITE_SET_NS_RWSET = 2;
+
+    private final ByteString payload;
+    private final ByteString header;
+    private final ChannelHeader channelHeader;
+    private final TxValidationCode statusCode;
+    private final int index;
+    private final AtomicReference<List<NamespaceReadWriteSet>> cachedNamespaceReadWriteSets = new AtomicReference<>();
+    private final AtomicReference<Payload> cachedPayload = new AtomicReference<>();
+
+    /**
+     * Decode the headers of an envelope.
+     * @param index Position of the envelope within the block data.
+     * @param envelope Encoded envelope.
+     * @param statusCode Transaction validation code.
+     * @return A transaction, or null if the envelope does not contain an endorser transaction.
+     * @throws InvalidProtocolBufferException if the envelope is not valid.
+     */
+    static LeanTransaction decode(final int index, final ByteString envelope, final TxValidationCode statusCode)
+            throws InvalidProtocolBufferException {
+        var payload = LeanDecoder.getBytes(envelope, ENVELOPE_PAYLOAD);
+        var header = LeanDecoder.getBytes(payload, PAYLOAD_HEADER);
+        var channelHeader = ChannelHeader.parseFrom(LeanDecoder.getBytes(header, HEADER_CHANNEL_HEADER));
+        if (channelHeader.getType() != HeaderType.ENDORSER_TRANSACTION_VALUE) {
+            return null;
+        }
+
+        return new LeanTransaction(payload, header, channelHeader, statusCode, index);
+    }
+
+    private LeanTransaction(final ByteString payload, final ByteString header, final ChannelHeader channelHeader,
+                            final TxValidationCode statusCode, final int index) {
+        this.payload = payload;
+        this.header = header;
+        this.channelHeader = channelHeader;
+        this.statusCode = statusCode;
+        this.index = index;
+    }
+
+    @Override
+    public ChannelHeader getChannelHeader() {
+        return channelHeader;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public Identity getCreator() throws InvalidProtocolBufferException {
+        var signatureHeader = SignatureHeader.parseFrom(LeanDecoder.getBytes(header, HEADER_SIGNATURE_HEADER));
+        return Utils.newIdentity(SerializedIdentity.parseFrom(signatureHeader.getCreator()));
+    }
+
+    @Override
+    public TxValidationCode getValidationCode() {
+        return statusCode;
+    }
+
+    @Override
+    public boolean isValid() {
+        return statusCode == TxValidationCode.VALID;
+    }
+
+    @Override
+    public List<NamespaceReadWriteSet> getNamespaceReadWriteSets() throws InvalidProtocolBufferException {
+        return Utils.getCachedProto(cachedNamespaceReadWriteSets, this::decodeReadWriteSets);
+    }
+
+    @Override
+    public Payload toProto() {
+        try {
+            return Utils.getCachedProto(cachedPayload, () -> Payload.parseFrom(payload));
+        } catch (InvalidProtocolBufferException e) {
+            // The envelope headers were already decoded successfully, so the payload is not expected to be invalid.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void decode(final Predicate<String> namespaceFilter) throws InvalidProtocolBufferException {
+        for (var readWriteSet : getNamespaceReadWriteSets()) {
+            if (namespaceFilter.test(readWriteSet.getNamespace())) {
+                readWriteSet.getReadWriteSet();
+            }
+        }
+    }
+
+    private List<NamespaceReadWriteSet> decodeReadWriteSets() throws InvalidProtocolBufferException {
+        var results = new ArrayList<NamespaceReadWriteSet>();
+        var transaction = LeanDecoder.getBytes(payload, PAYLOAD_DATA);
+        for (var action : LeanDecoder.getRepeatedBytes(transaction, TRANSACTION_ACTIONS)) {
+            var actionPayload = LeanDecoder.getBytes(action, TRANSACTION_ACTION_PAYLOAD);
+            var endorsedAction = LeanDecoder.getBytes(actionPayload, CHAINCODE_ACTION_PAYLOAD_ACTION);
+            var proposalResponsePayload = LeanDecoder.getBytes(endorsedAction, ENDORSED_ACTION_PROPOSAL_RESPONSE_PAYLOAD);
+            var chaincodeAction = LeanDecoder.getBytes(proposalResponsePayload, PROPOSAL_RESPONSE_PAYLOAD_EXTENSION);
+            var txReadWriteSet = LeanDecoder.getBytes(chaincodeAction, CHAINCODE_ACTION_RESULTS);
+
+            var dataModel = LeanDecoder.getInt(txReadWriteSet, TX_READ_WRITE_SET_DATA_MODEL);
+            if (dataModel != TxReadWriteSet.DataModel.KV_VALUE) {
+                throw new IllegalArgumentException("Unexpected read/write set data model: " + dataModel);
+            }
+
+            for (var namespaceReadWriteSet : LeanDecoder.getRepeatedBytes(txReadWriteSet, TX_READ_WRITE_SET_NS_RWSET)) {
+                results.add(LeanReadWriteSet.decode(namespaceReadWriteSet));
+            }
+        }
+
+        return results;
+    }
+}
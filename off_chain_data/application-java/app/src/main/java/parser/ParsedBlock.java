@@ -6,6 +6,7 @@
 
 package parser;
 
+import com.google.protobuf.ByteString;
 import com.google.protobuf.InvalidProtocolBufferException;
 import org.hyperledger.fabric.protos.common.BlockMetadataIndex;
 import org.hyperledger.fabric.protos.common.Envelope;
@@ -14,16 +15,40 @@ import org.hyperledger.fabric.protos.peer.TxValidationCode;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 class ParsedBlock implements Block {
+    // Smaller blocks are decoded on the calling thread since the cost of dispatching tasks outweighs any benefit.
+    static final int PARALLEL_DECODE_THRESHOLD = 16;
+
     private final org.hyperledger.fabric.protos.common.Block block;
+    private final Executor decodeExecutor;
+    private final Predicate<String> namespaceFilter;
+    private final boolean lean;
     private final AtomicReference<List<Transaction>> cachedTransactions = new AtomicReference<>();
 
     ParsedBlock(final org.hyperledger.fabric.protos.common.Block block) {
+        this(block, null, namespace -> true, false);
+    }
+
+    /**
+     * Create a parsed block.
+     * @param block A block protobuf.
+     * @param decodeExecutor Executor used to decode envelopes in parallel, or null to decode on the calling thread.
+     * @param namespaceFilter Namespaces whose read/write sets are decoded in advance.
+     * @param lean Whether to decode only the content needed for off-chain data, using {@link LeanTransaction}.
+     */
+    ParsedBlock(final org.hyperledger.fabric.protos.common.Block block, final Executor decodeExecutor, final Predicate<String> namespaceFilter,
+                final boolean lean) {
         this.block = block;
+        this.decodeExecutor = decodeExecutor;
+        this.namespaceFilter = namespaceFilter;
+        this.lean = lean;
     }
 
     @Override
@@ -33,20 +58,23 @@ class ParsedBlock implements Block {
 
     @Override
     public List<Transaction> getTransactions() throws InvalidProtocolBufferException {
-        return Utils.getCachedProto(cachedTransactions, () -> {
-            var validationCodes = getTransactionValidationCodes();
-            var payloads = getPayloads();
-
-            var transactions = new ArrayList<Transaction>();
-            for (int i = 0; i < payloads.size(); i++) {
-                var payload = new ParsedPayload(payloads.get(i), validationCodes.get(i));
-                if (payload.isEndorserTransaction()) {
-                    transactions.add(new ParsedTransaction(payload));
-                }
-            }
+        if (decodeExecutor != null && block.getData().getDataCount() >= PARALLEL_DECODE_THRESHOLD) {
+            return Utils.getCachedProto(cachedTransactions, this::decodeTransactionsInParallel);
+        }
+
+        return Utils.getCachedProto(cachedTransactions, () -> decodeTransactions(0));
+    }
 
-            return transactions;
-        });
+    @Override
+    public List<Transaction> getTransactionsFrom(final int index) throws InvalidProtocolBufferException {
+        var transactions = cachedTransactions.get();
+        if (transactions != null) {
+            return transactions.stream()
+                    .filter(transaction -> transaction.getIndex() >= index)
+                    .collect(Collectors.toList());
+        }
+
+        return decodeTransactions(index);
     }
 
     @Override
@@ -54,16 +82,64 @@ class ParsedBlock implements Block {
         return block;
     }
 
-    private List<Payload> getPayloads() throws InvalidProtocolBufferException {
-        var payloads = new ArrayList<Payload>();
+    private List<Transaction> decodeTransactions(final int startIndex) throws InvalidProtocolBufferException {
+        var validationCodes = getTransactionValidationCodes();
+        var envelopes = block.getData().getDataList();
+
+        var transactions = new ArrayList<Transaction>();
+        for (int i = startIndex; i < envelopes.size(); i++) {
+            var transaction = newTransaction(i, envelopes.get(i), validationCodes.get(i));
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        }
+
+        return transactions;
+    }
+
+    private List<Transaction> decodeTransactionsInParallel() throws InvalidProtocolBufferException {
+        var validationCodes = getTransactionValidationCodes();
+        var envelopes = block.getData().getDataList();
+
+        var futures = new ArrayList<CompletableFuture<DecodedTransaction>>(envelopes.size());
+        for (int i = 0; i < envelopes.size(); i++) {
+            var index = i;
+            var envelopeBytes = envelopes.get(i);
+            var validationCode = validationCodes.get(i);
+            futures.add(CompletableFuture.supplyAsync(Utils.asSupplier(() -> decodeTransaction(index, envelopeBytes, validationCode)), decodeExecutor));
+        }
+
+        // Collect results in block order. Any decode failure is rethrown as it would be when decoding sequentially.
+        var transactions = new ArrayList<Transaction>();
+        for (var future : futures) {
+            var transaction = Utils.join(future);
+            if (transaction != null) {
+                transactions.add(transaction);
+            }
+        }
+
+        return transactions;
+    }
+
+    private DecodedTransaction decodeTransaction(final int index, final ByteString envelopeBytes, final TxValidationCode validationCode)
+            throws InvalidProtocolBufferException {
+        var transaction = newTransaction(index, envelopeBytes, validationCode);
+        if (transaction != null) {
+            transaction.decode(namespaceFilter);
+        }
+
+        return transaction;
+    }
 
-        for (var envelopeBytes : block.getData().getDataList()) {
-            var envelope = Envelope.parseFrom(envelopeBytes);
-            var payload = Payload.parseFrom(envelope.getPayload());
-            payloads.add(payload);
+    private DecodedTransaction newTransaction(final int index, final ByteString envelopeBytes, final TxValidationCode validationCode)
+            throws InvalidProtocolBufferException {
+        if (lean) {
+            return LeanTransaction.decode(index, envelopeBytes, validationCode);
         }
 
-        return payloads;
+        var envelope = Envelope.parseFrom(envelopeBytes);
+        var payload = new ParsedPayload(Payload.parseFrom(envelope.getPayload()), validationCode);
+        return payload.isEndorserTransaction() ? new ParsedTransaction(payload, index) : null;
     }
 
     private List<TxValidationCode> getTransactionValidationCodes() {
@@ -16,14 +16,17 @@ import org.hyperledger.fabric.protos.peer.TxValidationCode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-final class ParsedTransaction implements Transaction {
+final class ParsedTransaction implements DecodedTransaction {
     private final ParsedPayload payload;
+    private final int index;
     private final AtomicReference<List<NamespaceReadWriteSet>> cachedNamespaceReadWriteSets = new AtomicReference<>();
 
-    ParsedTransaction(final ParsedPayload payload) {
+    ParsedTransaction(final ParsedPayload payload, final int index) {
         this.payload = payload;
+        this.index = index;
     }
 
     @Override
@@ -32,20 +35,13 @@ final class ParsedTransaction implements Transaction {
     }
 
     @Override
-    public Identity getCreator() throws InvalidProtocolBufferException {
-        var creator = SerializedIdentity.parseFrom(payload.getSignatureHeader().getCreator());
-
-        return new Identity() {
-            @Override
-            public String getMspId() {
-                return creator.getMspid();
-            }
+    public int getIndex() {
+        return index;
+    }
 
-            @Override
-            public byte[] getCredentials() {
-                return creator.getIdBytes().toByteArray();
-            }
-        };
+    @Override
+    public Identity getCreator() throws InvalidProtocolBufferException {
+        return Utils.newIdentity(SerializedIdentity.parseFrom(payload.getSignatureHeader().getCreator()));
     }
 
     @Override
@@ -68,6 +64,16 @@ final class ParsedTransaction implements Transaction {
         return payload.toProto();
     }
 
+    @Override
+    public void decode(final Predicate<String> namespaceFilter) throws InvalidProtocolBufferException {
+        getChannelHeader();
+        for (var readWriteSet : getNamespaceReadWriteSets()) {
+            if (namespaceFilter.test(readWriteSet.getNamespace())) {
+                readWriteSet.getReadWriteSet();
+            }
+        }
+    }
+
     private List<ParsedReadWriteSet> getReadWriteSets() throws InvalidProtocolBufferException {
         var results = new ArrayList<ParsedReadWriteSet>();
         for (var action : getTransactionActions()) {
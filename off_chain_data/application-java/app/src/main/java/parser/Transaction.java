@@ -16,6 +16,12 @@ import java.util.List;
 
 public interface Transaction {
     ChannelHeader getChannelHeader() throws InvalidProtocolBufferException;
+
+    /**
+     * Position of this transaction's envelope within the block data.
+     * @return An envelope index.
+     */
+    int getIndex();
     Identity getCreator() throws InvalidProtocolBufferException;
     TxValidationCode getValidationCode();
     boolean isValid();
@@ -7,8 +7,11 @@
 package parser;
 
 import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.client.identity.Identity;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -23,17 +26,23 @@ final class Utils {
         try {
             return cache.updateAndGet(current -> current != null ? current : asSupplier(call).get());
         } catch (CompletionException e) {
-            var cause = e.getCause();
-            if (cause instanceof InvalidProtocolBufferException) {
-                throw (InvalidProtocolBufferException) cause;
-            }
-            if (cause instanceof RuntimeException) {
-                throw (RuntimeException) cause;
-            }
-            if (cause instanceof Error) {
-                throw (Error) cause;
-            }
-            throw e;
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * Wait for the result of a call run asynchronously using {@link #asSupplier(Callable)}, rethrowing any failure as
+     * the call would have thrown it.
+     * @param future Result of the call.
+     * @param <T> Result type.
+     * @return The call result.
+     * @throws InvalidProtocolBufferException if the call failed to parse a protobuf.
+     */
+    public static <T> T join(final CompletableFuture<T> future) throws InvalidProtocolBufferException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
         }
     }
 
@@ -47,5 +56,34 @@ final class Utils {
         };
     }
 
+    // Rethrow the checked or unchecked failure wrapped by asSupplier, or return the exception itself if it has no such cause.
+    private static RuntimeException unwrap(final CompletionException e) throws InvalidProtocolBufferException {
+        var cause = e.getCause();
+        if (cause instanceof InvalidProtocolBufferException) {
+            throw (InvalidProtocolBufferException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+
+    public static Identity newIdentity(final SerializedIdentity identity) {
+        return new Identity() {
+            @Override
+            public String getMspId() {
+                return identity.getMspid();
+            }
+
+            @Override
+            public byte[] getCredentials() {
+                return identity.getIdBytes().toByteArray();
+            }
+        };
+    }
+
     private Utils() { }
 }
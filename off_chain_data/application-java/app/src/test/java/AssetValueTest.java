@@ -0,0 +1,78 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class AssetValueTest {
+    // Binary form of asset1 with no color, size 5, owner "Tom\u00e9" and appraised value -300.
+    private static byte[] binaryAsset() {
+        var out = new ByteArrayOutputStream();
+        out.write(0x01);
+        var id = "asset1".getBytes(StandardCharsets.UTF_8);
+        out.write(id.length + 1);
+        out.writeBytes(id);
+        out.write(0);
+        out.write(10);
+        var owner = "Tom\u00e9".getBytes(StandardCharsets.UTF_8);
+        out.write(owner.length + 1);
+        out.writeBytes(owner);
+        // Zigzag encoding of -300 is 599, written as a two byte varint.
+        out.write(0xD7);
+        out.write(0x04);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void decodesJson() {
+        var asset = AssetValue.decode(ByteString.copyFromUtf8(
+                "{\"ID\":\"asset1\",\"Color\":\"blue\",\"Size\":5,\"Owner\":\"Tomoko\",\"AppraisedValue\":300}"));
+
+        assertThat(asset.getId()).isEqualTo("asset1");
+        assertThat(asset.getColor()).isEqualTo("blue");
+        assertThat(asset.getSize()).isEqualTo(5);
+        assertThat(asset.getOwner()).isEqualTo("Tomoko");
+        assertThat(asset.getAppraisedValue()).isEqualTo(300);
+    }
+
+    @Test
+    public void decodesBinary() {
+        var asset = AssetValue.decode(ByteString.copyFrom(binaryAsset()));
+
+        assertThat(asset.getId()).isEqualTo("asset1");
+        assertThat(asset.getColor()).isNull();
+        assertThat(asset.getSize()).isEqualTo(5);
+        assertThat(asset.getOwner()).isEqualTo("Tom\u00e9");
+        assertThat(asset.getAppraisedValue()).isEqualTo(-300);
+    }
+
+    @Test
+    public void rejectsTruncatedBinary() {
+        var value = binaryAsset();
+        for (int length = 1; length < value.length; length++) {
+            var truncated = ByteString.copyFrom(Arrays.copyOf(value, length));
+            assertThatThrownBy(() -> AssetValue.decode(truncated))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Truncated asset value");
+        }
+    }
+
+    @Test
+    public void rejectsDataAfterBinary() {
+        var value = Arrays.copyOf(binaryAsset(), binaryAsset().length + 1);
+
+        assertThatThrownBy(() -> AssetValue.decode(ByteString.copyFrom(value)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unexpected data after asset value");
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.common.BlockHeader;
+import org.junit.jupiter.api.Test;
+import parser.Block;
+import parser.Transaction;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class BlockPipelineTest {
+    private static org.hyperledger.fabric.protos.common.Block blockProto(final long number) {
+        return org.hyperledger.fabric.protos.common.Block.newBuilder()
+                .setHeader(BlockHeader.newBuilder().setNumber(number))
+                .build();
+    }
+
+    private static Iterator<org.hyperledger.fabric.protos.common.Block> blockProtos(final long count) {
+        return LongStream.range(0, count)
+                .mapToObj(BlockPipelineTest::blockProto)
+                .iterator();
+    }
+
+    @Test
+    public void processesBlocksInOrder() throws InterruptedException {
+        var processed = new ArrayList<Long>();
+
+        new BlockPipeline(blockProtos(100), FakeBlock::new, namespace -> true, 3, block -> processed.add(block.getNumber())).run();
+
+        assertThat(processed).isEqualTo(LongStream.range(0, 100).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void throwsParseErrorAfterProcessingEarlierBlocks() {
+        var processed = new ArrayList<Long>();
+        var pipeline = new BlockPipeline(blockProtos(10), blockProto -> new FakeBlock(blockProto, blockProto.getHeader().getNumber() == 5),
+                namespace -> true, 2, block -> processed.add(block.getNumber()));
+
+        assertThatThrownBy(pipeline::run)
+                .isInstanceOf(UncheckedIOException.class)
+                .hasCauseInstanceOf(InvalidProtocolBufferException.class);
+        assertThat(processed).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    public void stopsParsingWhenProcessingFails() throws InterruptedException {
+        var parserThread = new AtomicReference<Thread>();
+        Iterator<org.hyperledger.fabric.protos.common.Block> endlessBlocks = new Iterator<>() {
+            private long number;
+
+            @Override
+            public boolean hasNext() {
+                parserThread.set(Thread.currentThread());
+                return true;
+            }
+
+            @Override
+            public org.hyperledger.fabric.protos.common.Block next() {
+                return blockProto(number++);
+            }
+        };
+        var pipeline = new BlockPipeline(endlessBlocks, FakeBlock::new, namespace -> true, 2, block -> {
+            if (block.getNumber() == 3) {
+                throw new IllegalStateException("Simulated failure");
+            }
+        });
+
+        assertThatThrownBy(pipeline::run).isInstanceOf(IllegalStateException.class).hasMessage("Simulated failure");
+
+        parserThread.get().join(10_000);
+        assertThat(parserThread.get().isAlive()).isFalse();
+    }
+
+    private static final class FakeBlock implements Block {
+        private final org.hyperledger.fabric.protos.common.Block block;
+        private final boolean isInvalid;
+
+        FakeBlock(final org.hyperledger.fabric.protos.common.Block block) {
+            this(block, false);
+        }
+
+        FakeBlock(final org.hyperledger.fabric.protos.common.Block block, final boolean isInvalid) {
+            this.block = block;
+            this.isInvalid = isInvalid;
+        }
+
+        @Override
+        public long getNumber() {
+            return block.getHeader().getNumber();
+        }
+
+        @Override
+        public List<Transaction> getTransactions() throws InvalidProtocolBufferException {
+            if (isInvalid) {
+                throw new InvalidProtocolBufferException("Simulated parse failure");
+            }
+            return List.of();
+        }
+
+        @Override
+        public List<Transaction> getTransactionsFrom(final int index) throws InvalidProtocolBufferException {
+            return getTransactions();
+        }
+
+        @Override
+        public org.hyperledger.fabric.protos.common.Block toProto() {
+            return block;
+        }
+    }
+}
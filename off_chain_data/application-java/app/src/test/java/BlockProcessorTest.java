@@ -0,0 +1,403 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import org.hyperledger.fabric.client.ChaincodeEvent;
+import org.hyperledger.fabric.client.Checkpointer;
+import org.hyperledger.fabric.client.identity.Identity;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.hyperledger.fabric.protos.ledger.rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import parser.Block;
+import parser.NamespaceReadWriteSet;
+import parser.Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class BlockProcessorTest {
+    private static final int SHARD_COUNT = 4;
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService shardExecutor = Executors.newFixedThreadPool(SHARD_COUNT);
+
+    @AfterEach
+    public void shutdown() {
+        shardExecutor.shutdownNow();
+    }
+
+    private static Write put(final String key) {
+        return new Write("channel", "basic", key, false, ByteString.copyFromUtf8(key));
+    }
+
+    // Transactions that each write a key of their own and one of a few keys shared with other transactions.
+    private static List<Transaction> sharedKeyTransactions(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> (Transaction) new FakeTransaction("t" + i, i, "own" + i, "shared" + i % 3))
+                .collect(Collectors.toList());
+    }
+
+    // Shard store that records each update as "shard <index> <transaction ID> <keys>".
+    private Store recordingShard(final int index) {
+        return (blockNumber, transactionId, writes) -> events.add("shard " + index + " " + transactionId + " "
+                + writes.stream().map(Write::getKey).collect(Collectors.joining(",")));
+    }
+
+    private ShardedStore recordingShardedStore() {
+        return new ShardedStore(IntStream.range(0, SHARD_COUNT).mapToObj(this::recordingShard).collect(Collectors.toList()));
+    }
+
+    private List<String> shardEvents(final int index) {
+        synchronized (events) {
+            return events.stream().filter(event -> event.startsWith("shard " + index + " ")).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void partitionsWritesByShardInOrder() {
+        var store = recordingShardedStore();
+        var writes = IntStream.range(0, 100).mapToObj(i -> put("key" + i % 10)).collect(Collectors.toList());
+
+        var partitions = store.partition(writes);
+
+        assertThat(partitions).hasSize(SHARD_COUNT);
+        assertThat(partitions.stream().mapToInt(List::size).sum()).isEqualTo(writes.size());
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            var shard = i;
+            var expected = writes.stream().filter(write -> store.shardOf(write) == shard).collect(Collectors.toList());
+            assertThat(partitions.get(i)).containsExactlyElementsOf(expected);
+        }
+        for (var write : writes) {
+            assertThat(store.shardOf(write)).isEqualTo(store.shardOf(put(write.getKey())));
+        }
+    }
+
+    @Test
+    public void appliesShardWritesInBlockOrder() {
+        var store = recordingShardedStore();
+        var transactions = sharedKeyTransactions(20);
+
+        new BlockProcessor(new FakeBlock(7, transactions), new RecordingCheckpointer(), store, WriteFilter.parse("", ""), shardExecutor)
+                .process();
+
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            var shard = i;
+            var expected = new ArrayList<String>();
+            for (var transaction : transactions) {
+                var keys = ((FakeTransaction) transaction).keys.stream()
+                        .filter(key -> store.shardOf(put(key)) == shard)
+                        .collect(Collectors.joining(","));
+                if (!keys.isEmpty()) {
+                    expected.add("shard " + shard + " " + ((FakeTransaction) transaction).transactionId + " " + keys);
+                }
+            }
+            assertThat(shardEvents(i)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void checkpointsBlockOnceAfterAllShardsAreUpdated() {
+        var shards = new ArrayList<Store>();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            var shard = recordingShard(i);
+            shards.add(i == 0 ? slow(shard) : shard);
+        }
+        var store = new ShardedStore(shards);
+
+        new BlockProcessor(new FakeBlock(7, sharedKeyTransactions(20)), new RecordingCheckpointer(), store, WriteFilter.parse("", ""),
+                shardExecutor).process();
+
+        var checkpoints = events.stream().filter(event -> event.startsWith("checkpoint")).collect(Collectors.toList());
+        assertThat(checkpoints).containsExactly("checkpoint block 7");
+        assertThat(events).last().isEqualTo("checkpoint block 7");
+        assertThat(shardEvents(0)).isNotEmpty();
+    }
+
+    @Test
+    public void doesNotCheckpointBlockWhenShardFails() {
+        var processor = newProcessorWithFailingShard((blockNumber, transactionId, writes) -> {
+            throw new IOException("Simulated shard failure");
+        });
+
+        assertThatThrownBy(processor::process)
+                .isInstanceOf(UncheckedIOException.class)
+                .hasRootCauseMessage("Simulated shard failure");
+        assertSlowShardCompletedWithoutCheckpoint();
+    }
+
+    @Test
+    public void waitsForAllShardsWhenShardFailsWithUncheckedException() {
+        var processor = newProcessorWithFailingShard((blockNumber, transactionId, writes) -> {
+            throw new IllegalStateException("Simulated shard failure");
+        });
+
+        assertThatThrownBy(processor::process)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Simulated shard failure");
+        assertSlowShardCompletedWithoutCheckpoint();
+    }
+
+    // Processor for a block whose writes to shard 0 fail, while shard 1 is slow to apply its writes.
+    private BlockProcessor newProcessorWithFailingShard(final Store failingShard) {
+        var shards = new ArrayList<Store>();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards.add(recordingShard(i));
+        }
+        shards.set(0, failingShard);
+        shards.set(1, slow(shards.get(1)));
+
+        return new BlockProcessor(new FakeBlock(7, sharedKeyTransactions(20)), new RecordingCheckpointer(), new ShardedStore(shards),
+                WriteFilter.parse("", ""), shardExecutor);
+    }
+
+    private void assertSlowShardCompletedWithoutCheckpoint() {
+        assertThat(events).noneMatch(event -> event.startsWith("checkpoint"));
+
+        var store = recordingShardedStore();
+        var slowShardTransactions = sharedKeyTransactions(20).stream()
+                .filter(transaction -> ((FakeTransaction) transaction).keys.stream().anyMatch(key -> store.shardOf(put(key)) == 1))
+                .count();
+        assertThat(shardEvents(1)).hasSize((int) slowShardTransactions);
+    }
+
+    // Shard store that is slow to apply each update, so that other shards finish first.
+    private static Store slow(final Store shard) {
+        return (blockNumber, transactionId, writes) -> {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            shard.store(blockNumber, transactionId, writes);
+        };
+    }
+
+    @Test
+    public void checkpointsTransactionsInOrderWhenStoreCompletesOutOfOrder() throws Exception {
+        var transactions = IntStream.range(0, 5)
+                .mapToObj(i -> (Transaction) new FakeTransaction("t" + i, i))
+                .collect(Collectors.toList());
+        var store = new FakeAsyncStore(3);
+
+        // Complete the first three concurrent requests in reverse order, then the remaining two in reverse order.
+        var completer = CompletableFuture.runAsync(() -> {
+            store.completeInReverse(3);
+            store.completeInReverse(2);
+        });
+
+        new BlockProcessor(new FakeBlock(7, transactions), new RecordingCheckpointer(), store, WriteFilter.parse("", "")).process();
+        completer.get(10, TimeUnit.SECONDS);
+
+        assertThat(events.stream().filter(event -> event.startsWith("stored")))
+                .containsExactly("stored t2", "stored t1", "stored t0", "stored t4", "stored t3");
+        assertThat(events.stream().filter(event -> event.startsWith("checkpoint")))
+                .containsExactly("checkpoint 7:t0", "checkpoint 7:t1", "checkpoint 7:t2", "checkpoint 7:t3", "checkpoint 7:t4",
+                        "checkpoint block 7");
+        for (int i = 0; i < transactions.size(); i++) {
+            assertThat(events.indexOf("checkpoint 7:t" + i)).isGreaterThan(events.indexOf("stored t" + i));
+        }
+    }
+
+    // Store whose requests complete only when the test completes them.
+    private final class FakeAsyncStore implements AsyncStore {
+        private final int capacity;
+        private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        FakeAsyncStore(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public CompletionStage<Void> store(final long blockNumber, final String transactionId, final List<Write> writes) {
+            var request = new Request(transactionId);
+            requests.add(request);
+            return request.completion;
+        }
+
+        @Override
+        public int getCapacity() {
+            return capacity;
+        }
+
+        // Wait for the given number of requests to be in progress at once, then complete them in reverse order.
+        void completeInReverse(final int count) {
+            var batch = new ArrayList<Request>();
+            try {
+                for (int i = 0; i < count; i++) {
+                    var request = requests.poll(10, TimeUnit.SECONDS);
+                    if (request == null) {
+                        throw new IllegalStateException("Only " + batch.size() + " requests in progress");
+                    }
+                    batch.add(request);
+                }
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            Collections.reverse(batch);
+            for (var request : batch) {
+                events.add("stored " + request.transactionId);
+                request.completion.complete(null);
+            }
+        }
+    }
+
+    private static final class Request {
+        private final String transactionId;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        Request(final String transactionId) {
+            this.transactionId = transactionId;
+        }
+    }
+
+    private final class RecordingCheckpointer implements Checkpointer {
+        @Override
+        public void checkpointBlock(final long blockNumber) {
+            events.add("checkpoint block " + blockNumber);
+        }
+
+        @Override
+        public void checkpointTransaction(final long blockNumber, final String transactionId) {
+            events.add("checkpoint " + blockNumber + ":" + transactionId);
+        }
+
+        @Override
+        public void checkpointChaincodeEvent(final ChaincodeEvent event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public OptionalLong getBlockNumber() {
+            return OptionalLong.empty();
+        }
+
+        @Override
+        public Optional<String> getTransactionId() {
+            return Optional.empty();
+        }
+    }
+
+    private static final class FakeBlock implements Block {
+        private final long number;
+        private final List<Transaction> transactions;
+
+        FakeBlock(final long number, final List<Transaction> transactions) {
+            this.number = number;
+            this.transactions = transactions;
+        }
+
+        @Override
+        public long getNumber() {
+            return number;
+        }
+
+        @Override
+        public List<Transaction> getTransactions() {
+            return transactions;
+        }
+
+        @Override
+        public List<Transaction> getTransactionsFrom(final int index) {
+            return transactions.subList(index, transactions.size());
+        }
+
+        @Override
+        public org.hyperledger.fabric.protos.common.Block toProto() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    // Valid transaction that writes the given keys, or a single key named after the transaction.
+    private static final class FakeTransaction implements Transaction {
+        private final String transactionId;
+        private final int index;
+        private final List<String> keys;
+
+        FakeTransaction(final String transactionId, final int index, final String... keys) {
+            this.transactionId = transactionId;
+            this.index = index;
+            this.keys = keys.length > 0 ? List.of(keys) : List.of(transactionId);
+        }
+
+        @Override
+        public ChannelHeader getChannelHeader() {
+            return ChannelHeader.newBuilder().setChannelId("channel").setTxId(transactionId).build();
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public Identity getCreator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TxValidationCode getValidationCode() {
+            return TxValidationCode.VALID;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public List<NamespaceReadWriteSet> getNamespaceReadWriteSets() {
+            var readWriteSet = KVRWSet.newBuilder();
+            for (var key : keys) {
+                readWriteSet.addWrites(KVWrite.newBuilder().setKey(key).setValue(ByteString.copyFromUtf8(key)));
+            }
+            return List.of(new NamespaceReadWriteSet() {
+                @Override
+                public String getNamespace() {
+                    return "basic";
+                }
+
+                @Override
+                public KVRWSet getReadWriteSet() {
+                    return readWriteSet.build();
+                }
+
+                @Override
+                public NsReadWriteSet toProto() {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+
+        @Override
+        public Payload toProto() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.hyperledger.fabric.client.CloseableIterator;
+import org.hyperledger.fabric.protos.peer.FilteredBlock;
+import org.hyperledger.fabric.protos.peer.FilteredTransaction;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class CommitStatusMonitorTest {
+    private static final Duration TIMEOUT = Duration.ofMinutes(1);
+
+    private static FilteredBlock block(final long blockNumber, final String transactionId, final TxValidationCode code) {
+        return FilteredBlock.newBuilder()
+                .setNumber(blockNumber)
+                .addFilteredTransactions(FilteredTransaction.newBuilder().setTxid(transactionId).setTxValidationCode(code))
+                .build();
+    }
+
+    @Test
+    public void completesRegisteredTransactionsAndRecordsCommitLatency(@TempDir final Path directory) throws Exception {
+        var metricsFile = directory.resolve("metrics.prom");
+        var blocks = new BlockQueue();
+
+        try (var metrics = new GatewayMetrics(0, metricsFile, 0)) {
+            try (var monitor = new CommitStatusMonitor(blocks, "channel", TIMEOUT, metrics)) {
+                var valid = monitor.register("tx1", "CreateAsset");
+                var invalid = monitor.register("tx2", "CreateAsset");
+                blocks.add(block(1, "unregistered", TxValidationCode.VALID));
+                blocks.add(block(2, "tx2", TxValidationCode.MVCC_READ_CONFLICT));
+                blocks.add(block(3, "tx1", TxValidationCode.VALID));
+
+                var status = valid.get(10, TimeUnit.SECONDS);
+                assertThat(status.getBlockNumber()).isEqualTo(3);
+                assertThat(status.isSuccessful()).isTrue();
+                assertThat(invalid.get(10, TimeUnit.SECONDS).getCode()).isEqualTo(TxValidationCode.MVCC_READ_CONFLICT);
+            }
+        }
+
+        assertThat(Files.readString(metricsFile))
+                .contains("fabric_gateway_call_duration_seconds_count{phase=\"commit\",function=\"CreateAsset\"} 2")
+                .contains("fabric_gateway_call_errors_total{phase=\"commit\",function=\"CreateAsset\"} 1");
+    }
+
+    @Test
+    public void failsPendingTransactionsWhenClosed() {
+        var monitor = new CommitStatusMonitor(new BlockQueue(), "channel", TIMEOUT, null);
+        var status = monitor.register("tx1", "CreateAsset");
+        monitor.close();
+
+        assertThat(status).isCompletedExceptionally();
+    }
+
+    @Test
+    public void failsAndUnregistersTransactionsNotCommittedWithinTimeout() throws Exception {
+        var blocks = new BlockQueue();
+        try (var monitor = new CommitStatusMonitor(blocks, "channel", Duration.ofMillis(100), null)) {
+            var status = monitor.register("tx1", "CreateAsset");
+
+            assertThatThrownBy(() -> status.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(TimeoutException.class)
+                    .hasMessageContaining("tx1");
+
+            // A commit after the timeout is ignored, and later transactions are unaffected.
+            var laterStatus = monitor.register("tx2", "CreateAsset");
+            blocks.add(block(1, "tx1", TxValidationCode.VALID));
+            blocks.add(block(2, "tx2", TxValidationCode.VALID));
+            assertThat(laterStatus.get(10, TimeUnit.SECONDS).getBlockNumber()).isEqualTo(2);
+        }
+    }
+
+    // Block event iterator that returns blocks as they are added, and ends when closed.
+    private static final class BlockQueue implements CloseableIterator<FilteredBlock> {
+        private final BlockingQueue<Optional<FilteredBlock>> queue = new LinkedBlockingQueue<>();
+        private Optional<FilteredBlock> next;
+
+        void add(final FilteredBlock block) {
+            queue.add(Optional.of(block));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    next = Optional.empty();
+                }
+            }
+            return next.isPresent();
+        }
+
+        @Override
+        public FilteredBlock next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var result = next.get();
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            queue.add(Optional.empty());
+        }
+    }
+}
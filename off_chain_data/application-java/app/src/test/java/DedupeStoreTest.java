@@ -0,0 +1,88 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class DedupeStoreTest {
+    private final List<String> stored = new ArrayList<>();
+    private final Store store = (blockNumber, transactionId, writes) -> stored.add(blockNumber + ":" + transactionId);
+
+    @Test
+    public void skipsTransactionsAlreadyStored(@TempDir final Path directory) throws IOException {
+        try (var dedupeStore = new DedupeStore(store, directory.resolve("dedupe.log"), 10, false)) {
+            dedupeStore.store(1, "t1", List.of());
+            dedupeStore.store(1, "t2", List.of());
+            dedupeStore.store(1, "t1", List.of());
+            dedupeStore.store(2, "t1", List.of());
+        }
+
+        assertThat(stored).containsExactly("1:t1", "1:t2", "2:t1");
+    }
+
+    @Test
+    public void remembersOnlyMostRecentTransactions(@TempDir final Path directory) throws IOException {
+        try (var dedupeStore = new DedupeStore(store, directory.resolve("dedupe.log"), 2, false)) {
+            dedupeStore.store(1, "t1", List.of());
+            dedupeStore.store(1, "t2", List.of());
+            dedupeStore.store(1, "t3", List.of());
+            assertThat(dedupeStore.size()).isEqualTo(2);
+
+            dedupeStore.store(1, "t3", List.of());
+            dedupeStore.store(1, "t1", List.of());
+        }
+
+        assertThat(stored).containsExactly("1:t1", "1:t2", "1:t3", "1:t1");
+    }
+
+    @Test
+    public void reloadsWindowWhenReopened(@TempDir final Path directory) throws IOException {
+        var file = directory.resolve("dedupe.log");
+        try (var dedupeStore = new DedupeStore(store, file, 3, false)) {
+            for (int i = 0; i < 20; i++) {
+                dedupeStore.store(i, "t" + i, List.of());
+            }
+        }
+
+        // The file is rewritten as it grows, so never holds many more than the window size.
+        assertThat(Files.readAllLines(file)).hasSizeLessThanOrEqualTo(6).endsWith("17 t17", "18 t18", "19 t19");
+
+        stored.clear();
+        try (var dedupeStore = new DedupeStore(store, file, 3, false)) {
+            assertThat(dedupeStore.size()).isEqualTo(3);
+            for (int i = 17; i < 20; i++) {
+                dedupeStore.store(i, "t" + i, List.of());
+            }
+            dedupeStore.store(16, "t16", List.of());
+        }
+
+        assertThat(stored).containsExactly("16:t16");
+    }
+
+    @Test
+    public void ignoresPartialEntryLeftByFailedAppend(@TempDir final Path directory) throws IOException {
+        var file = directory.resolve("dedupe.log");
+        Files.writeString(file, "1 t1\n1 t2\n1 t");
+
+        try (var dedupeStore = new DedupeStore(store, file, 10, false)) {
+            assertThat(dedupeStore.size()).isEqualTo(2);
+            dedupeStore.store(1, "t2", List.of());
+            dedupeStore.store(1, "t", List.of());
+            dedupeStore.store(1, "t3", List.of());
+        }
+
+        assertThat(stored).containsExactly("1:t", "1:t3");
+        assertThat(Files.readAllLines(file)).containsExactly("1 t1", "1 t2", "1 t", "1 t3");
+    }
+}
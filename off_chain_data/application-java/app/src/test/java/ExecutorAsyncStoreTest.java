@@ -0,0 +1,117 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class ExecutorAsyncStoreTest {
+    private static List<Write> writes(final String... keys) {
+        var result = new ArrayList<Write>();
+        for (var key : keys) {
+            result.add(new Write("channel", "basic", key, false, ByteString.copyFromUtf8(key)));
+        }
+        return result;
+    }
+
+    @Test
+    public void appliesWritesToSameKeyInOrder() throws Exception {
+        var applied = Collections.synchronizedList(new ArrayList<String>());
+        var release = new CountDownLatch(1);
+        Store store = (blockNumber, transactionId, writes) -> {
+            if (transactionId.equals("t1")) {
+                await(release);
+            }
+            applied.add(transactionId);
+        };
+
+        try (var asyncStore = new ExecutorAsyncStore(store, 4, "test")) {
+            var first = asyncStore.store(1, "t1", writes("a", "b")).toCompletableFuture();
+            var sameKey = asyncStore.store(1, "t2", writes("b")).toCompletableFuture();
+            var otherKey = asyncStore.store(1, "t3", writes("c")).toCompletableFuture();
+
+            otherKey.get(10, TimeUnit.SECONDS);
+            assertThat(first).isNotDone();
+            assertThat(sameKey).isNotDone();
+
+            release.countDown();
+            sameKey.get(10, TimeUnit.SECONDS);
+            assertThat(first).isDone();
+        }
+
+        assertThat(applied).containsExactly("t3", "t1", "t2");
+    }
+
+    @Test
+    public void skipsWritesToSameKeyAfterFailure() throws Exception {
+        var applied = Collections.synchronizedList(new ArrayList<String>());
+        var release = new CountDownLatch(1);
+        Store store = (blockNumber, transactionId, writes) -> {
+            if (transactionId.equals("t1")) {
+                await(release);
+                throw new IOException("Simulated failure");
+            }
+            applied.add(transactionId);
+        };
+
+        try (var asyncStore = new ExecutorAsyncStore(store, 2, "test")) {
+            var failed = asyncStore.store(1, "t1", writes("a")).toCompletableFuture();
+            var sameKey = asyncStore.store(1, "t2", writes("a")).toCompletableFuture();
+            var otherKey = asyncStore.store(1, "t3", writes("b")).toCompletableFuture();
+            release.countDown();
+
+            assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasRootCauseMessage("Simulated failure");
+            assertThatThrownBy(() -> sameKey.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasRootCauseMessage("Simulated failure");
+            otherKey.get(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(applied).containsExactly("t3");
+    }
+
+    @Test
+    public void closeWaitsForWritesInProgress() throws IOException {
+        var applied = Collections.synchronizedList(new ArrayList<String>());
+        Store store = (blockNumber, transactionId, writes) -> {
+            sleep();
+            applied.add(transactionId);
+        };
+
+        CompletableFuture<Void> completion;
+        try (var asyncStore = new ExecutorAsyncStore(store, 2, "test")) {
+            completion = asyncStore.store(1, "t1", writes("a")).toCompletableFuture();
+        }
+
+        assertThat(completion).isCompleted();
+        assertThat(applied).containsExactly("t1");
+    }
+
+    private static void await(final CountDownLatch latch) throws IOException {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void sleep() throws IOException {
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
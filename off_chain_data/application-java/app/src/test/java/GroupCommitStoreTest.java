@@ -0,0 +1,117 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
+import org.hyperledger.fabric.client.InMemoryCheckpointer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class GroupCommitStoreTest {
+    private static final Gson GSON = new Gson();
+
+    private static List<Write> writes(final String... keys) {
+        return List.of(keys).stream()
+                .map(key -> new Write("channel", "basic", key, false, ByteString.copyFromUtf8("value-" + key)))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> storedKeys(final Path file) throws IOException {
+        return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                .map(line -> GSON.fromJson(line, Write.class).getKey())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void flushesWritesAndCheckpointAfterCommitBlockCount(@TempDir final Path directory) throws IOException {
+        var file = directory.resolve("store.log");
+        var checkpointer = new InMemoryCheckpointer();
+
+        try (var store = new GroupCommitStore(new StoreLog(file, 0, 10), checkpointer, 2, false, 0)) {
+            store.store(0, "tx1", writes("a", "b"));
+            store.checkpointBlock(0);
+
+            assertThat(storedKeys(file)).isEmpty();
+            assertThat(checkpointer.getBlockNumber()).isEmpty();
+            assertThat(store.getBlockNumber()).isEqualTo(OptionalLong.of(1));
+
+            store.store(1, "tx2", writes("c"));
+            store.checkpointBlock(1);
+
+            assertThat(storedKeys(file)).containsExactly("a", "b", "c");
+            assertThat(checkpointer.getBlockNumber()).isEqualTo(OptionalLong.of(2));
+        }
+    }
+
+    @Test
+    public void closeFlushesCompletedBlocksAndDiscardsPartialBlock(@TempDir final Path directory) throws IOException {
+        var file = directory.resolve("store.log");
+        var checkpointer = new InMemoryCheckpointer();
+
+        try (var store = new GroupCommitStore(new StoreLog(file, 0, 10), checkpointer, 10, false, 0)) {
+            store.store(5, "tx1", writes("a"));
+            store.checkpointBlock(5);
+            store.store(6, "tx2", writes("b"));
+            store.checkpointTransaction(6, "tx2");
+
+            assertThat(store.getBlockNumber()).isEqualTo(OptionalLong.of(6));
+            assertThat(store.getTransactionId()).isEqualTo(Optional.of("tx2"));
+        }
+
+        assertThat(storedKeys(file)).containsExactly("a");
+        assertThat(checkpointer.getBlockNumber()).isEqualTo(OptionalLong.of(6));
+        assertThat(checkpointer.getTransactionId()).isEmpty();
+    }
+
+    @Test
+    public void flushesCompletedBlocksAtCommitInterval(@TempDir final Path directory) throws Exception {
+        var file = directory.resolve("store.log");
+        var checkpointer = new InMemoryCheckpointer();
+
+        try (var store = new GroupCommitStore(new StoreLog(file, 0, 10), checkpointer, 10, false, 1)) {
+            store.store(0, "tx1", writes("a"));
+            store.checkpointBlock(0);
+            store.store(1, "tx2", writes("b"));
+
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (checkpointer.getBlockNumber().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+
+            assertThat(storedKeys(file)).containsExactly("a");
+            assertThat(checkpointer.getBlockNumber()).isEqualTo(OptionalLong.of(1));
+
+            // Writes for the block in progress are kept until the block completes.
+            store.checkpointBlock(1);
+        }
+
+        assertThat(storedKeys(file)).containsExactly("a", "b");
+        assertThat(checkpointer.getBlockNumber()).isEqualTo(OptionalLong.of(2));
+    }
+
+    @Test
+    public void startsFromUnderlyingCheckpoint(@TempDir final Path directory) throws IOException {
+        var checkpointer = new InMemoryCheckpointer();
+        checkpointer.checkpointTransaction(3, "tx9");
+
+        try (var store = new GroupCommitStore(new StoreLog(directory.resolve("store.log"), 0, 10), checkpointer, 1, false, 0)) {
+            assertThat(store.getBlockNumber()).isEqualTo(OptionalLong.of(3));
+            assertThat(store.getTransactionId()).isEqualTo(Optional.of("tx9"));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class IndexedFileCheckpointerTest {
+    @Test
+    public void restoresTransactionCheckpoint(@TempDir final Path directory) throws IOException {
+        var path = directory.resolve("checkpoint.json");
+        try (var checkpointer = new IndexedFileCheckpointer(path)) {
+            checkpointer.checkpointTransaction(5, "txId", 3);
+        }
+
+        try (var checkpointer = new IndexedFileCheckpointer(path)) {
+            assertThat(checkpointer.getBlockNumber()).hasValue(5);
+            assertThat(checkpointer.getTransactionId()).hasValue("txId");
+            assertThat(checkpointer.getTransactionIndex()).hasValue(3);
+        }
+    }
+
+    @Test
+    public void restoresBlockCheckpointAfterLongerTransactionCheckpoint(@TempDir final Path directory) throws IOException {
+        var path = directory.resolve("checkpoint.json");
+        try (var checkpointer = new IndexedFileCheckpointer(path)) {
+            checkpointer.checkpointTransaction(5, "x".repeat(100), 3);
+            checkpointer.checkpointBlock(5);
+        }
+
+        try (var checkpointer = new IndexedFileCheckpointer(path)) {
+            assertThat(checkpointer.getBlockNumber()).hasValue(6);
+            assertThat(checkpointer.getTransactionId()).isEmpty();
+            assertThat(checkpointer.getTransactionIndex()).isEmpty();
+        }
+    }
+
+    @Test
+    public void rejectsNegativeTransactionIndex(@TempDir final Path directory) throws IOException {
+        var path = directory.resolve("checkpoint.json");
+        Files.writeString(path, "{\"blockNumber\":5,\"transactionId\":\"txId\",\"transactionIndex\":-1}");
+
+        assertThatThrownBy(() -> new IndexedFileCheckpointer(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid transaction index");
+    }
+
+    @Test
+    public void rejectsMalformedCheckpoint(@TempDir final Path directory) throws IOException {
+        var path = directory.resolve("checkpoint.json");
+        Files.writeString(path, "{\"blockNumber\":");
+
+        assertThatThrownBy(() -> new IndexedFileCheckpointer(path)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class LatencyHistogramTest {
+    // Reported value for a recorded value, which is the upper bound of its bucket. A larger value is also recorded so
+    // that the result is not capped at the maximum recorded value.
+    private static long reportedValue(final long micros) {
+        var histogram = new LatencyHistogram();
+        histogram.record(micros);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getValueAtPercentile(50);
+    }
+
+    @Test
+    public void reportsSmallValuesExactly() {
+        for (long value = 0; value < 32; value++) {
+            assertThat(reportedValue(value)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    public void startsNewBucketsAtPowersOfTwo() {
+        for (int bits = 5; bits < 63; bits++) {
+            var powerOfTwo = 1L << bits;
+            // The last value below a power of two is the upper bound of its bucket, and each power of two starts a
+            // bucket whose width is 1/32 of its value.
+            assertThat(reportedValue(powerOfTwo - 1)).isEqualTo(powerOfTwo - 1);
+            assertThat(reportedValue(powerOfTwo)).isEqualTo(powerOfTwo + (powerOfTwo >>> 5) - 1);
+        }
+    }
+
+    @Test
+    public void reportsValuesWithinRelativeErrorBound() {
+        var random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            var value = random.nextLong() >>> (1 + random.nextInt(Long.SIZE - 1));
+            var reported = reportedValue(value);
+            assertThat(reported).isGreaterThanOrEqualTo(value);
+            assertThat(reported - value).isLessThanOrEqualTo(value / 32);
+        }
+    }
+
+    @Test
+    public void recordsLargestValue() {
+        var histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getValueAtPercentile(0)).isEqualTo(Long.MAX_VALUE);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+        assertThat(histogram.getMaxMicros()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void recordsNegativeValuesAsZero() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        assertThat(histogram.getValueAtPercentile(100)).isZero();
+        assertThat(histogram.getTotalMicros()).isZero();
+        assertThat(histogram.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void reportsZeroWhenEmpty() {
+        assertThat(new LatencyHistogram().getValueAtPercentile(99)).isZero();
+    }
+
+    @Test
+    public void reportsPercentilesOfRecordedValues() {
+        var random = new Random(2);
+        var values = new long[10_001];
+        var histogram = new LatencyHistogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 16);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 99.99, 100}) {
+            var rank = Math.max(1, (long) Math.ceil(percentile / 100 * values.length));
+            var expected = values[(int) rank - 1];
+            var reported = histogram.getValueAtPercentile(percentile);
+            assertThat(reported).as("percentile %s", percentile).isBetween(expected, expected + expected / 32);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(values.length);
+        assertThat(histogram.getTotalMicros()).isEqualTo(Arrays.stream(values).sum());
+        assertThat(histogram.getMaxMicros()).isEqualTo(values[values.length - 1]);
+    }
+}
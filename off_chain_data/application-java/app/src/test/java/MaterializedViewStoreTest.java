@@ -0,0 +1,143 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class MaterializedViewStoreTest {
+    private static final long NO_SNAPSHOT = Long.MAX_VALUE;
+
+    private static Write put(final String key, final String value) {
+        return new Write("channel", "basic", key, false, ByteString.copyFromUtf8(value));
+    }
+
+    private static Write delete(final String key) {
+        return new Write("channel", "basic", key, true, ByteString.EMPTY);
+    }
+
+    private static Map<String, ByteString> contents(final Path directory) throws IOException {
+        try (var view = MaterializedViewStore.openReadOnly(directory)) {
+            return new TreeMap<>(view.getRange("channel", "basic", "", ""));
+        }
+    }
+
+    private static Map<String, ByteString> model(final Write... writes) {
+        var result = new TreeMap<String, ByteString>();
+        Arrays.stream(writes).forEach(write -> apply(result, write));
+        return result;
+    }
+
+    private static void apply(final Map<String, ByteString> model, final Write write) {
+        if (write.isDelete()) {
+            model.remove(write.getKey());
+        } else {
+            model.put(write.getKey(), write.getValueBytes());
+        }
+    }
+
+    @Test
+    public void restoresStateWhenReopened(@TempDir final Path directory) throws IOException {
+        try (var view = MaterializedViewStore.open(directory)) {
+            view.store(1, "t1", List.of(put("a", "1"), put("b", "1"), put("c", "1")));
+            view.store(2, "t2", List.of(put("b", "2"), delete("c")));
+            view.store(2, "t3", List.of(new Write("other", "basic", "a", false, ByteString.copyFromUtf8("other"))));
+        }
+
+        assertThat(contents(directory)).isEqualTo(model(put("a", "1"), put("b", "2")));
+        try (var view = MaterializedViewStore.openReadOnly(directory)) {
+            assertThat(view.get("other", "basic", "a")).contains(ByteString.copyFromUtf8("other"));
+            assertThat(view.get("channel", "basic", "c")).isEmpty();
+        }
+    }
+
+    @Test
+    public void snapshotsWhileAppending(@TempDir final Path directory) throws IOException {
+        var random = new Random(1);
+        var expected = new TreeMap<String, ByteString>();
+
+        try (var view = MaterializedViewStore.open(directory, 512)) {
+            for (int i = 0; i < 2000; i++) {
+                var key = "k" + random.nextInt(50);
+                var write = random.nextInt(4) == 0 ? delete(key) : put(key, "v" + i);
+                view.store(i / 10, "t" + i, List.of(write));
+                apply(expected, write);
+
+                if (i % 100 == 0) {
+                    // Recovery from the files as they are at this point, as if the process had failed.
+                    assertThat(contents(directory)).isEqualTo(expected);
+                }
+            }
+
+            view.awaitSnapshot();
+            assertThat(contents(directory)).isEqualTo(expected);
+        }
+
+        assertThat(contents(directory)).isEqualTo(expected);
+        assertThat(directory.resolve("view.journal")).isEmptyFile();
+        assertThat(directory.resolve("view.journal.previous")).doesNotExist();
+    }
+
+    @Test
+    public void recoversAfterTruncatedJournalRecord(@TempDir final Path directory) throws IOException {
+        var source = Files.createDirectory(directory.resolve("source"));
+        var target = Files.createDirectory(directory.resolve("target"));
+
+        try (var view = MaterializedViewStore.open(source, NO_SNAPSHOT)) {
+            view.store(1, "t1", List.of(put("a", "1")));
+            view.store(1, "t2", List.of(put("b", "1")));
+            var validLength = Files.size(source.resolve("view.journal"));
+            view.store(2, "t3", List.of(put("c", "1")));
+
+            var journal = Files.readAllBytes(source.resolve("view.journal"));
+            Files.write(target.resolve("view.journal"), Arrays.copyOf(journal, journal.length - 1));
+
+            try (var recovered = MaterializedViewStore.open(target, NO_SNAPSHOT)) {
+                assertThat(target.resolve("view.journal")).hasSize(validLength);
+                recovered.store(2, "t3", List.of(put("c", "2")));
+            }
+        }
+
+        assertThat(contents(target)).isEqualTo(model(put("a", "1"), put("b", "1"), put("c", "2")));
+    }
+
+    @Test
+    public void replaysJournalLeftByIncompleteSnapshot(@TempDir final Path directory) throws IOException {
+        var previous = Files.createDirectory(directory.resolve("previous"));
+        var current = Files.createDirectory(directory.resolve("current"));
+        var target = Files.createDirectory(directory.resolve("target"));
+
+        try (var previousView = MaterializedViewStore.open(previous, NO_SNAPSHOT);
+             var currentView = MaterializedViewStore.open(current, NO_SNAPSHOT)) {
+            previousView.store(1, "t1", List.of(put("a", "1"), put("b", "1")));
+            currentView.store(2, "t2", List.of(put("a", "2"), delete("b")));
+
+            Files.copy(previous.resolve("view.journal"), target.resolve("view.journal.previous"));
+            Files.copy(current.resolve("view.journal"), target.resolve("view.journal"));
+        }
+
+        var expected = model(put("a", "2"));
+        assertThat(contents(target)).isEqualTo(expected);
+
+        try (var view = MaterializedViewStore.open(target, NO_SNAPSHOT)) {
+            assertThat(target.resolve("view.journal.previous")).doesNotExist();
+            assertThat(view.getRange("channel", "basic", "", "")).isEqualTo(expected);
+        }
+
+        assertThat(contents(target)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class SegmentedLogStoreTest {
+    private static List<Write> writes(final String transactionId) {
+        return List.of(
+                new Write("channel", "basic", transactionId + "-key", false, ByteString.copyFromUtf8("{\"id\":\"" + transactionId + "\"}")),
+                new Write("channel", "basic", "deleted", true, ByteString.EMPTY));
+    }
+
+    // Size of a segment that holds exactly the given number of records for transaction IDs of the same length as "t00".
+    private static int segmentSize(final int recordCount) {
+        var recordLength = Integer.BYTES + SegmentedLogFormat.encode(0, "t00", writes("t00")).remaining();
+        return SegmentedLogFormat.HEADER_SIZE + recordCount * recordLength;
+    }
+
+    private static List<String> replay(final Path directory, final long startBlock) throws IOException {
+        var transactionIds = new ArrayList<String>();
+        new SegmentedLogReader(directory).replay(startBlock, (blockNumber, transactionId, writes) -> {
+            assertThat(writes).usingRecursiveFieldByFieldElementComparator().isEqualTo(writes(transactionId));
+            transactionIds.add(blockNumber + ":" + transactionId);
+        });
+        return transactionIds;
+    }
+
+    @Test
+    public void replaysAllRecordsInOrder(@TempDir final Path directory) throws IOException {
+        try (var store = new SegmentedLogStore(directory, segmentSize(2))) {
+            store.store(1, "t10", writes("t10"));
+            store.store(1, "t11", writes("t11"));
+            store.store(2, "t20", writes("t20"));
+            store.store(4, "t40", writes("t40"));
+            store.store(4, "t41", writes("t41"));
+        }
+
+        assertThat(SegmentedLogFormat.listSegments(directory)).hasSize(3);
+        assertThat(replay(directory, 0)).containsExactly("1:t10", "1:t11", "2:t20", "4:t40", "4:t41");
+    }
+
+    @Test
+    public void replaysBlockSplitAcrossSegments(@TempDir final Path directory) throws IOException {
+        try (var store = new SegmentedLogStore(directory, segmentSize(2))) {
+            store.store(1, "t10", writes("t10"));
+            store.store(2, "t2a", writes("t2a"));
+            store.store(2, "t2b", writes("t2b"));
+            store.store(3, "t30", writes("t30"));
+        }
+
+        assertThat(SegmentedLogFormat.listSegments(directory).keySet()).containsExactly(1L, 2L);
+        assertThat(replay(directory, 2)).containsExactly("2:t2a", "2:t2b", "3:t30");
+        assertThat(replay(directory, 3)).containsExactly("3:t30");
+    }
+
+    @Test
+    public void replaysFromEveryBlock(@TempDir final Path directory) throws IOException {
+        var transactionIds = new ArrayList<String>();
+        try (var store = new SegmentedLogStore(directory, segmentSize(3))) {
+            for (int block = 0; block < 40; block++) {
+                // Varying numbers of transactions per block, so that blocks are split across segments at different points.
+                for (int i = 0; i < block % 4; i++) {
+                    var transactionId = "t" + (char) ('a' + i) + (block % 10);
+                    store.store(block, transactionId, writes(transactionId));
+                    transactionIds.add(block + ":" + transactionId);
+                }
+            }
+        }
+
+        for (long startBlock = 0; startBlock <= 40; startBlock++) {
+            var start = startBlock;
+            var expected = transactionIds.stream()
+                    .filter(transactionId -> Long.parseLong(transactionId.substring(0, transactionId.indexOf(':'))) >= start)
+                    .collect(Collectors.toList());
+            assertThat(replay(directory, startBlock)).as("Start block %d", startBlock).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void continuesExistingLogWhenReopened(@TempDir final Path directory) throws IOException {
+        try (var store = new SegmentedLogStore(directory, segmentSize(4))) {
+            store.store(1, "t10", writes("t10"));
+        }
+        try (var store = new SegmentedLogStore(directory, segmentSize(4))) {
+            store.store(2, "t20", writes("t20"));
+        }
+
+        assertThat(SegmentedLogFormat.listSegments(directory)).hasSize(1);
+        assertThat(replay(directory, 0)).containsExactly("1:t10", "2:t20");
+        assertThat(replay(directory, 2)).containsExactly("2:t20");
+    }
+
+    @Test
+    public void ignoresAndOverwritesPartiallyWrittenRecord(@TempDir final Path directory) throws IOException {
+        try (var store = new SegmentedLogStore(directory, segmentSize(4))) {
+            store.store(1, "t10", writes("t10"));
+            store.store(2, "t20", writes("t20"));
+        }
+
+        // A record whose length was not written before a failure.
+        var segmentPath = SegmentedLogFormat.listSegments(directory).firstEntry().getValue();
+        var secondRecordOffset = segmentSize(1);
+        try (var channel = FileChannel.open(segmentPath, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), secondRecordOffset);
+        }
+
+        assertThat(replay(directory, 0)).containsExactly("1:t10");
+
+        try (var store = new SegmentedLogStore(directory, segmentSize(4))) {
+            store.store(2, "t21", writes("t21"));
+        }
+
+        assertThat(replay(directory, 0)).containsExactly("1:t10", "2:t21");
+    }
+}
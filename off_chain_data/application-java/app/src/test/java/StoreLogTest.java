@@ -0,0 +1,138 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.JsonParser;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class StoreLogTest {
+    private static Write put(final String key, final String value) {
+        return new Write("channel", "basic", key, false, ByteString.copyFromUtf8(value));
+    }
+
+    private static Write delete(final String key) {
+        return new Write("channel", "basic", key, true, ByteString.EMPTY);
+    }
+
+    // Latest value of each key, applying the lines of the file in order.
+    private static Map<String, String> latestValues(final Path file) throws IOException {
+        var result = new TreeMap<String, String>();
+        for (var line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            var write = JsonParser.parseString(line).getAsJsonObject();
+            var key = write.get("key").getAsString();
+            if (write.get("isDelete").getAsBoolean()) {
+                result.remove(key);
+            } else {
+                result.put(key, write.get("value").getAsString());
+            }
+        }
+        return result;
+    }
+
+    private static void apply(final Map<String, String> model, final Write write) {
+        if (write.isDelete()) {
+            model.remove(write.getKey());
+        } else {
+            model.put(write.getKey(), write.getValueBytes().toStringUtf8());
+        }
+    }
+
+    @Test
+    public void compactsToLatestValueOfLiveKeys(@TempDir final Path directory) throws IOException {
+        var file = directory.resolve("store.log");
+        var expected = new TreeMap<String, String>();
+
+        // Few keys are held at once, so compaction uses several partitions.
+        try (var store = new StoreLog(file, 0, 3)) {
+            for (int i = 0; i < 100; i++) {
+                var key = "k" + (i % 20);
+                var write = i % 7 == 0 ? delete(key) : put(key, "v\"" + i + "\n");
+                store.store(i, "t" + i, List.of(write));
+                apply(expected, write);
+            }
+
+            store.compact();
+            assertThat(Files.readAllLines(file)).hasSize(expected.size());
+            assertThat(latestValues(file)).isEqualTo(expected);
+
+            // A later compaction starts from the same number of partitions.
+            store.store(100, "t100", List.of(put("k0", "last")));
+            apply(expected, put("k0", "last"));
+            store.compact();
+        }
+
+        assertThat(latestValues(file)).isEqualTo(expected);
+        assertThat(Files.readAllLines(file)).hasSize(expected.size());
+    }
+
+    @Test
+    public void compactsWhileAppending(@TempDir final Path directory) throws Exception {
+        var file = directory.resolve("store.log");
+        var expected = new TreeMap<String, String>();
+        var random = new Random(1);
+        var isAppending = new AtomicBoolean(true);
+
+        try (var store = new StoreLog(file, 0, 10)) {
+            var compactions = CompletableFuture.runAsync(() -> {
+                try {
+                    while (isAppending.get()) {
+                        store.compact();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            for (int i = 0; i < 5000; i++) {
+                var key = "k" + random.nextInt(50);
+                var write = random.nextInt(5) == 0 ? delete(key) : put(key, "v" + i);
+                store.store(i, "t" + i, List.of(write));
+                apply(expected, write);
+            }
+
+            isAppending.set(false);
+            compactions.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(latestValues(file)).isEqualTo(expected);
+    }
+
+    @Test
+    public void removesIncompleteLineWhenOpened(@TempDir final Path directory) throws IOException {
+        var file = directory.resolve("store.log");
+        try (var store = new StoreLog(file, 0, 10)) {
+            store.store(1, "t1", List.of(put("a", "1"), put("b", "1")));
+        }
+
+        var validLength = Files.size(file);
+        Files.writeString(file, "{\"channelName\":\"channel\",\"namespace\":\"ba", StandardOpenOption.APPEND);
+
+        try (var store = new StoreLog(file, 0, 10)) {
+            assertThat(file).hasSize(validLength);
+            store.store(2, "t2", List.of(put("b", "2")));
+            store.compact();
+        }
+
+        assertThat(latestValues(file)).isEqualTo(Map.of("a", "1", "b", "2"));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class StoreSnapshotTest {
+    private static final Gson GSON = new Gson();
+
+    private static Write put(final int index) {
+        return new Write("channel", "basic", "asset" + index, false, ByteString.copyFromUtf8("{\"ID\":\"asset" + index + "\"}"));
+    }
+
+    private static Path writeSnapshot(final Path directory, final String header, final List<Write> writes) throws IOException {
+        var lines = new ArrayList<String>();
+        lines.add(header);
+        for (var write : writes) {
+            lines.add(GSON.toJson(write));
+        }
+        return Files.write(directory.resolve("snapshot.json"), lines, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void loadsWritesInBatchesAtLastBlockOfSnapshot(@TempDir final Path directory) throws IOException {
+        var writes = new ArrayList<Write>();
+        for (int i = 0; i < 2 * StoreSnapshot.LOAD_BATCH_SIZE + 500; i++) {
+            writes.add(put(i));
+        }
+        var file = writeSnapshot(directory, "{\"blockHeight\":42}", writes);
+
+        var batches = new ArrayList<List<Write>>();
+        var blockHeight = StoreSnapshot.loadFile(file, (blockNumber, transactionId, batch) -> {
+            assertThat(blockNumber).isEqualTo(41);
+            assertThat(transactionId).isEqualTo("snapshot");
+            batches.add(List.copyOf(batch));
+        });
+
+        assertThat(blockHeight).isEqualTo(42);
+        assertThat(batches).extracting(List::size)
+                .containsExactly(StoreSnapshot.LOAD_BATCH_SIZE, StoreSnapshot.LOAD_BATCH_SIZE, 500);
+        var loaded = new ArrayList<Write>();
+        batches.forEach(loaded::addAll);
+        assertThat(loaded).extracting(Write::getKey).isEqualTo(writes.stream().map(Write::getKey).collect(Collectors.toList()));
+        assertThat(loaded.get(0).getNamespace()).isEqualTo("basic");
+        assertThat(loaded.get(0).getValueBytes()).isEqualTo(writes.get(0).getValueBytes());
+    }
+
+    @Test
+    public void loadsExactBatchWithoutEmptyTrailingBatch(@TempDir final Path directory) throws IOException {
+        var writes = new ArrayList<Write>();
+        for (int i = 0; i < StoreSnapshot.LOAD_BATCH_SIZE; i++) {
+            writes.add(put(i));
+        }
+        var file = writeSnapshot(directory, "{\"blockHeight\":1}", writes);
+
+        var batchSizes = new ArrayList<Integer>();
+        StoreSnapshot.loadFile(file, (blockNumber, transactionId, batch) -> batchSizes.add(batch.size()));
+
+        assertThat(batchSizes).containsExactly(StoreSnapshot.LOAD_BATCH_SIZE);
+    }
+
+    @Test
+    public void returnsBlockHeightOfSnapshotWithoutWrites(@TempDir final Path directory) throws IOException {
+        var file = writeSnapshot(directory, "{\"blockHeight\":7}", List.of());
+
+        var batches = new ArrayList<List<Write>>();
+        var blockHeight = StoreSnapshot.loadFile(file, (blockNumber, transactionId, batch) -> batches.add(batch));
+
+        assertThat(blockHeight).isEqualTo(7);
+        assertThat(batches).isEmpty();
+    }
+
+    @Test
+    public void throwsForEmptyFile(@TempDir final Path directory) throws IOException {
+        var file = Files.createFile(directory.resolve("snapshot.json"));
+
+        assertThatThrownBy(() -> StoreSnapshot.loadFile(file, (blockNumber, transactionId, batch) -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Empty snapshot file");
+    }
+
+    @Test
+    public void throwsForHeaderWithoutBlockHeight(@TempDir final Path directory) throws IOException {
+        var file = writeSnapshot(directory, GSON.toJson(put(0)), List.of(put(1)));
+
+        assertThatThrownBy(() -> StoreSnapshot.loadFile(file, (blockNumber, transactionId, batch) -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Missing blockHeight");
+    }
+
+    @Test
+    public void throwsForInvalidHeader(@TempDir final Path directory) throws IOException {
+        var file = writeSnapshot(directory, "{\"blockHeight\":\"latest\"}", List.of(put(0)));
+
+        assertThatThrownBy(() -> StoreSnapshot.loadFile(file, (blockNumber, transactionId, batch) -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid snapshot file header");
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+import com.google.gson.Gson;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class WriteEncoderTest {
+    private static final Gson GSON = new Gson();
+    private static final String ESCAPED = "\"quoted\" back\\slash\t\n\r\b\f\u0001\u001f <html> & a='b' \u2028\u2029";
+    private static final String NON_ASCII = "caf\u00e9 \u20ac \ud83d\ude00 lone\ud800surrogate";
+
+    private static final List<Write> WRITES = List.of(
+            // Every character uses the longest escape, so each string fills all the space reserved for it.
+            new Write("'".repeat(100), "=".repeat(100), "<".repeat(100), false, ByteString.copyFromUtf8("&".repeat(200))),
+            new Write("channel", "basic", "plain", false, ByteString.copyFromUtf8("{\"ID\":\"asset1\",\"Size\":5}")),
+            new Write("channel", "basic", ESCAPED, false, ByteString.copyFromUtf8(ESCAPED)),
+            new Write("channel", "basic", NON_ASCII, false, ByteString.copyFromUtf8(NON_ASCII)),
+            new Write("channel\u00e9", "basic", ESCAPED.repeat(20), false, ByteString.copyFromUtf8(ESCAPED.repeat(20))),
+            new Write("channel", "basic", "invalid-utf8", false, ByteString.copyFrom(new byte[] {'a', (byte) 0xC3, (byte) 0xFF, 'b'})),
+            new Write("channel", "basic", "deleted", true, ByteString.EMPTY),
+            new Write("", "", "", false, ByteString.EMPTY));
+
+    private static byte[] gsonLines(final List<Write> writes) {
+        var out = new ByteArrayOutputStream();
+        for (var write : writes) {
+            out.writeBytes((GSON.toJson(write) + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(final WriteEncoder encoder, final List<Write> writes) {
+        encoder.encode(writes);
+        var encoded = encoder.getEncoded(encoder.size());
+        var result = new byte[encoded.remaining()];
+        encoded.get(result);
+        return result;
+    }
+
+    @Test
+    public void matchesGsonOutput() {
+        for (var write : WRITES) {
+            assertThat(new String(encode(new WriteEncoder(), List.of(write)), StandardCharsets.UTF_8))
+                    .isEqualTo(new String(gsonLines(List.of(write)), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void growsBufferAtEveryPosition() {
+        var expected = gsonLines(WRITES);
+
+        // Each initial capacity leaves the buffer full at a different point in the output.
+        for (int capacity = 1; capacity <= expected.length; capacity++) {
+            assertThat(encode(new WriteEncoder(capacity), WRITES)).as("Initial capacity %d", capacity).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void retainsUndiscardedOutput() {
+        var encoder = new WriteEncoder(16);
+        encoder.encode(WRITES.get(0));
+        var firstLength = encoder.size();
+        encoder.encode(WRITES.subList(1, WRITES.size()));
+        encoder.discard(firstLength);
+
+        assertThat(encode(encoder, List.of())).isEqualTo(gsonLines(WRITES.subList(1, WRITES.size())));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class LeanDecoderTest {
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(CodedOutputStream output) throws IOException;
+    }
+
+    private static ByteString message(final FieldWriter writer) throws IOException {
+        var result = ByteString.newOutput();
+        var output = CodedOutputStream.newInstance(result);
+        writer.write(output);
+        output.flush();
+        return result.toByteString();
+    }
+
+    // Message with length-delimited field 2 repeated, surrounded by fields of every other wire type.
+    private static ByteString mixedMessage() throws IOException {
+        return message(output -> {
+            output.writeInt32(1, 7);
+            output.writeString(2, "first");
+            output.writeFixed64(3, Long.MAX_VALUE);
+            output.writeString(2, "second");
+            output.writeFixed32(4, Integer.MAX_VALUE);
+            output.writeString(5, "other");
+            output.writeString(2, "third");
+        });
+    }
+
+    @Test
+    public void getsRepeatedValuesInOrder() throws IOException {
+        assertThat(LeanDecoder.getRepeatedBytes(mixedMessage(), 2)).containsExactly(
+                ByteString.copyFromUtf8("first"), ByteString.copyFromUtf8("second"), ByteString.copyFromUtf8("third"));
+    }
+
+    @Test
+    public void getsLastValueOfField() throws IOException {
+        assertThat(LeanDecoder.getBytes(mixedMessage(), 2)).isEqualTo(ByteString.copyFromUtf8("third"));
+        assertThat(LeanDecoder.getBytes(mixedMessage(), 5)).isEqualTo(ByteString.copyFromUtf8("other"));
+    }
+
+    @Test
+    public void getsVarintField() throws IOException {
+        assertThat(LeanDecoder.getInt(mixedMessage(), 1)).isEqualTo(7);
+    }
+
+    @Test
+    public void returnsDefaultsForMissingFields() throws IOException {
+        assertThat(LeanDecoder.getBytes(mixedMessage(), 6)).isEmpty();
+        assertThat(LeanDecoder.getRepeatedBytes(ByteString.EMPTY, 2)).isEmpty();
+        assertThat(LeanDecoder.getInt(mixedMessage(), 6)).isZero();
+    }
+
+    @Test
+    public void ignoresFieldsWithOtherWireType() throws IOException {
+        // Field 1 is a varint, so it is not returned as a length-delimited field, and field 2 is not read as a varint.
+        assertThat(LeanDecoder.getRepeatedBytes(mixedMessage(), 1)).isEmpty();
+        assertThat(LeanDecoder.getInt(mixedMessage(), 2)).isZero();
+    }
+
+    @Test
+    public void throwsForTruncatedMessage() throws IOException {
+        var message = mixedMessage();
+        var truncated = message.substring(0, message.size() - 2);
+
+        assertThatThrownBy(() -> LeanDecoder.getBytes(truncated, 2)).isInstanceOf(InvalidProtocolBufferException.class);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.ledger.rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRead;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public final class LeanTransactionTest {
+    private static final int ENVELOPE_COUNT = ParsedBlock.PARALLEL_DECODE_THRESHOLD + 4;
+    private static final Predicate<String> BASIC_ONLY = "basic"::equals;
+
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        decodeExecutor.shutdownNow();
+    }
+
+    private static boolean isConfig(final int index) {
+        return index == 0 || index == ENVELOPE_COUNT / 2;
+    }
+
+    private static TxValidationCode validationCode(final int index) {
+        return index % 4 == 3 ? TxValidationCode.MVCC_READ_CONFLICT : TxValidationCode.VALID;
+    }
+
+    private static KVWrite put(final String key, final String value) {
+        return KVWrite.newBuilder().setKey(key).setValue(ByteString.copyFromUtf8(value)).build();
+    }
+
+    private static KVWrite delete(final String key) {
+        return KVWrite.newBuilder().setKey(key).setIsDelete(true).build();
+    }
+
+    // Results of a transaction action that reads and writes in two namespaces, including a delete.
+    private static TxReadWriteSet firstActionResults(final int index) {
+        var basic = KVRWSet.newBuilder()
+                .addReads(KVRead.newBuilder().setKey("asset" + index))
+                .addWrites(put("asset" + index, "{\"ID\":\"asset" + index + "\"}"))
+                .addWrites(delete("old" + index))
+                .build();
+        var other = KVRWSet.newBuilder()
+                .addWrites(put("other" + index, "value" + index))
+                .build();
+        return TestBlocks.readWriteSet(TestBlocks.namespaceReadWriteSet("basic", basic), TestBlocks.namespaceReadWriteSet("other", other));
+    }
+
+    private static TxReadWriteSet secondActionResults(final int index) {
+        var basic = KVRWSet.newBuilder()
+                .addWrites(put("asset" + index, "updated"))
+                .build();
+        return TestBlocks.readWriteSet(TestBlocks.namespaceReadWriteSet("basic", basic));
+    }
+
+    // Block large enough to be decoded in parallel, containing config envelopes, invalid transactions and transactions
+    // with one or two actions.
+    private static org.hyperledger.fabric.protos.common.Block newBlock() {
+        var envelopes = new ArrayList<ByteString>();
+        var validationCodes = new ArrayList<TxValidationCode>();
+        for (int i = 0; i < ENVELOPE_COUNT; i++) {
+            if (isConfig(i)) {
+                envelopes.add(TestBlocks.configEnvelope("config" + i));
+            } else if (i % 3 == 0) {
+                envelopes.add(TestBlocks.endorserEnvelope("t" + i, firstActionResults(i)));
+            } else {
+                envelopes.add(TestBlocks.endorserEnvelope("t" + i, firstActionResults(i), secondActionResults(i)));
+            }
+            validationCodes.add(validationCode(i));
+        }
+
+        return TestBlocks.newBlock(3, envelopes, validationCodes);
+    }
+
+    private static void assertSameContent(final List<Transaction> actual, final List<Transaction> expected)
+            throws InvalidProtocolBufferException {
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            var actualTransaction = actual.get(i);
+            var expectedTransaction = expected.get(i);
+            assertThat(actualTransaction.getChannelHeader()).isEqualTo(expectedTransaction.getChannelHeader());
+            assertThat(actualTransaction.getIndex()).isEqualTo(expectedTransaction.getIndex());
+            assertThat(actualTransaction.getValidationCode()).isEqualTo(expectedTransaction.getValidationCode());
+            assertThat(actualTransaction.isValid()).isEqualTo(expectedTransaction.isValid());
+
+            var actualReadWriteSets = actualTransaction.getNamespaceReadWriteSets();
+            var expectedReadWriteSets = expectedTransaction.getNamespaceReadWriteSets();
+            assertThat(actualReadWriteSets).hasSameSizeAs(expectedReadWriteSets);
+            for (int j = 0; j < expectedReadWriteSets.size(); j++) {
+                assertThat(actualReadWriteSets.get(j).getNamespace()).isEqualTo(expectedReadWriteSets.get(j).getNamespace());
+                assertThat(actualReadWriteSets.get(j).getReadWriteSet().getWritesList())
+                        .isEqualTo(expectedReadWriteSets.get(j).getReadWriteSet().getWritesList());
+            }
+        }
+    }
+
+    private static List<String> transactionIds(final List<Transaction> transactions) throws InvalidProtocolBufferException {
+        var results = new ArrayList<String>(transactions.size());
+        for (var transaction : transactions) {
+            results.add(transaction.getChannelHeader().getTxId());
+        }
+        return results;
+    }
+
+    @Test
+    public void decodesSameContentAsFullParser() throws InvalidProtocolBufferException {
+        var block = newBlock();
+
+        var expected = BlockParser.parseBlock(block).getTransactions();
+        var actual = BlockParser.parseBlockLean(block, null, namespace -> true).getTransactions();
+
+        assertSameContent(actual, expected);
+    }
+
+    @Test
+    public void skipsConfigEnvelopesAndKeepsInvalidTransactions() throws InvalidProtocolBufferException {
+        var transactions = BlockParser.parseBlockLean(newBlock(), null, namespace -> true).getTransactions();
+
+        var expectedIds = new ArrayList<String>();
+        for (int i = 0; i < ENVELOPE_COUNT; i++) {
+            if (!isConfig(i)) {
+                expectedIds.add("t" + i);
+            }
+        }
+        assertThat(transactionIds(transactions)).isEqualTo(expectedIds);
+        for (var transaction : transactions) {
+            var index = transaction.getIndex();
+            assertThat(transaction.getChannelHeader().getTxId()).isEqualTo("t" + index);
+            assertThat(transaction.getValidationCode()).isEqualTo(validationCode(index));
+            assertThat(transaction.isValid()).isEqualTo(validationCode(index) == TxValidationCode.VALID);
+            assertThat(transaction.getNamespaceReadWriteSets())
+                    .extracting(NamespaceReadWriteSet::getNamespace)
+                    .isEqualTo(index % 3 == 0 ? List.of("basic", "other") : List.of("basic", "other", "basic"));
+        }
+    }
+
+    @Test
+    public void decodesSameContentInParallelWithNamespaceFilter() throws InvalidProtocolBufferException {
+        var block = newBlock();
+
+        var expected = BlockParser.parseBlock(block, decodeExecutor, BASIC_ONLY).getTransactions();
+        var actual = BlockParser.parseBlockLean(block, decodeExecutor, BASIC_ONLY).getTransactions();
+
+        // Namespaces not selected by the filter are still decoded when accessed.
+        assertSameContent(actual, expected);
+    }
+
+    @Test
+    public void decodesTransactionsFromIndex() throws InvalidProtocolBufferException {
+        var block = newBlock();
+        var expected = BlockParser.parseBlock(block);
+
+        for (int index = 0; index <= ENVELOPE_COUNT; index++) {
+            var actual = BlockParser.parseBlockLean(block, decodeExecutor, BASIC_ONLY).getTransactionsFrom(index);
+
+            assertSameContent(actual, expected.getTransactionsFrom(index));
+            var startIndex = index;
+            assertThat(actual).allMatch(transaction -> transaction.getIndex() >= startIndex);
+        }
+    }
+
+    @Test
+    public void decodesTransactionsFromIndexAfterAllTransactionsAreDecoded() throws InvalidProtocolBufferException {
+        var block = newBlock();
+        var expected = BlockParser.parseBlock(block);
+        var actual = BlockParser.parseBlockLean(block, decodeExecutor, BASIC_ONLY);
+        var allTransactions = actual.getTransactions();
+
+        for (int index = 0; index <= ENVELOPE_COUNT; index++) {
+            var transactions = actual.getTransactionsFrom(index);
+
+            assertSameContent(transactions, expected.getTransactionsFrom(index));
+            // Previously decoded transactions are reused.
+            for (var transaction : transactions) {
+                assertThat(allTransactions).containsOnlyOnce(transaction);
+            }
+        }
+    }
+
+    @Test
+    public void decodesOnlyWritesButKeepsOriginalReadWriteSet() throws InvalidProtocolBufferException {
+        var block = newBlock();
+        var expected = BlockParser.parseBlock(block).getTransactions().get(0);
+        var actual = BlockParser.parseBlockLean(block, null, namespace -> true).getTransactions().get(0);
+
+        var expectedReadWriteSet = expected.getNamespaceReadWriteSets().get(0);
+        var actualReadWriteSet = actual.getNamespaceReadWriteSets().get(0);
+        assertThat(expectedReadWriteSet.getReadWriteSet().getReadsCount()).isEqualTo(1);
+        assertThat(actualReadWriteSet.getReadWriteSet().getReadsCount()).isZero();
+        assertThat(actualReadWriteSet.getReadWriteSet().getWritesList())
+                .containsExactly(put("asset1", "{\"ID\":\"asset1\"}"), delete("old1"));
+        assertThat(actualReadWriteSet.toProto()).isEqualTo(expectedReadWriteSet.toProto());
+    }
+
+    @Test
+    public void decodesCreatorAndPayloadOnAccess() throws InvalidProtocolBufferException {
+        var block = newBlock();
+        var expected = BlockParser.parseBlock(block).getTransactions().get(0);
+        var actual = BlockParser.parseBlockLean(block, null, namespace -> true).getTransactions().get(0);
+
+        assertThat(actual.getCreator().getMspId()).isEqualTo(expected.getCreator().getMspId());
+        assertThat(actual.getCreator().getCredentials()).isEqualTo(expected.getCreator().getCredentials());
+        assertThat(actual.toProto()).isEqualTo(expected.toProto());
+    }
+}
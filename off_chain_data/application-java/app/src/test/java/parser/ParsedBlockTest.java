@@ -0,0 +1,86 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVWrite;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public final class ParsedBlockTest {
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        decodeExecutor.shutdownNow();
+    }
+
+    // Block large enough to be decoded in parallel, with a corrupt envelope part way through.
+    private static org.hyperledger.fabric.protos.common.Block blockWithCorruptEnvelope() {
+        var envelopes = new ArrayList<ByteString>();
+        for (int i = 0; i < ParsedBlock.PARALLEL_DECODE_THRESHOLD; i++) {
+            var writes = KVRWSet.newBuilder().addWrites(KVWrite.newBuilder().setKey("k" + i).setValue(ByteString.copyFromUtf8("v"))).build();
+            envelopes.add(TestBlocks.endorserEnvelope("t" + i, TestBlocks.readWriteSet(TestBlocks.namespaceReadWriteSet("basic", writes))));
+        }
+        // A truncated varint tag.
+        envelopes.set(ParsedBlock.PARALLEL_DECODE_THRESHOLD / 2, ByteString.copyFrom(new byte[] {(byte) 0xFF}));
+
+        return TestBlocks.newBlock(1, envelopes, Collections.nCopies(envelopes.size(), TxValidationCode.VALID));
+    }
+
+    @Test
+    public void decodesInParallel() throws InvalidProtocolBufferException {
+        var envelopes = new ArrayList<ByteString>();
+        for (int i = 0; i < ParsedBlock.PARALLEL_DECODE_THRESHOLD; i++) {
+            envelopes.add(TestBlocks.endorserEnvelope("t" + i, TestBlocks.readWriteSet()));
+        }
+        var block = BlockParser.parseBlock(TestBlocks.newBlock(1, envelopes, Collections.nCopies(envelopes.size(), TxValidationCode.VALID)),
+                decodeExecutor);
+
+        var transactions = block.getTransactions();
+
+        assertThat(transactions).hasSize(envelopes.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            assertThat(transactions.get(i).getIndex()).isEqualTo(i);
+            assertThat(transactions.get(i).getChannelHeader().getTxId()).isEqualTo("t" + i);
+        }
+    }
+
+    @Test
+    public void throwsInvalidProtocolBufferExceptionWhenDecodingSequentially() {
+        var block = BlockParser.parseBlock(blockWithCorruptEnvelope());
+
+        assertThatThrownBy(block::getTransactions).isInstanceOf(InvalidProtocolBufferException.class);
+    }
+
+    @Test
+    public void throwsInvalidProtocolBufferExceptionWhenDecodingInParallel() {
+        var block = BlockParser.parseBlock(blockWithCorruptEnvelope(), decodeExecutor);
+
+        assertThatThrownBy(block::getTransactions).isInstanceOf(InvalidProtocolBufferException.class);
+        // The failure is not cached, so it is thrown again on later access.
+        assertThatThrownBy(block::getTransactions).isInstanceOf(InvalidProtocolBufferException.class);
+    }
+
+    @Test
+    public void throwsInvalidProtocolBufferExceptionWhenDecodingLeanInParallel() {
+        var block = BlockParser.parseBlockLean(blockWithCorruptEnvelope(), decodeExecutor, namespace -> true);
+
+        assertThatThrownBy(block::getTransactions).isInstanceOf(InvalidProtocolBufferException.class);
+    }
+}
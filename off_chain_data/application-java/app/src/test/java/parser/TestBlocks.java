@@ -0,0 +1,141 @@
+/*
+ * Copyright IBM Corp. All Rights Reserved.
+ *
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package parser;
+
+import com.google.protobuf.ByteString;
+import org.hyperledger.fabric.protos.common.Block;
+import org.hyperledger.fabric.protos.common.BlockData;
+import org.hyperledger.fabric.protos.common.BlockHeader;
+import org.hyperledger.fabric.protos.common.BlockMetadata;
+import org.hyperledger.fabric.protos.common.BlockMetadataIndex;
+import org.hyperledger.fabric.protos.common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Envelope;
+import org.hyperledger.fabric.protos.common.Header;
+import org.hyperledger.fabric.protos.common.HeaderType;
+import org.hyperledger.fabric.protos.common.Payload;
+import org.hyperledger.fabric.protos.common.SignatureHeader;
+import org.hyperledger.fabric.protos.ledger.rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KVRWSet;
+import org.hyperledger.fabric.protos.msp.SerializedIdentity;
+import org.hyperledger.fabric.protos.peer.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.ChaincodeActionPayload;
+import org.hyperledger.fabric.protos.peer.ChaincodeEndorsedAction;
+import org.hyperledger.fabric.protos.peer.Endorsement;
+import org.hyperledger.fabric.protos.peer.ProposalResponsePayload;
+import org.hyperledger.fabric.protos.peer.Transaction;
+import org.hyperledger.fabric.protos.peer.TransactionAction;
+import org.hyperledger.fabric.protos.peer.TxValidationCode;
+
+import java.util.List;
+
+// Builders for synthetic blocks with the same structure as those delivered by a Fabric peer.
+final class TestBlocks {
+    static final String CHANNEL_NAME = "mychannel";
+
+    static Block newBlock(final long number, final List<ByteString> envelopes, final List<TxValidationCode> validationCodes) {
+        var validationCodeBytes = new byte[validationCodes.size()];
+        for (int i = 0; i < validationCodeBytes.length; i++) {
+            validationCodeBytes[i] = (byte) validationCodes.get(i).getNumber();
+        }
+
+        var metadata = BlockMetadata.newBuilder();
+        for (int i = 0; i < BlockMetadataIndex.TRANSACTIONS_FILTER_VALUE; i++) {
+            metadata.addMetadata(ByteString.EMPTY);
+        }
+        metadata.addMetadata(ByteString.copyFrom(validationCodeBytes));
+
+        return Block.newBuilder()
+                .setHeader(BlockHeader.newBuilder().setNumber(number))
+                .setData(BlockData.newBuilder().addAllData(envelopes))
+                .setMetadata(metadata)
+                .build();
+    }
+
+    // Endorser transaction envelope with one transaction action for each read/write set, each endorsed twice.
+    static ByteString endorserEnvelope(final String transactionId, final TxReadWriteSet... actionResults) {
+        var transaction = Transaction.newBuilder();
+        for (var results : actionResults) {
+            var proposalResponsePayload = ProposalResponsePayload.newBuilder()
+                    .setProposalHash(ByteString.copyFromUtf8("hash"))
+                    .setExtension(ChaincodeAction.newBuilder().setResults(results.toByteString()).build().toByteString())
+                    .build();
+            var endorsedAction = ChaincodeEndorsedAction.newBuilder()
+                    .setProposalResponsePayload(proposalResponsePayload.toByteString())
+                    .addEndorsements(endorsement("Org1MSP"))
+                    .addEndorsements(endorsement("Org2MSP"));
+            var actionPayload = ChaincodeActionPayload.newBuilder()
+                    .setChaincodeProposalPayload(ByteString.copyFromUtf8("proposal"))
+                    .setAction(endorsedAction)
+                    .build();
+            transaction.addActions(TransactionAction.newBuilder()
+                    .setHeader(ByteString.copyFromUtf8("action header"))
+                    .setPayload(actionPayload.toByteString()));
+        }
+
+        return envelope(HeaderType.ENDORSER_TRANSACTION, transactionId, transaction.build().toByteString());
+    }
+
+    // Envelope of a type other than an endorser transaction, whose data is not a transaction.
+    static ByteString configEnvelope(final String transactionId) {
+        return envelope(HeaderType.CONFIG, transactionId, ByteString.copyFromUtf8("config"));
+    }
+
+    static TxReadWriteSet readWriteSet(final NsReadWriteSet... namespaceReadWriteSets) {
+        return TxReadWriteSet.newBuilder()
+                .setDataModel(TxReadWriteSet.DataModel.KV)
+                .addAllNsRwset(List.of(namespaceReadWriteSets))
+                .build();
+    }
+
+    static NsReadWriteSet namespaceReadWriteSet(final String namespace, final KVRWSet readWriteSet) {
+        return NsReadWriteSet.newBuilder()
+                .setNamespace(namespace)
+                .setRwset(readWriteSet.toByteString())
+                .build();
+    }
+
+    private static ByteString envelope(final HeaderType type, final String transactionId, final ByteString data) {
+        var channelHeader = ChannelHeader.newBuilder()
+                .setType(type.getNumber())
+                .setChannelId(CHANNEL_NAME)
+                .setTxId(transactionId)
+                .build();
+        var signatureHeader = SignatureHeader.newBuilder()
+                .setCreator(identity("Org1MSP").toByteString())
+                .setNonce(ByteString.copyFromUtf8("nonce"))
+                .build();
+        var payload = Payload.newBuilder()
+                .setHeader(Header.newBuilder()
+                        .setChannelHeader(channelHeader.toByteString())
+                        .setSignatureHeader(signatureHeader.toByteString()))
+                .setData(data)
+                .build();
+
+        return Envelope.newBuilder()
+                .setPayload(payload.toByteString())
+                .setSignature(ByteString.copyFromUtf8("signature"))
+                .build()
+                .toByteString();
+    }
+
+    private static Endorsement endorsement(final String mspId) {
+        return Endorsement.newBuilder()
+                .setEndorser(identity(mspId).toByteString())
+                .setSignature(ByteString.copyFromUtf8("endorsement signature"))
+                .build();
+    }
+
+    private static SerializedIdentity identity(final String mspId) {
+        return SerializedIdentity.newBuilder()
+                .setMspid(mspId)
+                .setIdBytes(ByteString.copyFromUtf8("certificate"))
+                .build();
+    }
+
+    private TestBlocks() { }
+}